@@ -0,0 +1,66 @@
+package com.seven.tech.accounts.benchmark;
+
+import com.seven.tech.accounts.AccountsApplication;
+import com.seven.tech.accounts.service.AccountService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accounts created per second one call at a time, each in its own transaction, against
+ * {@link AccountService#createAccounts} creating {@value #BULK_COUNT} per call in chunked, batched transactions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AccountCreationBenchmark {
+    private static final int BULK_COUNT = 10000;
+
+    private ConfigurableApplicationContext context;
+    private AccountService accountService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(AccountsApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("prod")
+                .properties("spring.jpa.show-sql=false", "logging.level.root=WARN")
+                .run("--spring.datasource.url=jdbc:h2:mem:bench-" + System.nanoTime() + ";LOCK_TIMEOUT=10000");
+        accountService = context.getBean(AccountService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public String createAccount() {
+        return accountService.createAccount();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BULK_COUNT)
+    public void createAccounts(Blackhole blackhole) {
+        accountService.createAccounts(BULK_COUNT, blackhole::consume);
+    }
+}
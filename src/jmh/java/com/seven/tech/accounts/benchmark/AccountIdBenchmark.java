@@ -0,0 +1,77 @@
+package com.seven.tech.accounts.benchmark;
+
+import com.seven.tech.accounts.AccountsApplication;
+import com.seven.tech.accounts.service.AccountService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Account creation and balance reads with ids stored as text or as 16 bytes. Creation inserts into the primary key
+ * index, at random places for random ids and at its end for time-ordered ones.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AccountIdBenchmark {
+
+    @Param({"STRING", "BINARY"})
+    private String format;
+
+    @Param({"100000"})
+    private int accounts;
+
+    private ConfigurableApplicationContext context;
+    private AccountService accountService;
+    private String[] accountIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(AccountsApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("prod")
+                .properties("logging.level.root=WARN", "accounts.balance-cache.size=0",
+                        "accounts.ids.format=" + format,
+                        "spring.datasource.url=jdbc:h2:mem:ids-" + format + ";LOCK_TIMEOUT=10000")
+                .run();
+        accountService = context.getBean(AccountService.class);
+        accountIds = new String[accounts];
+        for (int i = 0; i < accounts; i++) {
+            accountIds[i] = accountService.createAccount();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public String createAccount() {
+        return accountService.createAccount();
+    }
+
+    @Benchmark
+    public long getBalance() {
+        return accountService.getBalance(accountIds[ThreadLocalRandom.current().nextInt(accounts)]);
+    }
+}
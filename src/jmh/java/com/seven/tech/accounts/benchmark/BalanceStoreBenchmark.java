@@ -0,0 +1,136 @@
+package com.seven.tech.accounts.benchmark;
+
+import com.seven.tech.accounts.AccountsApplication;
+import com.seven.tech.accounts.ledger.BalanceStorage;
+import com.seven.tech.accounts.ledger.BalanceStore;
+import com.seven.tech.accounts.service.AccountService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookup and update latency of the balances of {@code accounts} accounts: in a {@link BalanceStore} on the heap or
+ * off it, or through the JPA {@link AccountService} on an in-memory H2. After filling, the trial prints the heap
+ * and direct memory in use and the pause of a full collection, which grows with the live objects on the heap.
+ * Larger sizes need a larger heap, e.g. {@code -p accounts=10000000 -jvmArgs -Xmx4g}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class BalanceStoreBenchmark {
+    private static final int SAMPLE = 1 << 16;
+
+    @Param({"HEAP", "OFF_HEAP", "JPA"})
+    private String storage;
+
+    @Param({"1000000"})
+    private int accounts;
+
+    private BalanceStore store;
+    private ConfigurableApplicationContext context;
+    private AccountService accountService;
+    private final String[] accountIds = new String[SAMPLE];
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        long heapBefore = usedHeap();
+        if (storage.equals("JPA")) {
+            context = new SpringApplicationBuilder(AccountsApplication.class)
+                    .web(WebApplicationType.NONE)
+                    .profiles("prod")
+                    .properties("spring.jpa.show-sql=false", "logging.level.root=WARN")
+                    .run("--spring.datasource.url=jdbc:h2:mem:bench-" + System.nanoTime() + ";LOCK_TIMEOUT=10000");
+            accountService = context.getBean(AccountService.class);
+            heapBefore = usedHeap();
+            int[] created = new int[1];
+            accountService.createAccounts(accounts, accountId -> sample(created[0]++, accountId));
+        } else {
+            store = BalanceStorage.valueOf(storage).newStore(accounts);
+            for (int i = 0; i < accounts; i++) {
+                String accountId = UUID.randomUUID().toString();
+                store.put(accountId, i);
+                sample(i, accountId);
+            }
+        }
+        long start = System.nanoTime();
+        System.gc();
+        long fullGcMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        long gcMillis = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            gcMillis += collector.getCollectionTime();
+        }
+        System.out.printf("%n%s, %d accounts: heap %d MB, direct %d MB, full GC %d ms, GC total %d ms%n", storage,
+                accounts, (usedHeap() - heapBefore) >> 20, directMemory() >> 20, fullGcMillis, gcMillis);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Benchmark
+    public long getBalance() {
+        String accountId = accountIds[ThreadLocalRandom.current().nextInt(SAMPLE)];
+        return store != null ? store.get(accountId) : accountService.getBalance(accountId);
+    }
+
+    @Benchmark
+    public long increaseBalance() {
+        String accountId = accountIds[ThreadLocalRandom.current().nextInt(SAMPLE)];
+        return store != null ? store.add(accountId, 1) : accountService.increaseBalance(accountId, 1);
+    }
+
+    /**
+     * Reservoir sampling, so the lookups spread over the whole table without keeping every id.
+     */
+    private void sample(int index, String accountId) {
+        if (index < SAMPLE) {
+            accountIds[index] = accountId;
+        } else {
+            int slot = ThreadLocalRandom.current().nextInt(index + 1);
+            if (slot < SAMPLE) {
+                accountIds[slot] = accountId;
+            }
+        }
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long directMemory() {
+        long used = 0;
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if (pool.getName().equals("direct")) {
+                used += pool.getMemoryUsed();
+            }
+        }
+        return used;
+    }
+}
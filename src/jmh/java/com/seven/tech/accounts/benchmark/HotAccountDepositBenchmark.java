@@ -0,0 +1,68 @@
+package com.seven.tech.accounts.benchmark;
+
+import com.seven.tech.accounts.AccountsApplication;
+import com.seven.tech.accounts.service.ConcurrentDecoratorAccountService;
+import com.seven.tech.accounts.service.SingleAccountUpdate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deposits into one hot account from several threads, against the embedded H2: {@code LOCKED} queues the callers
+ * on the account's JVM lock and loads and writes the entity, {@code ATOMIC} sends each caller's guarded
+ * {@code UPDATE} straight to the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class HotAccountDepositBenchmark {
+    private static final long DEPOSIT_VALUE = 1;
+
+    @Param({"LOCKED", "ATOMIC"})
+    private SingleAccountUpdate update;
+
+    private ConfigurableApplicationContext context;
+    private ConcurrentDecoratorAccountService accountService;
+    private String accountId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(AccountsApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.jpa.show-sql=false", "logging.level.root=WARN",
+                        "accounts.single-account-update=" + update)
+                .run();
+        accountService = context.getBean(ConcurrentDecoratorAccountService.class);
+        accountId = accountService.createAccount();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public long deposit() {
+        return accountService.increaseBalance(accountId, DEPOSIT_VALUE);
+    }
+}
@@ -0,0 +1,97 @@
+package com.seven.tech.accounts.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.seven.tech.accounts.BaseResult;
+import com.seven.tech.accounts.json.BaseResultCodec;
+import com.seven.tech.accounts.json.MoneyJson;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson cost of the request and response bodies of the balance endpoints, against the {@link BaseResultCodec}.
+ * The codec writes into a reused stream, as it does into the response buffer.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSerializationBenchmark {
+    private ObjectWriter writer;
+    private ObjectReader moneyReader;
+    private BaseResult<BigDecimal> balanceResult;
+    private BaseResult<Boolean> errorResult;
+    private byte[] moneyRequest;
+    private BaseResultCodec codec;
+    private BaseResult<MoneyJson> moneyResult;
+    private ByteArrayOutputStream out;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        writer = objectMapper.writer();
+        moneyReader = objectMapper.readerFor(MoneyJson.class);
+        balanceResult = new BaseResult<>(new BigDecimal("1234567.89"));
+        errorResult = new BaseResult<>("ACCOUNT_NOT_ENOUGH_MONEY", "Account has not enough money");
+        moneyRequest = objectMapper.writeValueAsBytes(new MoneyJson(new BigDecimal("10.05")));
+        codec = new BaseResultCodec(objectMapper);
+        moneyResult = new BaseResult<>(new MoneyJson(new BigDecimal("1234567.89")));
+        out = new ByteArrayOutputStream(128);
+    }
+
+    @Benchmark
+    public byte[] writeMoneyResult() throws JsonProcessingException {
+        return writer.writeValueAsBytes(moneyResult);
+    }
+
+    @Benchmark
+    public int writeMoneyResultWithCodec() throws IOException {
+        out.reset();
+        codec.write(moneyResult, out);
+        return out.size();
+    }
+
+    @Benchmark
+    public int writeErrorResultWithCodec() throws IOException {
+        out.reset();
+        codec.write(errorResult, out);
+        return out.size();
+    }
+
+    @Benchmark
+    public MoneyJson readMoneyJsonWithCodec() throws IOException {
+        return codec.readMoney(moneyRequest);
+    }
+
+    @Benchmark
+    public byte[] writeBalanceResult() throws JsonProcessingException {
+        return writer.writeValueAsBytes(balanceResult);
+    }
+
+    @Benchmark
+    public byte[] writeErrorResult() throws JsonProcessingException {
+        return writer.writeValueAsBytes(errorResult);
+    }
+
+    @Benchmark
+    public MoneyJson readMoneyJson() throws IOException {
+        return moneyReader.readValue(moneyRequest);
+    }
+}
@@ -0,0 +1,70 @@
+package com.seven.tech.accounts.benchmark;
+
+import com.seven.tech.accounts.ledger.LedgerEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Files;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transfer throughput of the in-memory ledger with the journal on local disk.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(32)
+public class LedgerEngineBenchmark {
+
+    @Param({"4"})
+    private int partitions;
+
+    @Param({"false", "true"})
+    private boolean fsync;
+
+    @Param({"10000"})
+    private int accounts;
+
+    private LedgerEngine ledgerEngine;
+    private String[] accountIds;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        ledgerEngine = new LedgerEngine(Files.createTempDirectory("ledger-benchmark").toString(), partitions, 16384, fsync);
+        ledgerEngine.start();
+        accountIds = new String[accounts];
+        for (int i = 0; i < accounts; i++) {
+            accountIds[i] = UUID.randomUUID().toString();
+            ledgerEngine.createAccount(accountIds[i]);
+            ledgerEngine.increaseBalance(accountIds[i], Long.MAX_VALUE / (2L * accounts));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        ledgerEngine.stop();
+    }
+
+    @Benchmark
+    public void transfer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        ledgerEngine.transferMoney(accountIds[random.nextInt(accounts)], accountIds[random.nextInt(accounts)], 1);
+    }
+}
@@ -0,0 +1,77 @@
+package com.seven.tech.accounts.benchmark;
+
+import com.seven.tech.accounts.ledger.LedgerEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Files;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Start-up time of the ledger by number of accounts: replaying the whole journal, or loading a snapshot and
+ * replaying the tail written after it. Every account gets one deposit before the snapshot and one after it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class LedgerStartupBenchmark {
+
+    @Param({"4"})
+    private int partitions;
+
+    @Param({"100000", "1000000"})
+    private int accounts;
+
+    @Param({"false", "true"})
+    private boolean snapshot;
+
+    private String journalDir;
+    private LedgerEngine ledgerEngine;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        journalDir = Files.createTempDirectory("ledger-startup").toString();
+        LedgerEngine writer = new LedgerEngine(journalDir, partitions, 16384, false, 0);
+        writer.start();
+        String[] accountIds = new String[accounts];
+        for (int i = 0; i < accounts; i++) {
+            accountIds[i] = UUID.randomUUID().toString();
+            writer.createAccount(accountIds[i]);
+            writer.increaseBalance(accountIds[i], 100);
+        }
+        if (snapshot) {
+            writer.snapshot().join();
+        }
+        for (String accountId : accountIds) {
+            writer.increaseBalance(accountId, 1);
+        }
+        writer.stop();
+    }
+
+    @TearDown(Level.Invocation)
+    public void stop() throws InterruptedException {
+        ledgerEngine.stop();
+    }
+
+    @Benchmark
+    public LedgerEngine start() {
+        ledgerEngine = new LedgerEngine(journalDir, partitions, 16384, false, 0);
+        ledgerEngine.start();
+        return ledgerEngine;
+    }
+}
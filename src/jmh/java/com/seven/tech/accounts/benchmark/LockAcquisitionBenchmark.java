@@ -0,0 +1,56 @@
+package com.seven.tech.accounts.benchmark;
+
+import com.seven.tech.accounts.lock.AccountLocks;
+import com.seven.tech.accounts.lock.LockAcquisition;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Uncontended cost of taking and releasing account locks on a single thread.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LockAcquisitionBenchmark {
+
+    @Param({"ORDERED", "TRY_LOCK_BACKOFF"})
+    private LockAcquisition acquisition;
+
+    private AccountLocks accountLocks;
+    private String accountId;
+    private String recipientAccountId;
+
+    @Setup
+    public void setUp() {
+        accountLocks = new AccountLocks(acquisition);
+        accountId = UUID.randomUUID().toString();
+        recipientAccountId = UUID.randomUUID().toString();
+    }
+
+    @Benchmark
+    public void singleAccount() {
+        accountLocks.lock(accountId);
+        accountLocks.unlock(accountId);
+    }
+
+    @Benchmark
+    public void transfer() {
+        accountLocks.lock(accountId, recipientAccountId);
+        accountLocks.unlock(accountId, recipientAccountId);
+    }
+}
@@ -0,0 +1,69 @@
+package com.seven.tech.accounts.benchmark;
+
+import com.seven.tech.accounts.lock.AccountLocks;
+import com.seven.tech.accounts.lock.LockAcquisition;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transfer-shaped lock traffic over a small set of hot accounts: every operation takes the locks of two random
+ * accounts, burns a few CPU cycles in place of the transaction and releases them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(16)
+public class LockContentionBenchmark {
+
+    @Param({"2", "8", "64"})
+    private int hotAccounts;
+
+    @Param({"ORDERED", "TRY_LOCK_BACKOFF"})
+    private LockAcquisition acquisition;
+
+    @Param({"200"})
+    private int workTokens;
+
+    private AccountLocks accountLocks;
+    private String[] accountIds;
+
+    @Setup
+    public void setUp() {
+        accountLocks = new AccountLocks(acquisition);
+        accountIds = new String[hotAccounts];
+        for (int i = 0; i < hotAccounts; i++) {
+            accountIds[i] = UUID.randomUUID().toString();
+        }
+    }
+
+    @Benchmark
+    public void transfer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String accountId = accountIds[random.nextInt(hotAccounts)];
+        String recipientAccountId = accountIds[random.nextInt(hotAccounts)];
+        accountLocks.lock(accountId, recipientAccountId);
+        try {
+            Blackhole.consumeCPU(workTokens);
+        } finally {
+            accountLocks.unlock(accountId, recipientAccountId);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.seven.tech.accounts.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The arithmetic of one transfer leg as {@code AccountService} does it with {@link BigDecimal}, next to the same
+ * work on minor units in a {@code long}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyArithmeticBenchmark {
+    private BigDecimal balance = new BigDecimal("1234567.89");
+    private BigDecimal money = new BigDecimal("10.05");
+    private long balanceMinorUnits = 123456789;
+    private long moneyMinorUnits = 1005;
+
+    @Benchmark
+    public BigDecimal bigDecimalDebit() {
+        if (balance.subtract(money).compareTo(BigDecimal.ZERO) < 0) {
+            throw new IllegalStateException();
+        }
+        return balance.subtract(money);
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalCredit() {
+        return balance.add(money);
+    }
+
+    @Benchmark
+    public long longDebit() {
+        if (balanceMinorUnits < moneyMinorUnits) {
+            throw new IllegalStateException();
+        }
+        return balanceMinorUnits - moneyMinorUnits;
+    }
+
+    @Benchmark
+    public long longCredit() {
+        return Math.addExact(balanceMinorUnits, moneyMinorUnits);
+    }
+}
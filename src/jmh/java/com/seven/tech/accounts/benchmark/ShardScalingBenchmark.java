@@ -0,0 +1,88 @@
+package com.seven.tech.accounts.benchmark;
+
+import com.seven.tech.accounts.AccountsApplication;
+import com.seven.tech.accounts.service.AccountService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the {@code sharded} profile by shard count: deposits, which always stay on one shard, and transfers
+ * between random accounts, most of which cross shards once there are several. Every trial gets fresh databases.
+ * Scaling is bounded by the cores of the machine, since the embedded shards share the benchmark's CPUs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class ShardScalingBenchmark {
+    private static final long INITIAL_BALANCE = 100000000000L;
+    private static final long TRANSFER_VALUE = 1;
+
+    @Param({"1", "2", "4"})
+    private int shards;
+
+    @Param({"1000"})
+    private int accounts;
+
+    private ConfigurableApplicationContext context;
+    private AccountService accountService;
+    private String[] accountIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(AccountsApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("sharded", "prod")
+                .properties("spring.jpa.show-sql=false", "logging.level.root=WARN",
+                        "accounts.shards.count=" + shards,
+                        "accounts.shards.url-template=jdbc:h2:mem:bench-" + System.nanoTime()
+                                + "-%d;LOCK_TIMEOUT=10000")
+                .run();
+        accountService = context.getBean(AccountService.class);
+        accountIds = new String[accounts];
+        for (int i = 0; i < accounts; i++) {
+            accountIds[i] = accountService.createAccount();
+            accountService.increaseBalance(accountIds[i], INITIAL_BALANCE);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public long increaseBalance() {
+        return accountService.increaseBalance(pick(), TRANSFER_VALUE);
+    }
+
+    @Benchmark
+    public Boolean transfer() {
+        return accountService.transferMoney(pick(), pick(), TRANSFER_VALUE);
+    }
+
+    private String pick() {
+        return accountIds[ThreadLocalRandom.current().nextInt(accounts)];
+    }
+}
@@ -0,0 +1,113 @@
+package com.seven.tech.accounts.benchmark;
+
+import com.seven.tech.accounts.AccountsApplication;
+import com.seven.tech.accounts.repository.AccountRepository;
+import com.seven.tech.accounts.service.AccountService;
+import com.seven.tech.accounts.service.ConcurrentDecoratorAccountService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transfer throughput of the JPA services against the embedded H2, with the accounts picked uniformly or with
+ * Zipf-skewed popularity.
+ * <p>
+ * {@code unsynchronized} is the bare {@link AccountService} in a transaction without any JVM locks, serialized by
+ * the database row locks alone. It is the reference point for what the locking of
+ * {@link ConcurrentDecoratorAccountService} costs. Transfers that fail on a concurrent update return
+ * {@code false}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class TransferServiceBenchmark {
+    private static final long INITIAL_BALANCE = 100000000000L;
+    private static final long TRANSFER_VALUE = 1;
+
+    @Param({"locks", "unsynchronized"})
+    private String service;
+
+    @Param({"uniform", "zipf"})
+    private String selection;
+
+    @Param({"1000"})
+    private int accounts;
+
+    private ConfigurableApplicationContext context;
+    private TransferService transferService;
+    private ZipfSampler zipf;
+    private String[] accountIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(AccountsApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.jpa.show-sql=false", "logging.level.root=WARN",
+                        "logging.level.org.hibernate.engine.jdbc.batch.internal.BatchingBatch=OFF")
+                .run();
+        ConcurrentDecoratorAccountService lockingService = context.getBean(ConcurrentDecoratorAccountService.class);
+        if ("locks".equals(service)) {
+            transferService = lockingService::transferMoney;
+        } else {
+            AccountService accountService = new AccountService();
+            accountService.setRepository(context.getBean(AccountRepository.class));
+            TransactionTemplate transactionTemplate = context.getBean(TransactionTemplate.class);
+            transferService = (accountId, recipientAccountId, money) -> {
+                try {
+                    return transactionTemplate.execute((TransactionCallback<Boolean>) status ->
+                            accountService.transferMoney(accountId, recipientAccountId, money));
+                } catch (OptimisticLockingFailureException e) {
+                    return false;
+                }
+            };
+        }
+        zipf = new ZipfSampler(accounts, 1.0);
+        accountIds = new String[accounts];
+        for (int i = 0; i < accounts; i++) {
+            accountIds[i] = lockingService.createAccount();
+            lockingService.increaseBalance(accountIds[i], INITIAL_BALANCE);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Boolean transfer() {
+        return transferService.transferMoney(pick(), pick(), TRANSFER_VALUE);
+    }
+
+    private String pick() {
+        return accountIds["zipf".equals(selection) ? zipf.next() : ThreadLocalRandom.current().nextInt(accounts)];
+    }
+
+    private interface TransferService {
+        Boolean transferMoney(String accountId, String recipientAccountId, long money);
+    }
+}
@@ -0,0 +1,75 @@
+package com.seven.tech.accounts.benchmark;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The requests of the load test, with the weights of {@code loadtest.mix}, e.g.
+ * {@code getBalance=40,increaseBalance=20,reduceBalance=20,transferMoney=20}.
+ */
+enum LoadOperation {
+    GET_BALANCE("getBalance"),
+    INCREASE_BALANCE("increaseBalance"),
+    REDUCE_BALANCE("reduceBalance"),
+    TRANSFER_MONEY("transferMoney");
+
+    private final String endpoint;
+
+    LoadOperation(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    String getEndpoint() {
+        return endpoint;
+    }
+
+    static LoadOperation ofEndpoint(String endpoint) {
+        for (LoadOperation operation : values()) {
+            if (operation.endpoint.equals(endpoint)) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("Unknown operation " + endpoint);
+    }
+
+    /**
+     * Picks operations at random with the weights of a mix.
+     */
+    static final class Mix {
+        private final LoadOperation[] operations;
+        private final double[] cumulative;
+
+        Mix(String mix) {
+            Map<LoadOperation, Double> weights = new EnumMap<>(LoadOperation.class);
+            for (String entry : mix.split(",")) {
+                String[] weight = entry.trim().split("=");
+                weights.put(ofEndpoint(weight[0].trim()), Double.parseDouble(weight[1].trim()));
+            }
+            operations = weights.keySet().toArray(new LoadOperation[0]);
+            cumulative = new double[operations.length];
+            double sum = 0;
+            for (int i = 0; i < operations.length; i++) {
+                sum += weights.get(operations[i]);
+                cumulative[i] = sum;
+            }
+            for (int i = 0; i < operations.length; i++) {
+                cumulative[i] /= sum;
+            }
+        }
+
+        LoadOperation next() {
+            double random = ThreadLocalRandom.current().nextDouble();
+            for (int i = 0; i < operations.length - 1; i++) {
+                if (random < cumulative[i]) {
+                    return operations[i];
+                }
+            }
+            return operations[operations.length - 1];
+        }
+
+        LoadOperation[] getOperations() {
+            return operations;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.seven.tech.accounts.benchmark;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Latencies and throughput of one load test run, kept as the flat properties of {@code load-baseline.properties}.
+ * Latencies are in microseconds, measured from the intended start of each request.
+ */
+final class LoadResult {
+    private static final String[] SETTINGS = {"rate", "accounts", "zipf-exponent", "mix"};
+
+    private final Properties properties = new Properties();
+
+    LoadResult(LoadSettings settings, Map<LoadOperation, Histogram> latencies, long completed, long rejected,
+               long errors, double seconds) {
+        properties.setProperty("rate", String.valueOf(settings.getRate()));
+        properties.setProperty("accounts", String.valueOf(settings.getAccounts()));
+        properties.setProperty("zipf-exponent", String.valueOf(settings.getZipfExponent()));
+        properties.setProperty("mix", settings.getMix());
+        properties.setProperty("throughput", format(completed / seconds));
+        properties.setProperty("rejected", String.valueOf(rejected));
+        properties.setProperty("errors", String.valueOf(errors));
+        for (Map.Entry<LoadOperation, Histogram> entry : latencies.entrySet()) {
+            String prefix = entry.getKey().getEndpoint() + ".";
+            Histogram histogram = entry.getValue();
+            properties.setProperty(prefix + "count", String.valueOf(histogram.getTotalCount()));
+            properties.setProperty(prefix + "p50", String.valueOf(histogram.getValueAtPercentile(50)));
+            properties.setProperty(prefix + "p99", String.valueOf(histogram.getValueAtPercentile(99)));
+            properties.setProperty(prefix + "p99.9", String.valueOf(histogram.getValueAtPercentile(99.9)));
+            properties.setProperty(prefix + "max", String.valueOf(histogram.getMaxValue()));
+        }
+    }
+
+    private LoadResult(Properties properties) {
+        this.properties.putAll(properties);
+    }
+
+    static LoadResult read(Path path) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(path)) {
+            properties.load(reader);
+        }
+        return new LoadResult(properties);
+    }
+
+    void write(Path path) throws IOException {
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        try (Writer writer = Files.newBufferedWriter(path)) {
+            properties.store(writer, "mvn -Ploadtest -DskipTests verify");
+        }
+    }
+
+    double getThroughput() {
+        return Double.parseDouble(properties.getProperty("throughput"));
+    }
+
+    long getErrors() {
+        return Long.parseLong(properties.getProperty("errors"));
+    }
+
+    /**
+     * The p99 of an operation, or -1 if the run had none of it.
+     */
+    long getP99(LoadOperation operation) {
+        return Long.parseLong(properties.getProperty(operation.getEndpoint() + ".p99", "-1"));
+    }
+
+    /**
+     * Each p99 that is more than {@code tolerance} above the baseline's and a throughput more than {@code tolerance}
+     * below it, as messages; empty when the run holds up. A baseline of other settings is a regression too, since
+     * its numbers mean nothing for this run.
+     */
+    List<String> regressionsAgainst(LoadResult baseline, double tolerance) {
+        List<String> regressions = new ArrayList<>();
+        for (String setting : SETTINGS) {
+            String expected = baseline.properties.getProperty(setting);
+            if (!properties.getProperty(setting).equals(expected)) {
+                regressions.add("baseline was recorded with " + setting + "=" + expected + ", this run used "
+                        + properties.getProperty(setting));
+            }
+        }
+        if (!regressions.isEmpty()) {
+            return regressions;
+        }
+        for (LoadOperation operation : LoadOperation.values()) {
+            long expected = baseline.getP99(operation);
+            long actual = getP99(operation);
+            if (expected >= 0 && actual > expected * (1 + tolerance)) {
+                regressions.add(operation.getEndpoint() + " p99 " + actual + " us, baseline " + expected + " us");
+            }
+        }
+        if (getThroughput() < baseline.getThroughput() * (1 - tolerance)) {
+            regressions.add("throughput " + format(getThroughput()) + " req/s, baseline "
+                    + format(baseline.getThroughput()) + " req/s");
+        }
+        return regressions;
+    }
+
+    static Map<LoadOperation, String> summaries(Map<LoadOperation, Histogram> latencies) {
+        Map<LoadOperation, String> summaries = new EnumMap<>(LoadOperation.class);
+        for (Map.Entry<LoadOperation, Histogram> entry : latencies.entrySet()) {
+            Histogram histogram = entry.getValue();
+            summaries.put(entry.getKey(), String.format("%8d requests  p50 %7d us  p99 %7d us  p99.9 %7d us  max %7d us",
+                    histogram.getTotalCount(), histogram.getValueAtPercentile(50),
+                    histogram.getValueAtPercentile(99), histogram.getValueAtPercentile(99.9),
+                    histogram.getMaxValue()));
+        }
+        return summaries;
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.1f", value);
+    }
+}
@@ -0,0 +1,99 @@
+package com.seven.tech.accounts.benchmark;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * The {@code loadtest.*} system properties set by the {@code loadtest} profile.
+ */
+final class LoadSettings {
+    private final int rate;
+    private final int durationSeconds;
+    private final int warmupSeconds;
+    private final int accounts;
+    private final double zipfExponent;
+    private final String mix;
+    private final int maxInFlight;
+    private final double tolerance;
+    private final String profiles;
+    private final Path baseline;
+    private final Path result;
+    private final boolean record;
+
+    private LoadSettings() {
+        rate = Integer.getInteger("loadtest.rate", 500);
+        durationSeconds = Integer.getInteger("loadtest.duration-seconds", 30);
+        warmupSeconds = Integer.getInteger("loadtest.warmup-seconds", 10);
+        accounts = Integer.getInteger("loadtest.accounts", 10000);
+        zipfExponent = Double.parseDouble(System.getProperty("loadtest.zipf-exponent", "1.0"));
+        mix = System.getProperty("loadtest.mix", "getBalance=40,increaseBalance=20,reduceBalance=20,transferMoney=20");
+        maxInFlight = Integer.getInteger("loadtest.max-in-flight", 1000);
+        tolerance = Double.parseDouble(System.getProperty("loadtest.tolerance", "0.2"));
+        profiles = System.getProperty("loadtest.profiles", "prod");
+        baseline = Paths.get(System.getProperty("loadtest.baseline", "src/loadtest/baseline/load-baseline.properties"));
+        result = Paths.get(System.getProperty("loadtest.result", "target/loadtest-result.properties"));
+        record = Boolean.getBoolean("loadtest.record");
+    }
+
+    static LoadSettings fromSystemProperties() {
+        return new LoadSettings();
+    }
+
+    /**
+     * Requests per second, started on schedule whether or not the earlier ones have completed.
+     */
+    int getRate() {
+        return rate;
+    }
+
+    int getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    int getWarmupSeconds() {
+        return warmupSeconds;
+    }
+
+    int getAccounts() {
+        return accounts;
+    }
+
+    double getZipfExponent() {
+        return zipfExponent;
+    }
+
+    String getMix() {
+        return mix;
+    }
+
+    /**
+     * Requests waiting for a response beyond this many are not sent and count as errors, so an overloaded server
+     * fails the run instead of piling up connections.
+     */
+    int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    double getTolerance() {
+        return tolerance;
+    }
+
+    String[] getProfiles() {
+        return profiles.isEmpty() ? new String[0] : profiles.split(",");
+    }
+
+    Path getBaseline() {
+        return baseline;
+    }
+
+    Path getResult() {
+        return result;
+    }
+
+    /**
+     * Whether to write the result as the new baseline instead of checking it against the old one.
+     */
+    boolean isRecord() {
+        return record;
+    }
+}
@@ -0,0 +1,200 @@
+package com.seven.tech.accounts.benchmark;
+
+import com.seven.tech.accounts.AccountsApplication;
+import com.seven.tech.accounts.service.AccountService;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives the REST API of an embedded server with an open workload: requests start at Poisson-distributed times of
+ * {@code loadtest.rate} per second whether or not the earlier ones have completed, on Zipf-distributed hot accounts,
+ * in the proportions of {@code loadtest.mix}. Each latency runs from the time a request was due to start rather than
+ * the time it was sent, so a stalled server or client is charged for every request it delays (no coordinated
+ * omission). Requests due in the first {@code loadtest.warmup-seconds} are not recorded.
+ * <p>
+ * The result goes to {@code loadtest.result}; the run fails when errors occur, or when a p99 or the throughput is
+ * worse than {@code loadtest.baseline} by more than {@code loadtest.tolerance}. Until a baseline has been recorded the
+ * comparison is skipped with a message saying so. With {@code loadtest.record} the result replaces the baseline
+ * instead.
+ */
+public final class LoadTest {
+    private static final long INITIAL_BALANCE = 1_000_000_00L;
+    private static final String AMOUNT = "{\"money\":1.00}";
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+    private static final long DRAIN_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(15);
+
+    private final LoadSettings settings;
+    private final HttpClient client;
+    private final Map<LoadOperation, Recorder> recorders = new EnumMap<>(LoadOperation.class);
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong lastCompletion = new AtomicLong();
+    private String baseUrl;
+    private String[] accountIds;
+    private ZipfSampler accounts;
+    private long measureFrom;
+
+    private LoadTest(LoadSettings settings, ExecutorService executor) {
+        this.settings = settings;
+        this.client = HttpClient.newBuilder().executor(executor).connectTimeout(REQUEST_TIMEOUT).build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadSettings settings = LoadSettings.fromSystemProperties();
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        LoadResult result;
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(AccountsApplication.class)
+                .profiles(settings.getProfiles())
+                .initializers(application -> application.getBeanFactory().registerSingleton(
+                        TestComponentExcludeFilter.class.getName(), new TestComponentExcludeFilter()))
+                .properties("server.port=0", "spring.jpa.show-sql=false", "logging.level.root=WARN",
+                        "spring.datasource.url=jdbc:h2:mem:loadTest;LOCK_TIMEOUT=10000")
+                .run()) {
+            LoadTest loadTest = new LoadTest(settings, executor);
+            loadTest.prepare(context);
+            result = loadTest.run();
+        } finally {
+            executor.shutdownNow();
+        }
+        result.write(settings.getResult());
+        System.exit(check(settings, result) ? 0 : 1);
+    }
+
+    private void prepare(ConfigurableApplicationContext context) {
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/account/";
+        AccountService accountService = context.getBean(AccountService.class);
+        List<String> ids = new ArrayList<>(settings.getAccounts());
+        accountService.createAccounts(settings.getAccounts(), ids::add);
+        for (String id : ids) {
+            accountService.increaseBalance(id, INITIAL_BALANCE);
+        }
+        accountIds = ids.toArray(new String[0]);
+        accounts = new ZipfSampler(accountIds.length, settings.getZipfExponent());
+    }
+
+    private LoadResult run() throws InterruptedException {
+        LoadOperation.Mix mix = new LoadOperation.Mix(settings.getMix());
+        for (LoadOperation operation : mix.getOperations()) {
+            recorders.put(operation, new Recorder(3));
+        }
+        double meanGapNanos = TimeUnit.SECONDS.toNanos(1) / (double) settings.getRate();
+        long start = System.nanoTime();
+        measureFrom = start + TimeUnit.SECONDS.toNanos(settings.getWarmupSeconds());
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(settings.getDurationSeconds());
+        double due = start;
+        while (due < end) {
+            long intendedStart = (long) due;
+            long wait = intendedStart - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            send(mix.next(), intendedStart);
+            due += -Math.log(1 - ThreadLocalRandom.current().nextDouble()) * meanGapNanos;
+        }
+        long drainUntil = System.nanoTime() + DRAIN_TIMEOUT_NANOS;
+        while (inFlight.get() > 0 && System.nanoTime() < drainUntil) {
+            Thread.sleep(10);
+        }
+        errors.addAndGet(inFlight.get());
+
+        Map<LoadOperation, Histogram> latencies = new EnumMap<>(LoadOperation.class);
+        recorders.forEach((operation, recorder) -> latencies.put(operation, recorder.getIntervalHistogram()));
+        double seconds = Math.max(lastCompletion.get() - measureFrom, 1) / (double) TimeUnit.SECONDS.toNanos(1);
+        LoadResult.summaries(latencies).forEach((operation, summary) ->
+                System.out.printf("%-16s %s%n", operation.getEndpoint(), summary));
+        System.out.printf("%d completed in %.1f s, %d rejected by the service, %d errors%n",
+                completed.get(), seconds, rejected.get(), errors.get());
+        return new LoadResult(settings, latencies, completed.get(), rejected.get(), errors.get(), seconds);
+    }
+
+    private void send(LoadOperation operation, long intendedStart) {
+        boolean measured = intendedStart >= measureFrom;
+        if (inFlight.incrementAndGet() > settings.getMaxInFlight()) {
+            inFlight.decrementAndGet();
+            if (measured) {
+                errors.incrementAndGet();
+            }
+            return;
+        }
+        client.sendAsync(request(operation), HttpResponse.BodyHandlers.ofString())
+                .whenComplete((response, failure) -> {
+                    long now = System.nanoTime();
+                    inFlight.decrementAndGet();
+                    if (!measured) {
+                        return;
+                    }
+                    if (failure != null || response.statusCode() != 200) {
+                        errors.incrementAndGet();
+                        return;
+                    }
+                    if (!response.body().contains("\"success\":true")) {
+                        rejected.incrementAndGet();
+                    }
+                    recorders.get(operation).recordValue(TimeUnit.NANOSECONDS.toMicros(now - intendedStart));
+                    completed.incrementAndGet();
+                    lastCompletion.accumulateAndGet(now, Math::max);
+                });
+    }
+
+    private HttpRequest request(LoadOperation operation) {
+        String accountId = accountIds[accounts.next()];
+        HttpRequest.Builder request = HttpRequest.newBuilder().timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json");
+        switch (operation) {
+            case GET_BALANCE:
+                return request.uri(URI.create(baseUrl + accountId + "/getBalance")).GET().build();
+            case TRANSFER_MONEY:
+                int recipient = accounts.next();
+                String recipientAccountId = accountIds[accountIds[recipient].equals(accountId)
+                        ? (recipient + 1) % accountIds.length : recipient];
+                return request.uri(URI.create(baseUrl + accountId + "/transferMoney/" + recipientAccountId))
+                        .POST(HttpRequest.BodyPublishers.ofString(AMOUNT)).build();
+            default:
+                return request.uri(URI.create(baseUrl + accountId + "/" + operation.getEndpoint()))
+                        .POST(HttpRequest.BodyPublishers.ofString(AMOUNT)).build();
+        }
+    }
+
+    private static boolean check(LoadSettings settings, LoadResult result) throws Exception {
+        if (result.getErrors() > 0) {
+            System.out.println("FAILED: " + result.getErrors() + " requests failed or timed out");
+            return false;
+        }
+        if (settings.isRecord()) {
+            result.write(settings.getBaseline());
+            System.out.println("Recorded the baseline " + settings.getBaseline());
+            return true;
+        }
+        if (!Files.exists(settings.getBaseline())) {
+            System.out.println("SKIPPED: no baseline at " + settings.getBaseline()
+                    + ", so latencies and throughput were not checked; record one with -Dloadtest.record=true");
+            return true;
+        }
+        List<String> regressions = result.regressionsAgainst(LoadResult.read(settings.getBaseline()),
+                settings.getTolerance());
+        regressions.forEach(regression -> System.out.println("REGRESSION: " + regression));
+        return regressions.isEmpty();
+    }
+}
@@ -0,0 +1,18 @@
+package com.seven.tech.accounts.benchmark;
+
+import org.springframework.boot.context.TypeExcludeFilter;
+import org.springframework.boot.test.context.TestComponent;
+import org.springframework.core.type.classreading.MetadataReader;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+
+/**
+ * Keeps the {@link TestComponent}s of the test tree, which shares the classpath of the load test, out of the
+ * component scan of the application, as the test context does for the tests themselves.
+ */
+final class TestComponentExcludeFilter extends TypeExcludeFilter {
+
+    @Override
+    public boolean match(MetadataReader metadataReader, MetadataReaderFactory metadataReaderFactory) {
+        return metadataReader.getAnnotationMetadata().isAnnotated(TestComponent.class.getName());
+    }
+}
@@ -0,0 +1,126 @@
+package com.seven.tech.accounts.async;
+
+import com.seven.tech.accounts.exception.AccountBusyException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs account operations on a small worker pool, one at a time per account.
+ * <p>
+ * Operations on the same account queue up in memory instead of each parking a thread on the account lock, so a
+ * hot account occupies at most one worker and the others stay free for unrelated accounts. A queue exists only
+ * while its account has operations pending, and holds at most {@code accounts.async.max-queued} of them; beyond that,
+ * and for an operation still queued when its request has timed out, the caller gets {@link AccountBusyException}
+ * without anything being changed. An operation that has started runs to its end even if the request times out
+ * meanwhile.
+ * <p>
+ * A transfer is queued under its sender only. Transfers into one hot recipient therefore still take a worker each and
+ * wait on the recipient's lock stripe, where the lock wait and admission limits of
+ * {@link com.seven.tech.accounts.lock.AccountLocks} bound them.
+ */
+@Component
+@Profile("async")
+public class AccountExecutor {
+    public static final int DEFAULT_MAX_QUEUED = 1000;
+
+    private final ExecutorService workers;
+    private final int maxQueued;
+    private final long requestTimeoutNanos;
+    private final ConcurrentHashMap<String, Queue<Runnable>> queues = new ConcurrentHashMap<>();
+
+    /**
+     * @param maxQueued      operations waiting per account, not counting the running one
+     * @param requestTimeout timeout of an async request, after which its queued operation is dropped
+     */
+    @Autowired
+    public AccountExecutor(@Value("${accounts.async.workers:16}") int workers,
+                           @Value("${accounts.async.max-queued:" + DEFAULT_MAX_QUEUED + "}") int maxQueued,
+                           @Value("${spring.mvc.async.request-timeout:30s}") Duration requestTimeout) {
+        if (maxQueued < 0) {
+            throw new IllegalArgumentException("accounts.async.max-queued must not be negative: " + maxQueued);
+        }
+        this.maxQueued = maxQueued;
+        this.requestTimeoutNanos = requestTimeout.toNanos();
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "account-worker-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        this.workers = Executors.newFixedThreadPool(workers, threadFactory);
+    }
+
+    public <T> CompletableFuture<T> submit(String accountId, Supplier<T> operation) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        long deadline = System.nanoTime() + requestTimeoutNanos;
+        Runnable task = () -> {
+            if (System.nanoTime() - deadline > 0) {
+                future.completeExceptionally(new AccountBusyException(accountId));
+                return;
+            }
+            try {
+                future.complete(operation.get());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        };
+        boolean[] idle = new boolean[1];
+        boolean[] full = new boolean[1];
+        queues.compute(accountId, (key, queue) -> {
+            if (queue == null) {
+                idle[0] = true;
+                return new ArrayDeque<>();
+            }
+            if (queue.size() >= maxQueued) {
+                full[0] = true;
+            } else {
+                queue.add(task);
+            }
+            return queue;
+        });
+        if (full[0]) {
+            future.completeExceptionally(new AccountBusyException(accountId));
+        } else if (idle[0]) {
+            workers.execute(() -> run(accountId, task));
+        }
+        return future;
+    }
+
+    /**
+     * Number of accounts with operations running or queued.
+     */
+    public int getBusyAccounts() {
+        return queues.size();
+    }
+
+    @PreDestroy
+    public void stop() {
+        workers.shutdown();
+    }
+
+    private void run(String accountId, Runnable task) {
+        task.run();
+        Runnable[] next = new Runnable[1];
+        queues.compute(accountId, (key, queue) -> {
+            next[0] = queue.poll();
+            return next[0] == null ? null : queue;
+        });
+        if (next[0] != null) {
+            workers.execute(() -> run(accountId, next[0]));
+        }
+    }
+}
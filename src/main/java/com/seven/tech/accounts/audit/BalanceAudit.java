@@ -0,0 +1,62 @@
+package com.seven.tech.accounts.audit;
+
+import com.seven.tech.accounts.service.AccountService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Checks that the balances add up to deposits minus withdrawals and that none is negative, on the schedule of
+ * {@code accounts.audit.cron} and on demand through {@link BalanceAuditEndpoint}. One audit runs at a time, on its
+ * own pool of {@code accounts.audit.parallelism} threads, all processors by default.
+ */
+@Component
+public class BalanceAudit {
+    private static final Logger log = LoggerFactory.getLogger(BalanceAudit.class);
+
+    private final AccountService accountService;
+    private final ForkJoinPool pool;
+    private volatile BalanceAuditReport lastReport;
+
+    public BalanceAudit(AccountService accountService, @Value("${accounts.audit.parallelism:0}") int parallelism) {
+        this.accountService = accountService;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    public synchronized BalanceAuditReport run() throws InterruptedException {
+        BalanceSheet sheet = new BalanceSheet(pool);
+        accountService.auditBalances(sheet);
+        BalanceAuditReport report = sheet.finish();
+        lastReport = report;
+        if (report.isBalanced()) {
+            log.info("Balance audit of {} accounts passed in {} ms", report.getAccounts(), report.getDurationMillis());
+        } else {
+            log.error("Balance audit failed: total {} + in transit {}, expected {}, {} negative balances, e.g. {}",
+                    report.getTotal(), report.getInTransit(), report.getExpectedTotal(),
+                    report.getNegativeAccounts(), report.getNegativeSamples());
+        }
+        return report;
+    }
+
+    @Scheduled(cron = "${accounts.audit.cron:-}")
+    public void runScheduled() throws InterruptedException {
+        run();
+    }
+
+    /**
+     * The report of the latest audit, or null before the first one.
+     */
+    public BalanceAuditReport getLastReport() {
+        return lastReport;
+    }
+
+    @PreDestroy
+    public void stop() {
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,30 @@
+package com.seven.tech.accounts.audit;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@code /actuator/balanceaudit}: GET returns the latest {@link BalanceAuditReport}, POST runs an audit and returns
+ * its report.
+ */
+@Component
+@Endpoint(id = "balanceaudit")
+public class BalanceAuditEndpoint {
+    private final BalanceAudit balanceAudit;
+
+    public BalanceAuditEndpoint(BalanceAudit balanceAudit) {
+        this.balanceAudit = balanceAudit;
+    }
+
+    @ReadOperation
+    public BalanceAuditReport lastReport() {
+        return balanceAudit.getLastReport();
+    }
+
+    @WriteOperation
+    public BalanceAuditReport audit() throws InterruptedException {
+        return balanceAudit.run();
+    }
+}
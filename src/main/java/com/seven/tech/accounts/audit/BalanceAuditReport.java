@@ -0,0 +1,83 @@
+package com.seven.tech.accounts.audit;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Totals of one balance audit, all of one point-in-time view of the accounts.
+ */
+public final class BalanceAuditReport {
+    private final Instant startedAt;
+    private final Duration duration;
+    private final long accounts;
+    private final BigDecimal total;
+    private final BigDecimal inTransit;
+    private final BigDecimal expectedTotal;
+    private final long negativeAccounts;
+    private final List<String> negativeSamples;
+
+    BalanceAuditReport(Instant startedAt, Duration duration, long accounts, BigDecimal total, BigDecimal inTransit,
+                       BigDecimal expectedTotal, long negativeAccounts, List<String> negativeSamples) {
+        this.startedAt = startedAt;
+        this.duration = duration;
+        this.accounts = accounts;
+        this.total = total;
+        this.inTransit = inTransit;
+        this.expectedTotal = expectedTotal;
+        this.negativeAccounts = negativeAccounts;
+        this.negativeSamples = Collections.unmodifiableList(negativeSamples);
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public long getDurationMillis() {
+        return duration.toMillis();
+    }
+
+    public long getAccounts() {
+        return accounts;
+    }
+
+    /**
+     * Sum of all balances.
+     */
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    public BigDecimal getInTransit() {
+        return inTransit;
+    }
+
+    /**
+     * Deposits minus withdrawals, or null where they are not recorded.
+     */
+    public BigDecimal getExpectedTotal() {
+        return expectedTotal;
+    }
+
+    public long getNegativeAccounts() {
+        return negativeAccounts;
+    }
+
+    /**
+     * Up to {@link BalanceSheet#MAX_NEGATIVE_SAMPLES} of the accounts with a negative balance.
+     */
+    public List<String> getNegativeSamples() {
+        return negativeSamples;
+    }
+
+    /**
+     * No negative balance, and the balances plus the money in transit add up to the expected total if there is
+     * one.
+     */
+    public boolean isBalanced() {
+        return negativeAccounts == 0
+                && (expectedTotal == null || total.add(inTransit).compareTo(expectedTotal) == 0);
+    }
+}
@@ -0,0 +1,200 @@
+package com.seven.tech.accounts.audit;
+
+import com.seven.tech.accounts.money.Money;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Sums balances read from one consistent view of the accounts into a {@link BalanceAuditReport}.
+ * <p>
+ * The reader hands balances over one by one from a single thread. They are collected in chunks of
+ * {@link #CHUNK_SIZE} and each full chunk is reduced on a {@link ForkJoinPool} while the reader goes on. At most
+ * {@code 2 * parallelism} chunks are in flight, so memory does not grow with the number of accounts. Totals are kept
+ * as 128-bit integers, which no sum of {@code long} balances can overflow.
+ */
+public final class BalanceSheet {
+    public static final int CHUNK_SIZE = 4096;
+    public static final int MAX_NEGATIVE_SAMPLES = 100;
+    private static final int LEAF_SIZE = 512;
+
+    private final ForkJoinPool pool;
+    private final int maxChunks;
+    private final Semaphore chunks;
+    private final Instant startedAt = Instant.now();
+    private final long start = System.nanoTime();
+    private final Totals totals = new Totals();
+    private final Totals inTransit = new Totals();
+    private final Totals expected = new Totals();
+    private final List<String> negativeSamples = new ArrayList<>();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    private String[] ids = new String[CHUNK_SIZE];
+    private long[] balances = new long[CHUNK_SIZE];
+    private int count;
+    private boolean expectedKnown;
+
+    public BalanceSheet(ForkJoinPool pool) {
+        this.pool = pool;
+        this.maxChunks = 2 * pool.getParallelism();
+        this.chunks = new Semaphore(maxChunks);
+    }
+
+    public void add(String accountId, long balance) {
+        ids[count] = accountId;
+        balances[count] = balance;
+        if (++count == CHUNK_SIZE) {
+            submit();
+        }
+    }
+
+    /**
+     * Money already taken from one account and not yet given to another, e.g. a transfer between partitions or
+     * shards caught half-way. It belongs to the total although no balance holds it.
+     */
+    public synchronized void addInTransit(long money) {
+        inTransit.add(money);
+    }
+
+    /**
+     * Deposits minus withdrawals, the total the balances have to add up to. Without any the report has no
+     * expectation to check.
+     */
+    public synchronized void addExpected(long money) {
+        expected.add(money);
+        expectedKnown = true;
+    }
+
+    /**
+     * Reduces what is left, waits for every chunk and reports.
+     */
+    public BalanceAuditReport finish() throws InterruptedException {
+        if (count > 0) {
+            submit();
+        }
+        chunks.acquire(maxChunks);
+        chunks.release(maxChunks);
+        Throwable e = failure.get();
+        if (e != null) {
+            throw new IllegalStateException("Balance audit failed", e);
+        }
+        synchronized (this) {
+            BigDecimal total = toMoney(totals);
+            BigDecimal transit = toMoney(inTransit);
+            BigDecimal expectedTotal = expectedKnown ? toMoney(expected) : null;
+            return new BalanceAuditReport(startedAt, Duration.ofNanos(System.nanoTime() - start), totals.accounts,
+                    total, transit, expectedTotal, totals.negatives, new ArrayList<>(negativeSamples));
+        }
+    }
+
+    private void submit() {
+        String[] chunkIds = ids;
+        long[] chunkBalances = balances;
+        int chunkCount = count;
+        try {
+            chunks.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Balance audit interrupted", e);
+        }
+        pool.execute(() -> {
+            try {
+                Totals reduced = new Reduction(chunkIds, chunkBalances, 0, chunkCount).invoke();
+                merge(reduced);
+            } catch (Throwable e) {
+                failure.compareAndSet(null, e);
+            } finally {
+                chunks.release();
+            }
+        });
+        ids = new String[CHUNK_SIZE];
+        balances = new long[CHUNK_SIZE];
+        count = 0;
+    }
+
+    private synchronized void merge(Totals reduced) {
+        totals.merge(reduced);
+    }
+
+    private synchronized void flagNegative(String accountId) {
+        if (negativeSamples.size() < MAX_NEGATIVE_SAMPLES) {
+            negativeSamples.add(accountId);
+        }
+    }
+
+    private static BigDecimal toMoney(Totals totals) {
+        BigInteger low = new BigInteger(Long.toUnsignedString(totals.low));
+        return new BigDecimal(BigInteger.valueOf(totals.high).shiftLeft(Long.SIZE).add(low), Money.SCALE);
+    }
+
+    /**
+     * Splits a chunk in halves down to {@link #LEAF_SIZE} balances and sums them.
+     */
+    private final class Reduction extends RecursiveTask<Totals> {
+        private final String[] ids;
+        private final long[] balances;
+        private final int from;
+        private final int to;
+
+        private Reduction(String[] ids, long[] balances, int from, int to) {
+            this.ids = ids;
+            this.balances = balances;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Totals compute() {
+            if (to - from <= LEAF_SIZE) {
+                Totals leaf = new Totals();
+                for (int i = from; i < to; i++) {
+                    leaf.add(balances[i]);
+                    if (balances[i] < 0) {
+                        leaf.negatives++;
+                        flagNegative(ids[i]);
+                    }
+                }
+                leaf.accounts = to - from;
+                return leaf;
+            }
+            int middle = (from + to) >>> 1;
+            Reduction left = new Reduction(ids, balances, from, middle);
+            left.fork();
+            Totals right = new Reduction(ids, balances, middle, to).compute();
+            right.merge(left.join());
+            return right;
+        }
+    }
+
+    /**
+     * A signed 128-bit sum as two {@code long} halves, and the counts that go with it.
+     */
+    private static final class Totals {
+        private long low;
+        private long high;
+        private long accounts;
+        private long negatives;
+
+        void add(long value) {
+            long sum = low + value;
+            high += (value >> 63) + (Long.compareUnsigned(sum, low) < 0 ? 1 : 0);
+            low = sum;
+        }
+
+        void merge(Totals other) {
+            long sum = low + other.low;
+            high += other.high + (Long.compareUnsigned(sum, low) < 0 ? 1 : 0);
+            low = sum;
+            accounts += other.accounts;
+            negatives += other.negatives;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.seven.tech.accounts.cache;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded in-process cache of committed account balances, evicting the least recently used account of a segment
+ * once the segment is full.
+ * <p>
+ * Every entry carries the row version it was read at and an older version never replaces a newer one. A balance
+ * loaded from the database is only stored if no write for an account of the same segment committed since
+ * {@link #stamp(String)} was taken, so a slow reader cannot put back a balance that a writer has just replaced or
+ * invalidated. A size of 0 disables the cache.
+ */
+@Component
+public class BalanceCache {
+    public static final int DEFAULT_SIZE = 10000;
+    /**
+     * Returned by {@link #get(String)} on a miss. Balances are never negative, so it cannot be a cached balance.
+     */
+    public static final long MISS = -1;
+    private static final int SEGMENTS = 16;
+
+    private final Segment[] segments;
+    private final int segmentMask;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    @Autowired
+    public BalanceCache(@Value("${accounts.balance-cache.size:" + DEFAULT_SIZE + "}") int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("accounts.balance-cache.size must not be negative: " + size);
+        }
+        int segmentCount = size == 0 ? 1 : Math.min(SEGMENTS, Integer.highestOneBit(size));
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(size / segmentCount + (i < size % segmentCount ? 1 : 0));
+        }
+        this.segmentMask = segmentCount - 1;
+    }
+
+    /**
+     * Returns the cached balance in minor units, or {@link #MISS}.
+     */
+    public long get(String accountId) {
+        Segment segment = segmentOf(accountId);
+        Entry entry;
+        synchronized (segment) {
+            entry = segment.get(accountId);
+        }
+        if (entry == null) {
+            misses.increment();
+            return MISS;
+        }
+        hits.increment();
+        return entry.balance;
+    }
+
+    /**
+     * Write stamp to take before loading an account from the database and to pass to
+     * {@link #putLoaded(String, long, long, long)}.
+     */
+    public long stamp(String accountId) {
+        Segment segment = segmentOf(accountId);
+        synchronized (segment) {
+            return segment.stamp;
+        }
+    }
+
+    /**
+     * Stores a balance read from the database unless a write committed since the stamp was taken.
+     */
+    public void putLoaded(String accountId, long balance, long version, long stamp) {
+        Segment segment = segmentOf(accountId);
+        synchronized (segment) {
+            if (segment.stamp == stamp) {
+                putIfNewer(segment, accountId, balance, version);
+            }
+        }
+    }
+
+    /**
+     * Stores a committed balance unless a newer version is cached already.
+     */
+    public void putCommitted(String accountId, long balance, long version) {
+        Segment segment = segmentOf(accountId);
+        synchronized (segment) {
+            segment.stamp++;
+            putIfNewer(segment, accountId, balance, version);
+        }
+    }
+
+    /**
+     * Drops the account after a write whose resulting balance is not known here.
+     */
+    public void invalidate(String accountId) {
+        Segment segment = segmentOf(accountId);
+        synchronized (segment) {
+            segment.stamp++;
+            segment.remove(accountId);
+        }
+    }
+
+    public int getSize() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Entries dropped because their segment was full. Invalidations are not counted.
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    private void putIfNewer(Segment segment, String accountId, long balance, long version) {
+        if (segment.capacity == 0) {
+            return;
+        }
+        Entry cached = segment.get(accountId);
+        if (cached == null || cached.version < version) {
+            segment.put(accountId, new Entry(balance, version));
+        }
+    }
+
+    private Segment segmentOf(String accountId) {
+        int h = accountId.hashCode();
+        return segments[(h ^ (h >>> 16)) & segmentMask];
+    }
+
+    private static final class Entry {
+        private final long balance;
+        private final long version;
+
+        private Entry(long balance, long version) {
+            this.balance = balance;
+            this.version = version;
+        }
+    }
+
+    private final class Segment extends LinkedHashMap<String, Entry> {
+        private final int capacity;
+        private long stamp;
+
+        private Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -12,11 +12,21 @@ import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExcep
 
 @ControllerAdvice
 public class BaseAccountExceptionHandler extends ResponseEntityExceptionHandler {
+    static final String RETRY_AFTER_SECONDS = "1";
 
+    /**
+     * Retryable errors also carry a {@code Retry-After} header, so clients and proxies can back off without knowing
+     * the error codes.
+     */
     @ExceptionHandler(value = BaseAccountException.class)
     public ResponseEntity<Object> handleConflict(RuntimeException ex, WebRequest request) {
-        BaseResult result = new BaseResult<>(((BaseAccountException) ex).getCode(), ex.getMessage());
-        return handleExceptionInternal(ex, result, new HttpHeaders(), HttpStatus.OK, request);
+        BaseAccountException exception = (BaseAccountException) ex;
+        BaseResult result = new BaseResult<>(exception.getCode(), ex.getMessage());
+        HttpHeaders headers = new HttpHeaders();
+        if (exception.isRetryable()) {
+            headers.set(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+        }
+        return handleExceptionInternal(ex, result, headers, HttpStatus.OK, request);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,64 @@
+package com.seven.tech.accounts.configuration;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.seven.tech.accounts.BaseResult;
+import com.seven.tech.accounts.json.BaseResultCodec;
+import com.seven.tech.accounts.json.MoneyJson;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+
+/**
+ * Reads {@link MoneyJson} requests and writes {@link BaseResult} responses with the {@link BaseResultCodec}.
+ * Spring Boot puts converter beans ahead of its defaults, so every other type still goes to Jackson.
+ */
+@Component
+public class BaseResultHttpMessageConverter extends AbstractHttpMessageConverter<Object> {
+    private transient BaseResultCodec codec;
+
+    public BaseResultHttpMessageConverter() {
+        super(MediaType.APPLICATION_JSON, new MediaType("application", "*+json"));
+    }
+
+    @Autowired
+    public void setObjectMapper(ObjectMapper objectMapper) {
+        this.codec = new BaseResultCodec(objectMapper);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return clazz == BaseResult.class || clazz == MoneyJson.class;
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return clazz == MoneyJson.class && canRead(mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        return clazz == BaseResult.class && canWrite(mediaType);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        try {
+            return codec.readMoney(StreamUtils.copyToByteArray(inputMessage.getBody()));
+        } catch (JsonProcessingException e) {
+            throw new HttpMessageNotReadableException("JSON parse error: " + e.getOriginalMessage(), e, inputMessage);
+        }
+    }
+
+    @Override
+    protected void writeInternal(Object result, HttpOutputMessage outputMessage) throws IOException {
+        codec.write((BaseResult<?>) result, outputMessage.getBody());
+    }
+}
@@ -1,21 +1,32 @@
 package com.seven.tech.accounts.entity;
 
+import com.seven.tech.accounts.id.AccountIdType;
+import org.hibernate.annotations.Type;
+
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.Id;
 import javax.persistence.Table;
+import javax.persistence.Version;
 import java.io.Serializable;
-import java.math.BigDecimal;
 
 @Entity
 @Table(name = "account")
 public class AccountEntity implements Serializable {
 
 	@Id
+	@Type(type = AccountIdType.NAME)
 	private String id;
 
-	@Column(name = "balance")
-	private BigDecimal balance;
+	/**
+	 * Minor units, see {@link com.seven.tech.accounts.money.Money}.
+	 */
+	@Column(name = "balance", nullable = false)
+	private long balance;
+
+	@Version
+	@Column(name = "version")
+	private Long version;
 
 	public String getId() {
 		return id;
@@ -25,11 +36,19 @@ public class AccountEntity implements Serializable {
 		this.id = id;
 	}
 
-	public BigDecimal getBalance() {
+	public long getBalance() {
 		return balance;
 	}
 
-	public void setBalance(BigDecimal balance) {
+	public void setBalance(long balance) {
 		this.balance = balance;
 	}
+
+	public Long getVersion() {
+		return version;
+	}
+
+	public void setVersion(Long version) {
+		this.version = version;
+	}
 }
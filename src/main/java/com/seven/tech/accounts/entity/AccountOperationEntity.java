@@ -0,0 +1,108 @@
+package com.seven.tech.accounts.entity;
+
+import com.seven.tech.accounts.id.AccountIdType;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.annotations.Type;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * One balance change of one account, never updated once written. A transfer is two rows, one per side.
+ * <p>
+ * Ids come from a sequence handed out in blocks, so inserting rows costs no extra round trips and the inserts of
+ * a transaction go to the database as one batch; the id order is the order of the history. With sharding every
+ * shard has its own sequence and its own block.
+ */
+@Entity
+@Table(name = "account_operation",
+		indexes = @Index(name = "account_operation_account_idx", columnList = "account_id, id"))
+public class AccountOperationEntity implements Serializable {
+
+	@Id
+	@GeneratedValue(generator = "account_operation_seq")
+	@GenericGenerator(name = "account_operation_seq", strategy = "com.seven.tech.accounts.shard.ShardSequenceGenerator",
+			parameters = {
+					@Parameter(name = "sequence_name", value = "account_operation_seq"),
+					@Parameter(name = "increment_size", value = "1000")
+			})
+	private Long id;
+
+	@Column(name = "account_id", nullable = false, updatable = false)
+	@Type(type = AccountIdType.NAME)
+	private String accountId;
+
+	@Column(name = "counterparty_id", updatable = false)
+	@Type(type = AccountIdType.NAME)
+	private String counterpartyId;
+
+	/**
+	 * Minor units, negative for a debit.
+	 */
+	@Column(name = "amount", nullable = false, updatable = false)
+	private long amount;
+
+	/**
+	 * Balance of the account right after this operation, minor units.
+	 */
+	@Column(name = "balance", nullable = false, updatable = false)
+	private long balance;
+
+	@Column(name = "created_at", nullable = false, updatable = false)
+	private Instant createdAt;
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public String getAccountId() {
+		return accountId;
+	}
+
+	public void setAccountId(String accountId) {
+		this.accountId = accountId;
+	}
+
+	public String getCounterpartyId() {
+		return counterpartyId;
+	}
+
+	public void setCounterpartyId(String counterpartyId) {
+		this.counterpartyId = counterpartyId;
+	}
+
+	public long getAmount() {
+		return amount;
+	}
+
+	public void setAmount(long amount) {
+		this.amount = amount;
+	}
+
+	public long getBalance() {
+		return balance;
+	}
+
+	public void setBalance(long balance) {
+		this.balance = balance;
+	}
+
+	public Instant getCreatedAt() {
+		return createdAt;
+	}
+
+	public void setCreatedAt(Instant createdAt) {
+		this.createdAt = createdAt;
+	}
+}
@@ -0,0 +1,41 @@
+package com.seven.tech.accounts.entity;
+
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.io.Serializable;
+
+/**
+ * A balance change not yet published, written in the transaction of the change. Only the id of its
+ * {@link AccountOperationEntity} is kept, which carries the rest; the row is deleted once published. Rows are only
+ * ever inserted and deleted, so saving one never reads it first.
+ */
+@Entity
+@Table(name = "balance_event_outbox")
+public class BalanceEventEntity implements Persistable<Long>, Serializable {
+
+	@Id
+	@Column(name = "operation_id")
+	private Long operationId;
+
+	public Long getOperationId() {
+		return operationId;
+	}
+
+	public void setOperationId(Long operationId) {
+		this.operationId = operationId;
+	}
+
+	@Override
+	public Long getId() {
+		return operationId;
+	}
+
+	@Override
+	public boolean isNew() {
+		return true;
+	}
+}
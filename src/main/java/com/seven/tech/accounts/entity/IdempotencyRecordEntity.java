@@ -0,0 +1,67 @@
+package com.seven.tech.accounts.entity;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Lob;
+import javax.persistence.Table;
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * Response of a request sent with an idempotency key, kept so that a retry after a restart or on another instance
+ * gets the same response. Written only when {@code accounts.idempotency.persistent} is on.
+ */
+@Entity
+@Table(name = "idempotency_record")
+public class IdempotencyRecordEntity implements Serializable {
+
+	@Id
+	@Column(name = "idempotency_key")
+	private String key;
+
+	@Column(name = "fingerprint", nullable = false)
+	private String fingerprint;
+
+	/**
+	 * The {@link com.seven.tech.accounts.BaseResult} as JSON.
+	 */
+	@Lob
+	@Column(name = "response", nullable = false)
+	private String response;
+
+	@Column(name = "created_at", nullable = false)
+	private Instant createdAt;
+
+	public String getKey() {
+		return key;
+	}
+
+	public void setKey(String key) {
+		this.key = key;
+	}
+
+	public String getFingerprint() {
+		return fingerprint;
+	}
+
+	public void setFingerprint(String fingerprint) {
+		this.fingerprint = fingerprint;
+	}
+
+	public String getResponse() {
+		return response;
+	}
+
+	public void setResponse(String response) {
+		this.response = response;
+	}
+
+	public Instant getCreatedAt() {
+		return createdAt;
+	}
+
+	public void setCreatedAt(Instant createdAt) {
+		this.createdAt = createdAt;
+	}
+}
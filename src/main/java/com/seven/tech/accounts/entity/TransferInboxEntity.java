@@ -0,0 +1,40 @@
+package com.seven.tech.accounts.entity;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * Marks a cross-shard transfer as credited on the recipient's shard, in the transaction of the credit, so a
+ * redelivered transfer is not credited twice.
+ */
+@Entity
+@Table(name = "transfer_inbox")
+public class TransferInboxEntity implements Serializable {
+
+	@Id
+	@Column(name = "transfer_id")
+	private String transferId;
+
+	@Column(name = "created_at", nullable = false)
+	private Instant createdAt;
+
+	public String getTransferId() {
+		return transferId;
+	}
+
+	public void setTransferId(String transferId) {
+		this.transferId = transferId;
+	}
+
+	public Instant getCreatedAt() {
+		return createdAt;
+	}
+
+	public void setCreatedAt(Instant createdAt) {
+		this.createdAt = createdAt;
+	}
+}
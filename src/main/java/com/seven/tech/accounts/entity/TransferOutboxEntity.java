@@ -0,0 +1,100 @@
+package com.seven.tech.accounts.entity;
+
+import com.seven.tech.accounts.id.AccountIdType;
+import org.hibernate.annotations.Type;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * A transfer to an account on another shard, written on the payer's shard in the transaction that debits the payer.
+ * It stays {@link Status#PENDING} until the recipient's shard has credited the money or the payer has been refunded,
+ * so a transfer interrupted in between is finished later instead of lost.
+ */
+@Entity
+@Table(name = "transfer_outbox", indexes = @Index(name = "transfer_outbox_status_idx", columnList = "status, created_at"))
+public class TransferOutboxEntity implements Serializable {
+
+	public enum Status {
+		PENDING, DONE, COMPENSATED
+	}
+
+	@Id
+	private String id;
+
+	@Column(name = "account_id", nullable = false)
+	@Type(type = AccountIdType.NAME)
+	private String accountId;
+
+	@Column(name = "recipient_account_id", nullable = false)
+	@Type(type = AccountIdType.NAME)
+	private String recipientAccountId;
+
+	/**
+	 * Minor units.
+	 */
+	@Column(name = "money", nullable = false)
+	private long money;
+
+	@Enumerated(EnumType.STRING)
+	@Column(name = "status", nullable = false)
+	private Status status;
+
+	@Column(name = "created_at", nullable = false)
+	private Instant createdAt;
+
+	public String getId() {
+		return id;
+	}
+
+	public void setId(String id) {
+		this.id = id;
+	}
+
+	public String getAccountId() {
+		return accountId;
+	}
+
+	public void setAccountId(String accountId) {
+		this.accountId = accountId;
+	}
+
+	public String getRecipientAccountId() {
+		return recipientAccountId;
+	}
+
+	public void setRecipientAccountId(String recipientAccountId) {
+		this.recipientAccountId = recipientAccountId;
+	}
+
+	public long getMoney() {
+		return money;
+	}
+
+	public void setMoney(long money) {
+		this.money = money;
+	}
+
+	public Status getStatus() {
+		return status;
+	}
+
+	public void setStatus(Status status) {
+		this.status = status;
+	}
+
+	public Instant getCreatedAt() {
+		return createdAt;
+	}
+
+	public void setCreatedAt(Instant createdAt) {
+		this.createdAt = createdAt;
+	}
+}
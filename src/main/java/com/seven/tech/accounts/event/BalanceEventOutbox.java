@@ -0,0 +1,42 @@
+package com.seven.tech.accounts.event;
+
+import com.seven.tech.accounts.entity.AccountOperationEntity;
+import com.seven.tech.accounts.entity.BalanceEventEntity;
+import com.seven.tech.accounts.repository.BalanceEventRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Queues balance changes for {@link BalanceEventRelay} in the database, in the transaction of the change, so an
+ * event exists exactly when its change is committed. Enabled by {@code accounts.events.enabled}.
+ */
+@Component
+public class BalanceEventOutbox {
+    public static final BalanceEventOutbox DISABLED = new BalanceEventOutbox(null, false);
+
+    private final BalanceEventRepository repository;
+    private final boolean enabled;
+
+    public BalanceEventOutbox(BalanceEventRepository repository,
+                              @Value("${accounts.events.enabled:false}") boolean enabled) {
+        this.repository = repository;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Has to come after the operation is saved, which gives it its id. The insert is flushed at commit, batched with
+     * the other inserts of the transaction, so the caller pays no round trip for it.
+     */
+    public void append(AccountOperationEntity operation) {
+        if (!enabled) {
+            return;
+        }
+        BalanceEventEntity event = new BalanceEventEntity();
+        event.setOperationId(operation.getId());
+        repository.save(event);
+    }
+}
@@ -0,0 +1,15 @@
+package com.seven.tech.accounts.event;
+
+import com.seven.tech.accounts.entity.AccountOperationEntity;
+
+import java.util.List;
+
+/**
+ * Hands balance changes over to downstream systems. Called by {@link BalanceEventRelay} from one thread, oldest
+ * change first. Returning means the whole batch is delivered; throwing means it is sent again later, possibly with
+ * part of it delivered already.
+ */
+public interface BalanceEventPublisher {
+
+    void publish(List<AccountOperationEntity> operations);
+}
@@ -0,0 +1,84 @@
+package com.seven.tech.accounts.event;
+
+import com.seven.tech.accounts.entity.AccountOperationEntity;
+import com.seven.tech.accounts.repository.BalanceEventRepository;
+import com.seven.tech.accounts.shard.ShardRouter;
+import com.seven.tech.accounts.shard.ShardRoutingDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Moves the events of {@link BalanceEventOutbox} to the {@link BalanceEventPublisher}, every
+ * {@code accounts.events.relay-interval-millis}, in batches of {@code accounts.events.batch-size}, and then deletes
+ * them with one statement per batch. Each shard has its own outbox.
+ * <p>
+ * Events are deleted only once the publisher has returned, so a failure or a crash in between publishes them again:
+ * every event is delivered at least once. Several instances relaying one database deliver some events twice as well;
+ * within an instance one relay runs at a time, so a scheduled run and an on-demand one never publish the same batch.
+ */
+@Component
+public class BalanceEventRelay {
+    private static final Logger log = LoggerFactory.getLogger(BalanceEventRelay.class);
+
+    private final BalanceEventOutbox outbox;
+    private final BalanceEventRepository repository;
+    private final BalanceEventPublisher publisher;
+    private final ShardRouter shardRouter;
+    private final int batchSize;
+
+    public BalanceEventRelay(BalanceEventOutbox outbox, BalanceEventRepository repository,
+                             BalanceEventPublisher publisher, ObjectProvider<ShardRouter> shardRouter,
+                             @Value("${accounts.events.batch-size:500}") int batchSize) {
+        this.outbox = outbox;
+        this.repository = repository;
+        this.publisher = publisher;
+        this.shardRouter = shardRouter.getIfAvailable();
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${accounts.events.relay-interval-millis:100}")
+    public synchronized void relay() {
+        if (!outbox.isEnabled()) {
+            return;
+        }
+        if (shardRouter == null) {
+            relayShard(0);
+            return;
+        }
+        for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+            int current = shard;
+            ShardRoutingDataSource.run(shard, () -> relayShard(current));
+        }
+    }
+
+    /**
+     * Drains the outbox of the current shard. A failure leaves the rest of it to the next run.
+     */
+    private void relayShard(int shard) {
+        try {
+            List<AccountOperationEntity> batch;
+            do {
+                batch = repository.findPending(PageRequest.of(0, batchSize));
+                if (batch.isEmpty()) {
+                    return;
+                }
+                publisher.publish(batch);
+                List<Long> operationIds = new ArrayList<>(batch.size());
+                for (AccountOperationEntity operation : batch) {
+                    operationIds.add(operation.getId());
+                }
+                repository.deletePublished(operationIds);
+            } while (batch.size() == batchSize);
+        } catch (RuntimeException e) {
+            log.warn("Balance events of shard {} not published, retrying", shard, e);
+        }
+    }
+}
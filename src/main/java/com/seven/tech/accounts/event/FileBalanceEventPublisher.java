@@ -0,0 +1,52 @@
+package com.seven.tech.accounts.event;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.seven.tech.accounts.entity.AccountOperationEntity;
+import com.seven.tech.accounts.json.BalanceEventJson;
+import com.seven.tech.accounts.money.Money;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends every event as a line of {@link BalanceEventJson} to {@code accounts.events.file}. A stand-in for a real
+ * broker, picked by {@code accounts.events.publisher=file}, the default; another value leaves the publisher to a
+ * bean of the application.
+ */
+@Component
+@ConditionalOnProperty(name = "accounts.events.publisher", havingValue = "file", matchIfMissing = true)
+public class FileBalanceEventPublisher implements BalanceEventPublisher {
+    private final Path file;
+    private final ObjectMapper objectMapper;
+
+    public FileBalanceEventPublisher(@Value("${accounts.events.file:balance-events.jsonl}") String file,
+                                     ObjectMapper objectMapper) {
+        this.file = Paths.get(file);
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void publish(List<AccountOperationEntity> operations) {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            for (AccountOperationEntity operation : operations) {
+                writer.write(objectMapper.writeValueAsString(new BalanceEventJson(operation.getId(),
+                        operation.getAccountId(), operation.getCounterpartyId(), Money.toMoney(operation.getAmount()),
+                        Money.toMoney(operation.getBalance()), operation.getCreatedAt())));
+                writer.write('\n');
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
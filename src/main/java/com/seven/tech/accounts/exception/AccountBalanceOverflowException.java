@@ -0,0 +1,9 @@
+package com.seven.tech.accounts.exception;
+
+public class AccountBalanceOverflowException extends BaseAccountException {
+    public static final String CODE = "ACCOUNT_BALANCE_OVERFLOW";
+
+    public AccountBalanceOverflowException(String accountId) {
+        super(CODE, accountId);
+    }
+}
@@ -0,0 +1,18 @@
+package com.seven.tech.accounts.exception;
+
+/**
+ * Too many calls are already waiting for the account, or this one waited for its lock longer than allowed. Nothing
+ * was changed; safe to retry.
+ */
+public class AccountBusyException extends BaseAccountException {
+    public static final String CODE = "ACCOUNT_BUSY";
+
+    public AccountBusyException(String accountId) {
+        super(CODE, accountId);
+    }
+
+    @Override
+    public boolean isRetryable() {
+        return true;
+    }
+}
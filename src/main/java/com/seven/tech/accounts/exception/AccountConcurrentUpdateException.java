@@ -0,0 +1,17 @@
+package com.seven.tech.accounts.exception;
+
+/**
+ * The account kept changing under an optimistic update until the retries ran out. Safe to retry.
+ */
+public class AccountConcurrentUpdateException extends BaseAccountException {
+    public static final String CODE = "ACCOUNT_CONCURRENT_UPDATE";
+
+    public AccountConcurrentUpdateException(String accountId) {
+        super(CODE, accountId);
+    }
+
+    @Override
+    public boolean isRetryable() {
+        return true;
+    }
+}
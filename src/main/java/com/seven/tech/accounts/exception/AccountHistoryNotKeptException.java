@@ -0,0 +1,12 @@
+package com.seven.tech.accounts.exception;
+
+/**
+ * The service keeps balances only, so there is no history to return, whether the account exists or not.
+ */
+public class AccountHistoryNotKeptException extends BaseAccountException {
+    public static final String CODE = "ACCOUNT_HISTORY_NOT_KEPT";
+
+    public AccountHistoryNotKeptException(String accountId) {
+        super(CODE, "Account history is not kept: " + accountId);
+    }
+}
@@ -0,0 +1,13 @@
+package com.seven.tech.accounts.exception;
+
+/**
+ * The service cannot roll the transfers of the batch back together, so it applies none of them. The same batch
+ * sent per item is accepted.
+ */
+public class AtomicTransferBatchNotSupportedException extends BaseAccountException {
+    public static final String CODE = "ATOMIC_TRANSFER_BATCH_NOT_SUPPORTED";
+
+    public AtomicTransferBatchNotSupportedException(String message) {
+        super(CODE, message);
+    }
+}
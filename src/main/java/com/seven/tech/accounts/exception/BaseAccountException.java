@@ -11,4 +11,11 @@ public abstract class BaseAccountException extends RuntimeException {
     public String getCode() {
         return code;
     }
+
+    /**
+     * Whether the failure was transient and the same request may succeed later, as opposed to a final answer.
+     */
+    public boolean isRetryable() {
+        return false;
+    }
 }
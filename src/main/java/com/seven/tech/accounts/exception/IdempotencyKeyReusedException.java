@@ -0,0 +1,12 @@
+package com.seven.tech.accounts.exception;
+
+/**
+ * The idempotency key was already used for a different request.
+ */
+public class IdempotencyKeyReusedException extends BaseAccountException {
+    public static final String CODE = "IDEMPOTENCY_KEY_REUSED";
+
+    public IdempotencyKeyReusedException(String idempotencyKey) {
+        super(CODE, idempotencyKey);
+    }
+}
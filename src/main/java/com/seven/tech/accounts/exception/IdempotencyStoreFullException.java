@@ -0,0 +1,18 @@
+package com.seven.tech.accounts.exception;
+
+/**
+ * Every idempotency key that could make room for this one belongs to a request still running. Nothing was changed;
+ * safe to retry.
+ */
+public class IdempotencyStoreFullException extends BaseAccountException {
+    public static final String CODE = "IDEMPOTENCY_STORE_FULL";
+
+    public IdempotencyStoreFullException(String idempotencyKey) {
+        super(CODE, idempotencyKey);
+    }
+
+    @Override
+    public boolean isRetryable() {
+        return true;
+    }
+}
@@ -0,0 +1,12 @@
+package com.seven.tech.accounts.exception;
+
+/**
+ * The number of accounts to create at once is not positive or above the limit.
+ */
+public class InvalidAccountCountException extends BaseAccountException {
+    public static final String CODE = "INVALID_ACCOUNT_COUNT";
+
+    public InvalidAccountCountException(long count, int max) {
+        super(CODE, "Account count must be between 1 and " + max + ": " + count);
+    }
+}
@@ -0,0 +1,12 @@
+package com.seven.tech.accounts.exception;
+
+/**
+ * The amount has more fraction digits than the currency scale or does not fit into a balance.
+ */
+public class InvalidMoneyException extends BaseAccountException {
+    public static final String CODE = "INVALID_MONEY";
+
+    public InvalidMoneyException(String message) {
+        super(CODE, message);
+    }
+}
@@ -0,0 +1,24 @@
+package com.seven.tech.accounts.exception;
+
+import com.seven.tech.accounts.BaseResult;
+
+import java.util.List;
+
+/**
+ * Thrown out of the transaction of an atomic transfer batch to roll it back. Carries the per-item results:
+ * the failed transfer keeps its own error and every other transfer gets {@link #CODE}.
+ */
+public class TransferBatchRolledBackException extends BaseAccountException {
+    public static final String CODE = "TRANSFER_BATCH_ROLLED_BACK";
+
+    private final transient List<BaseResult<Boolean>> results;
+
+    public TransferBatchRolledBackException(List<BaseResult<Boolean>> results) {
+        super(CODE, "Transfer batch rolled back");
+        this.results = results;
+    }
+
+    public List<BaseResult<Boolean>> getResults() {
+        return results;
+    }
+}
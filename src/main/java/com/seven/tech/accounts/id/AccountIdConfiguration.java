@@ -0,0 +1,33 @@
+package com.seven.tech.accounts.id;
+
+import org.hibernate.boot.spi.MetadataBuilderContributor;
+import org.hibernate.type.StringType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Selects the {@link AccountIdFormat} and registers the matching {@value AccountIdType#NAME} type, which the
+ * account id columns of the entities are mapped with.
+ */
+@Configuration
+public class AccountIdConfiguration {
+
+    @Bean
+    public AccountIdFormat accountIdFormat(@Value("${accounts.ids.format:STRING}") AccountIdFormat format) {
+        return format;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer accountIdTypeCustomizer(AccountIdFormat format) {
+        return properties -> properties.put("hibernate.metadata_builder_contributor",
+                (MetadataBuilderContributor) metadataBuilder -> {
+                    if (format == AccountIdFormat.BINARY) {
+                        metadataBuilder.applyBasicType(AccountIdType.INSTANCE, AccountIdType.NAME);
+                    } else {
+                        metadataBuilder.applyBasicType(StringType.INSTANCE, AccountIdType.NAME);
+                    }
+                });
+    }
+}
@@ -0,0 +1,21 @@
+package com.seven.tech.accounts.id;
+
+/**
+ * How account ids are generated and stored, set by {@code accounts.ids.format}. Either way they are UUID strings
+ * everywhere above the persistence layer.
+ */
+public enum AccountIdFormat {
+    /**
+     * Random (version 4) UUIDs stored as their 36-character text.
+     */
+    STRING,
+    /**
+     * Time-ordered (version 7) UUIDs stored as 16 bytes. New ids sort after older ones, so inserts append to the
+     * right edge of the indexes instead of landing on random pages.
+     */
+    BINARY;
+
+    public String newId() {
+        return this == BINARY ? AccountIds.timeOrderedId() : AccountIds.randomId();
+    }
+}
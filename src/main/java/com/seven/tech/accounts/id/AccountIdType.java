@@ -0,0 +1,77 @@
+package com.seven.tech.accounts.id;
+
+import org.hibernate.type.AbstractSingleColumnStandardBasicType;
+import org.hibernate.type.descriptor.WrapperOptions;
+import org.hibernate.type.descriptor.java.AbstractTypeDescriptor;
+import org.hibernate.type.descriptor.sql.VarbinaryTypeDescriptor;
+
+/**
+ * Maps a {@code String} account id to a binary column holding its 16 bytes, see {@link AccountIds}. Registered as
+ * {@value #NAME} in the {@link AccountIdFormat#BINARY} format; in the {@link AccountIdFormat#STRING} format that name
+ * is the plain string type.
+ * <p>
+ * A string that is not a canonical UUID is bound as an empty value, which matches no stored id, so looking it up
+ * finds nothing just as it would in a text column.
+ */
+public class AccountIdType extends AbstractSingleColumnStandardBasicType<String> {
+    public static final String NAME = "account-id";
+    public static final AccountIdType INSTANCE = new AccountIdType();
+    private static final byte[] NO_ID = new byte[0];
+
+    public AccountIdType() {
+        super(VarbinaryTypeDescriptor.INSTANCE, JavaDescriptor.INSTANCE);
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    private static final class JavaDescriptor extends AbstractTypeDescriptor<String> {
+        private static final JavaDescriptor INSTANCE = new JavaDescriptor();
+
+        private JavaDescriptor() {
+            super(String.class);
+        }
+
+        @Override
+        public String toString(String value) {
+            return value;
+        }
+
+        @Override
+        public String fromString(String string) {
+            return string;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <X> X unwrap(String value, Class<X> type, WrapperOptions options) {
+            if (value == null) {
+                return null;
+            }
+            if (byte[].class.isAssignableFrom(type)) {
+                byte[] bytes = AccountIds.toBytes(value);
+                return (X) (bytes != null ? bytes : NO_ID);
+            }
+            if (String.class.isAssignableFrom(type)) {
+                return (X) value;
+            }
+            throw unknownUnwrap(type);
+        }
+
+        @Override
+        public <X> String wrap(X value, WrapperOptions options) {
+            if (value == null) {
+                return null;
+            }
+            if (value instanceof byte[]) {
+                return AccountIds.fromBytes((byte[]) value);
+            }
+            if (value instanceof String) {
+                return (String) value;
+            }
+            throw unknownWrap(value.getClass());
+        }
+    }
+}
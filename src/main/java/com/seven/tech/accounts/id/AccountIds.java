@@ -0,0 +1,132 @@
+package com.seven.tech.accounts.id;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Account id generation and the conversion between the text form of an id and its 16-byte form.
+ * <p>
+ * Only the canonical text produced here, lower-case hex with dashes, converts to bytes, so an id has one text form
+ * and the text of an id read back from the database equals the text it was stored with.
+ */
+public final class AccountIds {
+    public static final int BYTES = 16;
+    private static final int LENGTH = 36;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final byte[] HEX_VALUES = new byte['f' + 1];
+    private static final int[] HIGH_POSITIONS = {0, 1, 2, 3, 4, 5, 6, 7, 9, 10, 11, 12, 14, 15, 16, 17};
+    private static final int[] LOW_POSITIONS = {19, 20, 21, 22, 24, 25, 26, 27, 28, 29, 30, 31, 32, 33, 34, 35};
+
+    static {
+        Arrays.fill(HEX_VALUES, (byte) -1);
+        for (int i = 0; i < HEX.length; i++) {
+            HEX_VALUES[HEX[i]] = (byte) i;
+        }
+    }
+
+    private AccountIds() {
+    }
+
+    public static String randomId() {
+        return UUID.randomUUID().toString();
+    }
+
+    /**
+     * A version 7 UUID: 48 bits of Unix milliseconds, then the version and 74 random bits of a version 4 UUID.
+     */
+    public static String timeOrderedId() {
+        UUID random = UUID.randomUUID();
+        long mostSigBits = System.currentTimeMillis() << 16 | 0x7000 | random.getMostSignificantBits() & 0xFFF;
+        return new UUID(mostSigBits, random.getLeastSignificantBits()).toString();
+    }
+
+    /**
+     * The 16 bytes of a canonical UUID string, or {@code null} for any other string.
+     */
+    public static byte[] toBytes(String accountId) {
+        if (accountId.length() != LENGTH) {
+            return null;
+        }
+        byte[] bytes = new byte[BYTES];
+        int b = 0;
+        for (int i = 0; i < LENGTH; i += 2) {
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (accountId.charAt(i) != '-') {
+                    return null;
+                }
+                i++;
+            }
+            int high = hexDigit(accountId.charAt(i));
+            int low = hexDigit(accountId.charAt(i + 1));
+            if (high < 0 || low < 0) {
+                return null;
+            }
+            bytes[b++] = (byte) (high << 4 | low);
+        }
+        return bytes;
+    }
+
+    /**
+     * The first 8 bytes of a canonical UUID string as a {@code long}, or 0 for any other string. Together with
+     * {@link #lowBits(String)} and {@link #fromBits(long, long)} an id is held in two longs without allocating.
+     */
+    public static long highBits(String accountId) {
+        return bits(accountId, HIGH_POSITIONS);
+    }
+
+    /**
+     * The last 8 bytes of a canonical UUID string as a {@code long}, or 0 for any other string.
+     */
+    public static long lowBits(String accountId) {
+        return bits(accountId, LOW_POSITIONS);
+    }
+
+    public static String fromBits(long highBits, long lowBits) {
+        return new UUID(highBits, lowBits).toString();
+    }
+
+    public static String fromBytes(byte[] bytes) {
+        if (bytes.length != BYTES) {
+            throw new IllegalArgumentException("An account id has " + BYTES + " bytes, not " + bytes.length);
+        }
+        char[] chars = new char[LENGTH];
+        int c = 0;
+        for (int b = 0; b < BYTES; b++) {
+            if (b == 4 || b == 6 || b == 8 || b == 10) {
+                chars[c++] = '-';
+            }
+            chars[c++] = HEX[bytes[b] >> 4 & 0xF];
+            chars[c++] = HEX[bytes[b] & 0xF];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Reads the hex digits at the given positions; a dash or anything else out of place makes a digit negative.
+     */
+    private static long bits(String accountId, int[] positions) {
+        if (accountId.length() != LENGTH || accountId.charAt(8) != '-' || accountId.charAt(13) != '-'
+                || accountId.charAt(18) != '-' || accountId.charAt(23) != '-') {
+            return 0;
+        }
+        long bits = 0;
+        int invalid = 0;
+        for (int position : positions) {
+            char c = accountId.charAt(position);
+            int digit = c < HEX_VALUES.length ? HEX_VALUES[c] : -1;
+            invalid |= digit;
+            bits = bits << 4 | digit & 0xF;
+        }
+        return invalid < 0 ? 0 : bits;
+    }
+
+    private static int hexDigit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,301 @@
+package com.seven.tech.accounts.idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.seven.tech.accounts.BaseResult;
+import com.seven.tech.accounts.entity.IdempotencyRecordEntity;
+import com.seven.tech.accounts.exception.BaseAccountException;
+import com.seven.tech.accounts.exception.IdempotencyKeyReusedException;
+import com.seven.tech.accounts.exception.IdempotencyStoreFullException;
+import com.seven.tech.accounts.repository.IdempotencyRecordRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Responses of requests sent with an {@value #HEADER} header, so a retried request gets the first response back
+ * instead of being applied again. A retry is answered from memory, without account locks or a transaction; one that
+ * arrives while the first request is still running waits for its response.
+ * <p>
+ * Entries are kept in insertion order per segment and dropped once older than the TTL or when their segment is
+ * full, so lookups are O(1) and memory is bounded by the size, however many keys arrive. A full segment drops its
+ * oldest answered entry, never one whose request is still running; with only running ones left, a new key is
+ * refused with the retryable {@link IdempotencyStoreFullException}. Business errors are
+ * responses like any other, unless they are retryable; any other failure forgets the key, so the request can be
+ * retried. With
+ * {@code accounts.idempotency.persistent} the responses are also written to a table, which is read on a local miss
+ * and purged of expired rows in the background.
+ */
+@Component
+public class IdempotencyStore {
+    public static final String HEADER = "Idempotency-Key";
+    public static final int DEFAULT_SIZE = 100000;
+    private static final int SEGMENTS = 16;
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyStore.class);
+
+    private final Segment[] segments;
+    private final int segmentMask;
+    private final long ttlSeconds;
+    private final boolean persistent;
+    private transient IdempotencyRecordRepository recordRepository;
+    private transient ObjectMapper objectMapper;
+
+    private final LongAdder replays = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    @Autowired
+    public IdempotencyStore(@Value("${accounts.idempotency.size:" + DEFAULT_SIZE + "}") int size,
+                            @Value("${accounts.idempotency.ttl-seconds:3600}") long ttlSeconds,
+                            @Value("${accounts.idempotency.persistent:false}") boolean persistent) {
+        if (size < 1) {
+            throw new IllegalArgumentException("accounts.idempotency.size must be positive: " + size);
+        }
+        int segmentCount = Math.min(SEGMENTS, Integer.highestOneBit(size));
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(size / segmentCount + (i < size % segmentCount ? 1 : 0));
+        }
+        this.segmentMask = segmentCount - 1;
+        this.ttlSeconds = ttlSeconds;
+        this.persistent = persistent;
+    }
+
+    @Autowired
+    public void setRecordRepository(IdempotencyRecordRepository recordRepository) {
+        this.recordRepository = recordRepository;
+    }
+
+    @Autowired
+    public void setObjectMapper(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Runs the operation once per key and returns its response to every request with that key. Without a key the
+     * operation simply runs. The fingerprint identifies the request, and is only computed for a request with a key;
+     * reusing a key for another request fails with {@link IdempotencyKeyReusedException}.
+     */
+    public <T> BaseResult<T> execute(String key, Supplier<String> fingerprint, Supplier<BaseResult<T>> operation) {
+        if (key == null) {
+            return operation.get();
+        }
+        try {
+            return submit(key, fingerprint, () -> CompletableFuture.completedFuture(operation.get())).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Same for an operation that completes asynchronously.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<BaseResult<T>> submit(String key, Supplier<String> fingerprint,
+                                                       Supplier<CompletableFuture<BaseResult<T>>> operation) {
+        if (key == null) {
+            return operation.get();
+        }
+        String requestFingerprint = fingerprint.get();
+        long now = System.nanoTime();
+        Entry entry = new Entry(requestFingerprint, now + TimeUnit.SECONDS.toNanos(ttlSeconds));
+        Entry existing = putIfAbsent(key, entry, now);
+        if (existing != null) {
+            checkFingerprint(key, existing.fingerprint, requestFingerprint);
+            replays.increment();
+            return (CompletableFuture<BaseResult<T>>) (CompletableFuture<?>) existing.response;
+        }
+        BaseResult<?> persisted = persistent ? load(key, requestFingerprint) : null;
+        if (persisted != null) {
+            replays.increment();
+            entry.response.complete(persisted);
+            return (CompletableFuture<BaseResult<T>>) (CompletableFuture<?>) entry.response;
+        }
+
+        CompletableFuture<BaseResult<T>> result;
+        try {
+            result = operation.get();
+        } catch (RuntimeException e) {
+            result = new CompletableFuture<>();
+            result.completeExceptionally(e);
+        }
+        result.whenComplete((response, failure) -> {
+            Throwable cause = failure instanceof CompletionException ? failure.getCause() : failure;
+            if (cause == null) {
+                complete(key, entry, response);
+            } else if (cause instanceof BaseAccountException && !((BaseAccountException) cause).isRetryable()) {
+                BaseAccountException e = (BaseAccountException) cause;
+                complete(key, entry, new BaseResult<>(e.getCode(), e.getMessage()));
+            } else {
+                remove(key, entry);
+                entry.response.completeExceptionally(cause);
+            }
+        });
+        return (CompletableFuture<BaseResult<T>>) (CompletableFuture<?>) entry.response;
+    }
+
+    /**
+     * Requests answered with a stored response instead of being applied.
+     */
+    public long getReplays() {
+        return replays.sum();
+    }
+
+    /**
+     * Entries dropped because their segment was full. Expired entries are not counted.
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public int getSize() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    @Scheduled(fixedDelayString = "${accounts.idempotency.purge-interval-millis:60000}")
+    public void purgeExpiredRecords() {
+        if (persistent) {
+            recordRepository.deleteCreatedBefore(Instant.now().minusSeconds(ttlSeconds));
+        }
+    }
+
+    private Entry putIfAbsent(String key, Entry entry, long now) {
+        Segment segment = segmentOf(key);
+        synchronized (segment) {
+            expire(segment, now);
+            Entry existing = segment.get(key);
+            if (existing != null) {
+                return existing;
+            }
+            if (segment.size() >= segment.capacity && !evictAnswered(segment)) {
+                throw new IdempotencyStoreFullException(key);
+            }
+            segment.put(key, entry);
+            return null;
+        }
+    }
+
+    /**
+     * Drops the oldest entry whose request has been answered. Running requests are few, so the scan is short.
+     */
+    private boolean evictAnswered(Segment segment) {
+        Iterator<Entry> entries = segment.values().iterator();
+        while (entries.hasNext()) {
+            if (entries.next().response.isDone()) {
+                entries.remove();
+                evictions.increment();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Entries are in insertion order, so the expired ones are at the head.
+     */
+    private void expire(Segment segment, long now) {
+        Iterator<Entry> entries = segment.values().iterator();
+        while (entries.hasNext() && entries.next().expiresAt - now <= 0) {
+            entries.remove();
+        }
+    }
+
+    private void remove(String key, Entry entry) {
+        Segment segment = segmentOf(key);
+        synchronized (segment) {
+            segment.remove(key, entry);
+        }
+    }
+
+    private void complete(String key, Entry entry, BaseResult<?> response) {
+        if (persistent) {
+            store(key, entry.fingerprint, response);
+        }
+        entry.response.complete(response);
+    }
+
+    private BaseResult<?> load(String key, String fingerprint) {
+        IdempotencyRecordEntity record = recordRepository.findById(key).orElse(null);
+        if (record == null || record.getCreatedAt().isBefore(Instant.now().minusSeconds(ttlSeconds))) {
+            return null;
+        }
+        checkFingerprint(key, record.getFingerprint(), fingerprint);
+        try {
+            JsonNode response = objectMapper.readTree(record.getResponse());
+            if (!response.path("success").asBoolean()) {
+                return new BaseResult<>(response.path("errorCode").asText(), response.path("errorMessage").asText());
+            }
+            return new BaseResult<>(objectMapper.treeToValue(response.get("result"), Object.class));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable response stored for idempotency key " + key, e);
+        }
+    }
+
+    /**
+     * The response is already correct in memory, so a failed write only loses the protection across instances.
+     */
+    private void store(String key, String fingerprint, BaseResult<?> response) {
+        try {
+            IdempotencyRecordEntity record = new IdempotencyRecordEntity();
+            record.setKey(key);
+            record.setFingerprint(fingerprint);
+            record.setResponse(objectMapper.writeValueAsString(response));
+            record.setCreatedAt(Instant.now());
+            recordRepository.save(record);
+        } catch (JsonProcessingException | DataAccessException e) {
+            log.warn("Could not persist the response for idempotency key {}", key, e);
+        }
+    }
+
+    private static void checkFingerprint(String key, String stored, String fingerprint) {
+        if (!stored.equals(fingerprint)) {
+            throw new IdempotencyKeyReusedException(key);
+        }
+    }
+
+    private Segment segmentOf(String key) {
+        int h = key.hashCode();
+        return segments[(h ^ (h >>> 16)) & segmentMask];
+    }
+
+    private static final class Entry {
+        private final String fingerprint;
+        private final long expiresAt;
+        private final CompletableFuture<BaseResult<?>> response = new CompletableFuture<>();
+
+        private Entry(String fingerprint, long expiresAt) {
+            this.fingerprint = fingerprint;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static final class Segment extends LinkedHashMap<String, Entry> {
+        private final int capacity;
+
+        private Segment(int capacity) {
+            this.capacity = capacity;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.seven.tech.accounts.json;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * A published balance change: the operation as the history shows it, and its account. The id is the operation
+ * id, so a consumer can drop an event delivered twice.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class BalanceEventJson extends OperationJson {
+
+    private String accountId;
+
+    public BalanceEventJson(Long id, String accountId, String counterpartyId, BigDecimal amount, BigDecimal balance,
+                            Instant createdAt) {
+        super(id, counterpartyId, amount, balance, createdAt);
+        this.accountId = accountId;
+    }
+
+    public BalanceEventJson() {}
+
+    public String getAccountId() {
+        return accountId;
+    }
+
+    public void setAccountId(String accountId) {
+        this.accountId = accountId;
+    }
+}
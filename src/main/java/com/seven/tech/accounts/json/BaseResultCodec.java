@@ -0,0 +1,230 @@
+package com.seven.tech.accounts.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.seven.tech.accounts.BaseResult;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Hand-written JSON for the bodies of the balance endpoints: a {@link BaseResult} of a {@link MoneyJson}, a
+ * {@link Boolean} or a {@link String}, and a {@link MoneyJson} request. Responses are assembled from pre-encoded
+ * fragments and written to the stream in one call, and the usual {@code {"money": number}} request is parsed without a
+ * {@link com.fasterxml.jackson.core.JsonParser}. The output is byte for byte what the {@link ObjectMapper} writes;
+ * any other body, result or input shape goes through the {@link ObjectMapper}.
+ */
+public final class BaseResultCodec {
+    private static final byte[] SUCCESS = ascii("{\"success\":true,\"result\":");
+    private static final byte[] FAILURE = ascii("{\"success\":false,\"result\":");
+    private static final byte[] ERROR_CODE = ascii(",\"errorCode\":");
+    private static final byte[] ERROR_MESSAGE = ascii(",\"errorMessage\":");
+    private static final byte[] NO_ERROR = ascii(",\"errorCode\":null,\"errorMessage\":null}");
+    private static final byte[] MONEY = ascii("{\"money\":");
+    private static final byte[] NULL = ascii("null");
+    private static final byte[] TRUE = ascii("true");
+    private static final byte[] FALSE = ascii("false");
+    private static final byte[] MONEY_FIELD = ascii("\"money\"");
+
+    private final ObjectWriter writer;
+    private final ObjectReader moneyReader;
+
+    public BaseResultCodec(ObjectMapper objectMapper) {
+        this.writer = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.moneyReader = objectMapper.readerFor(MoneyJson.class);
+    }
+
+    public void write(BaseResult<?> result, OutputStream out) throws IOException {
+        Object value = result.getResult();
+        if (!(value == null || value instanceof Boolean || value instanceof String
+                || value instanceof MoneyJson && ((MoneyJson) value).getMoney() != null)) {
+            writer.writeValue(out, result);
+            return;
+        }
+        Buffer buffer = new Buffer();
+        buffer.append(result.isSuccess() ? SUCCESS : FAILURE);
+        if (value == null) {
+            buffer.append(NULL);
+        } else if (value instanceof Boolean) {
+            buffer.append((Boolean) value ? TRUE : FALSE);
+        } else if (value instanceof String) {
+            buffer.appendString((String) value);
+        } else {
+            buffer.append(MONEY);
+            buffer.appendAscii(((MoneyJson) value).getMoney().toString());
+            buffer.append((byte) '}');
+        }
+        if (result.getErrorCode() == null && result.getErrorMessage() == null) {
+            buffer.append(NO_ERROR);
+        } else {
+            buffer.append(ERROR_CODE);
+            buffer.appendString(result.getErrorCode());
+            buffer.append(ERROR_MESSAGE);
+            buffer.appendString(result.getErrorMessage());
+            buffer.append((byte) '}');
+        }
+        out.write(buffer.bytes, 0, buffer.size);
+    }
+
+    public MoneyJson readMoney(byte[] body) throws IOException {
+        BigDecimal money = parseMoney(body);
+        return money != null ? new MoneyJson(money) : moneyReader.readValue(body);
+    }
+
+    /**
+     * The number of a {@code {"money": number}} body, whitespace allowed, or null for any other body. Numbers are
+     * checked against the JSON grammar, since {@link BigDecimal} would also take forms such as {@code 01} or
+     * {@code +1} that the {@link ObjectMapper} rejects.
+     */
+    private static BigDecimal parseMoney(byte[] body) {
+        int i = skipWhitespace(body, 0);
+        if (i == body.length || body[i] != '{') {
+            return null;
+        }
+        i = skipWhitespace(body, i + 1);
+        if (body.length - i < MONEY_FIELD.length) {
+            return null;
+        }
+        for (byte b : MONEY_FIELD) {
+            if (body[i++] != b) {
+                return null;
+            }
+        }
+        i = skipWhitespace(body, i);
+        if (i == body.length || body[i] != ':') {
+            return null;
+        }
+        int start = skipWhitespace(body, i + 1);
+        int end = scanNumber(body, start);
+        if (end < 0) {
+            return null;
+        }
+        i = skipWhitespace(body, end);
+        if (i == body.length || body[i] != '}' || skipWhitespace(body, i + 1) != body.length) {
+            return null;
+        }
+        char[] digits = new char[end - start];
+        for (int j = 0; j < digits.length; j++) {
+            digits[j] = (char) body[start + j];
+        }
+        return new BigDecimal(digits);
+    }
+
+    /**
+     * The end of the JSON number starting at {@code i}, or -1 if there is none.
+     */
+    private static int scanNumber(byte[] body, int i) {
+        if (i < body.length && body[i] == '-') {
+            i++;
+        }
+        if (i < body.length && body[i] == '0') {
+            i++;
+        } else {
+            int digits = skipDigits(body, i);
+            if (digits == i) {
+                return -1;
+            }
+            i = digits;
+        }
+        if (i < body.length && body[i] == '.') {
+            int digits = skipDigits(body, i + 1);
+            if (digits == i + 1) {
+                return -1;
+            }
+            i = digits;
+        }
+        if (i < body.length && (body[i] == 'e' || body[i] == 'E')) {
+            i++;
+            if (i < body.length && (body[i] == '+' || body[i] == '-')) {
+                i++;
+            }
+            int digits = skipDigits(body, i);
+            if (digits == i) {
+                return -1;
+            }
+            i = digits;
+        }
+        return i;
+    }
+
+    private static int skipDigits(byte[] body, int i) {
+        while (i < body.length && body[i] >= '0' && body[i] <= '9') {
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipWhitespace(byte[] body, int i) {
+        while (i < body.length && (body[i] == ' ' || body[i] == '\n' || body[i] == '\r' || body[i] == '\t')) {
+            i++;
+        }
+        return i;
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * The whole body, so it reaches the stream in one write. Numbers are {@link BigDecimal#toString()}, as the
+     * {@link ObjectMapper} writes them, and strings that need no escaping are copied as they are.
+     */
+    private static final class Buffer {
+        private byte[] bytes = new byte[128];
+        private int size;
+
+        private void append(byte b) {
+            ensure(1);
+            bytes[size++] = b;
+        }
+
+        private void append(byte[] fragment) {
+            ensure(fragment.length);
+            System.arraycopy(fragment, 0, bytes, size, fragment.length);
+            size += fragment.length;
+        }
+
+        private void appendAscii(String text) {
+            ensure(text.length());
+            for (int i = 0; i < text.length(); i++) {
+                bytes[size++] = (byte) text.charAt(i);
+            }
+        }
+
+        private void appendString(String text) {
+            if (text == null) {
+                append(NULL);
+                return;
+            }
+            append((byte) '"');
+            if (isPlain(text)) {
+                appendAscii(text);
+            } else {
+                append(JsonStringEncoder.getInstance().quoteAsUTF8(text));
+            }
+            append((byte) '"');
+        }
+
+        private void ensure(int length) {
+            if (size + length > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + length));
+            }
+        }
+
+        private static boolean isPlain(String text) {
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c < ' ' || c > '~' || c == '"' || c == '\\') {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.seven.tech.accounts.json;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Transfers applied in one transaction. With {@code atomic} set, one failed transfer rolls back the whole batch;
+ * otherwise every transfer succeeds or fails on its own. A batch without transfers is empty.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class TransferBatchJson implements Serializable {
+
+    private boolean atomic;
+    private List<TransferJson> transfers;
+
+    public TransferBatchJson(boolean atomic, List<TransferJson> transfers) {
+        this.atomic = atomic;
+        this.transfers = transfers;
+    }
+
+    public TransferBatchJson() {}
+
+    public boolean isAtomic() {
+        return atomic;
+    }
+
+    public void setAtomic(boolean atomic) {
+        this.atomic = atomic;
+    }
+
+    public List<TransferJson> getTransfers() {
+        return transfers == null ? Collections.emptyList() : transfers;
+    }
+
+    public void setTransfers(List<TransferJson> transfers) {
+        this.transfers = transfers;
+    }
+}
@@ -0,0 +1,48 @@
+package com.seven.tech.accounts.json;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class TransferJson implements Serializable {
+
+    private String accountId;
+    private String recipientAccountId;
+    private BigDecimal money;
+
+    public TransferJson(String accountId, String recipientAccountId, BigDecimal money) {
+        this.accountId = accountId;
+        this.recipientAccountId = recipientAccountId;
+        this.money = money;
+    }
+
+    public TransferJson() {}
+
+    public String getAccountId() {
+        return accountId;
+    }
+
+    public void setAccountId(String accountId) {
+        this.accountId = accountId;
+    }
+
+    public String getRecipientAccountId() {
+        return recipientAccountId;
+    }
+
+    public void setRecipientAccountId(String recipientAccountId) {
+        this.recipientAccountId = recipientAccountId;
+    }
+
+    public BigDecimal getMoney() {
+        return money;
+    }
+
+    public void setMoney(BigDecimal money) {
+        this.money = money;
+    }
+}
@@ -0,0 +1,29 @@
+package com.seven.tech.accounts.ledger;
+
+/**
+ * Where the {@link LedgerEngine} keeps its balances, set by {@code accounts.ledger.balance-storage}.
+ */
+public enum BalanceStorage {
+    /**
+     * A {@link java.util.concurrent.ConcurrentHashMap} of id strings to boxed balances: about 200 heap bytes and five
+     * objects per account for the collector to trace.
+     */
+    HEAP {
+        @Override
+        public BalanceStore newStore(int expectedAccounts) {
+            return new HeapBalanceStore(expectedAccounts);
+        }
+    },
+    /**
+     * An open-addressing table in direct memory: 24 bytes per slot, nothing per account on the heap. Takes canonical
+     * UUID ids only, which is what the ledger creates.
+     */
+    OFF_HEAP {
+        @Override
+        public BalanceStore newStore(int expectedAccounts) {
+            return new OffHeapBalanceStore(expectedAccounts);
+        }
+    };
+
+    public abstract BalanceStore newStore(int expectedAccounts);
+}
@@ -0,0 +1,39 @@
+package com.seven.tech.accounts.ledger;
+
+import java.util.function.ObjLongConsumer;
+
+/**
+ * The balances of one {@link LedgerPartition}, in minor units by account id. Balances are changed by one thread at
+ * a time, the partition thread or the start-up replay; any thread may read them.
+ */
+public interface BalanceStore {
+    /**
+     * Returned by {@link #get(String)} for an unknown account. Every balance change is checked for overflow, so no
+     * balance reaches it.
+     */
+    long MISSING = Long.MIN_VALUE;
+
+    /**
+     * Adds the account with a zero balance. Returns false if it already exists.
+     */
+    boolean create(String accountId);
+
+    boolean contains(String accountId);
+
+    long get(String accountId);
+
+    /**
+     * Sets the balance, adding the account if needed.
+     */
+    void put(String accountId, long balance);
+
+    /**
+     * Adds the delta to the balance, adding the account if needed, and returns the new balance. No checks: the
+     * callers have checked the delta or apply deltas that were checked when they were journaled.
+     */
+    long add(String accountId, long delta);
+
+    int size();
+
+    void forEach(ObjLongConsumer<String> action);
+}
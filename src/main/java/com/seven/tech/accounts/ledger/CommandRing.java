@@ -0,0 +1,113 @@
+package com.seven.tech.accounts.ledger;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded multi-producer, single-consumer ring of preallocated {@link LedgerCommand} slots.
+ * <p>
+ * Producers claim a sequence, fill the slot and publish it; the consumer walks published sequences in order and
+ * hands slots back only after {@link #release(long)}, so a slot stays intact until its caller has been answered.
+ */
+final class CommandRing {
+    private static final int SPINS_BEFORE_PARK = 100;
+    private static final long PARK_NANOS = 50_000;
+
+    private final LedgerCommand[] slots;
+    private final AtomicLongArray published;
+    private final int mask;
+
+    private final AtomicLong claimed = new AtomicLong(-1);
+    private volatile long released = -1;
+
+    private volatile Thread consumer;
+    private volatile boolean consumerWaiting;
+
+    CommandRing(int size) {
+        if (size <= 0 || Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("Ring size must be a power of two: " + size);
+        }
+        slots = new LedgerCommand[size];
+        published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            slots[i] = new LedgerCommand();
+            published.set(i, -1);
+        }
+        mask = size - 1;
+    }
+
+    LedgerCommand claim() {
+        long sequence = claimed.incrementAndGet();
+        int spins = 0;
+        while (sequence - slots.length > released) {
+            if (++spins < SPINS_BEFORE_PARK) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+        LedgerCommand command = slots[index(sequence)];
+        command.sequence = sequence;
+        return command;
+    }
+
+    void publish(LedgerCommand command) {
+        published.set(index(command.sequence), command.sequence);
+        if (consumerWaiting) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    /**
+     * Returns the published command with the given sequence or {@code null} if it is not published yet.
+     */
+    LedgerCommand get(long sequence) {
+        int index = index(sequence);
+        return published.get(index) == sequence ? slots[index] : null;
+    }
+
+    /**
+     * Hands every slot up to and including {@code sequence} back to the producers.
+     */
+    void release(long sequence) {
+        released = sequence;
+    }
+
+    long releasedSequence() {
+        return released;
+    }
+
+    boolean isEmpty() {
+        return claimed.get() == released;
+    }
+
+    void attachConsumer(Thread thread) {
+        consumer = thread;
+    }
+
+    /**
+     * Parks the consumer until {@code sequence} is published or a producer wakes it up.
+     */
+    void awaitPublished(long sequence) {
+        for (int spins = 0; spins < SPINS_BEFORE_PARK; spins++) {
+            if (published.get(index(sequence)) == sequence) {
+                return;
+            }
+            Thread.onSpinWait();
+        }
+        consumerWaiting = true;
+        if (published.get(index(sequence)) != sequence) {
+            LockSupport.parkNanos(this, PARK_NANOS);
+        }
+        consumerWaiting = false;
+    }
+
+    void wakeUp() {
+        LockSupport.unpark(consumer);
+    }
+
+    private int index(long sequence) {
+        return (int) sequence & mask;
+    }
+}
@@ -0,0 +1,49 @@
+package com.seven.tech.accounts.ledger;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ObjLongConsumer;
+
+final class HeapBalanceStore implements BalanceStore {
+    private final ConcurrentHashMap<String, long[]> balances;
+
+    HeapBalanceStore(int expectedAccounts) {
+        this.balances = new ConcurrentHashMap<>(expectedAccounts);
+    }
+
+    @Override
+    public boolean create(String accountId) {
+        return balances.putIfAbsent(accountId, new long[1]) == null;
+    }
+
+    @Override
+    public boolean contains(String accountId) {
+        return balances.containsKey(accountId);
+    }
+
+    @Override
+    public long get(String accountId) {
+        long[] balance = balances.get(accountId);
+        return balance != null ? balance[0] : MISSING;
+    }
+
+    @Override
+    public void put(String accountId, long balance) {
+        balances.put(accountId, new long[]{balance});
+    }
+
+    @Override
+    public long add(String accountId, long delta) {
+        long[] balance = balances.computeIfAbsent(accountId, x -> new long[1]);
+        return balance[0] += delta;
+    }
+
+    @Override
+    public int size() {
+        return balances.size();
+    }
+
+    @Override
+    public void forEach(ObjLongConsumer<String> action) {
+        balances.forEach((accountId, balance) -> action.accept(accountId, balance[0]));
+    }
+}
@@ -0,0 +1,120 @@
+package com.seven.tech.accounts.ledger;
+
+import com.seven.tech.accounts.BaseResult;
+import com.seven.tech.accounts.audit.BalanceSheet;
+import com.seven.tech.accounts.entity.AccountEntity;
+import com.seven.tech.accounts.entity.AccountOperationEntity;
+import com.seven.tech.accounts.exception.AccountHistoryNotKeptException;
+import com.seven.tech.accounts.exception.AtomicTransferBatchNotSupportedException;
+import com.seven.tech.accounts.exception.BaseAccountException;
+import com.seven.tech.accounts.json.TransferJson;
+import com.seven.tech.accounts.money.Money;
+import com.seven.tech.accounts.service.AccountService;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * {@link AccountService} backed by the in-memory {@link LedgerEngine} instead of JPA. Enabled by the
+ * {@code ledger} profile.
+ */
+@Service
+@Primary
+@Profile("ledger")
+public class LedgerAccountService extends AccountService {
+    private final LedgerEngine ledgerEngine;
+
+    public LedgerAccountService(LedgerEngine ledgerEngine) {
+        this.ledgerEngine = ledgerEngine;
+    }
+
+    @Override
+    public String createAccount() {
+        String accountId = newAccountId();
+        ledgerEngine.createAccount(accountId);
+        return accountId;
+    }
+
+    /**
+     * The ledger has no inserts to batch, so the accounts are created one by one.
+     */
+    @Override
+    protected void insertAccounts(List<AccountEntity> accounts) {
+        for (AccountEntity account : accounts) {
+            ledgerEngine.createAccount(account.getId());
+        }
+    }
+
+    @Override
+    public long getBalance(String accountId) {
+        return ledgerEngine.getBalance(accountId);
+    }
+
+    /**
+     * The ledger keeps balances only; its journal is replayed, not queried.
+     */
+    @Override
+    public void checkHistory(String accountId) {
+        throw new AccountHistoryNotKeptException(accountId);
+    }
+
+    @Override
+    public Long readHistory(String accountId, long before, long limit, Consumer<AccountOperationEntity> consumer) {
+        throw new AccountHistoryNotKeptException(accountId);
+    }
+
+    /**
+     * Reads a fresh snapshot instead of the database, see {@link LedgerEngine#audit(BalanceSheet)}.
+     */
+    @Override
+    public void auditBalances(BalanceSheet sheet) {
+        try {
+            ledgerEngine.audit(sheet);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public Boolean transferMoney(String accountId, String recipientAccountId, long money) {
+        ledgerEngine.transferMoney(accountId, recipientAccountId, money);
+        return true;
+    }
+
+    /**
+     * Only per-item batches: a transfer between partitions is not undone once the recipient's partition has been
+     * credited, so the ledger cannot roll a batch back.
+     */
+    @Override
+    public List<BaseResult<Boolean>> transferMoneyBatch(List<TransferJson> transfers, boolean atomic) {
+        if (atomic) {
+            throw new AtomicTransferBatchNotSupportedException("Atomic transfer batches are not supported by the ledger");
+        }
+        List<BaseResult<Boolean>> results = new ArrayList<>(transfers.size());
+        for (TransferJson transfer : transfers) {
+            try {
+                results.add(new BaseResult<>(transferMoney(transfer.getAccountId(), transfer.getRecipientAccountId(),
+                        Money.toMinorUnits(transfer.getMoney()))));
+            } catch (BaseAccountException e) {
+                results.add(new BaseResult<>(e.getCode(), e.getMessage()));
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public long reduceBalance(String accountId, long money) {
+        return ledgerEngine.reduceBalance(accountId, money);
+    }
+
+    @Override
+    public long increaseBalance(String accountId, long money) {
+        return ledgerEngine.increaseBalance(accountId, money);
+    }
+}
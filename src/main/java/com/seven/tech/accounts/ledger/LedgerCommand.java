@@ -0,0 +1,41 @@
+package com.seven.tech.accounts.ledger;
+
+/**
+ * Reusable ring slot. Filled by a producer, executed by the partition thread, answered through its {@link LedgerReply}.
+ */
+final class LedgerCommand {
+    static final int CREATE = 1;
+    static final int READ = 2;
+    static final int DEPOSIT = 3;
+    static final int WITHDRAW = 4;
+    static final int TRANSFER = 5;
+
+    long sequence;
+
+    int type;
+    String accountId;
+    String otherAccountId;
+    long amount;
+    LedgerReply reply;
+
+    int status;
+    long result;
+
+    void set(int type, String accountId, String otherAccountId, long amount, LedgerReply reply) {
+        this.type = type;
+        this.accountId = accountId;
+        this.otherAccountId = otherAccountId;
+        this.amount = amount;
+        this.reply = reply;
+        this.status = LedgerReply.OK;
+        this.result = 0;
+    }
+
+    void answer() {
+        LedgerReply reply = this.reply;
+        this.reply = null;
+        this.accountId = null;
+        this.otherAccountId = null;
+        reply.complete(status, result);
+    }
+}
@@ -0,0 +1,464 @@
+package com.seven.tech.accounts.ledger;
+
+import com.seven.tech.accounts.exception.AccountBalanceOverflowException;
+import com.seven.tech.accounts.exception.AccountEntityNotFoundException;
+import com.seven.tech.accounts.exception.AccountNotEnoughMoneyException;
+import com.seven.tech.accounts.audit.BalanceSheet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+/**
+ * In-memory ledger: balances in minor units, partitioned by account id over single-writer threads, each fed by its
+ * own {@link CommandRing} and persisted by its own {@link LedgerJournal}. Callers block until their command is
+ * applied and journaled.
+ * <p>
+ * A {@link LedgerSnapshot} is taken whenever a journal grows past {@code accounts.ledger.snapshot-journal-bytes}:
+ * the journals are rotated at the cut and the rotated ones are deleted once the snapshot is on disk. On start-up the
+ * latest complete snapshot is loaded, one thread per part, and only the journals written after it are replayed.
+ * <p>
+ * The balances of each partition live in a {@link BalanceStore} chosen by {@code accounts.ledger.balance-storage},
+ * sized up front for {@code accounts.ledger.expected-accounts} so that loading does not rehash.
+ */
+@Component
+@Profile("ledger")
+public class LedgerEngine {
+    public static final long DEFAULT_SNAPSHOT_JOURNAL_BYTES = 256L << 20;
+    public static final int DEFAULT_EXPECTED_ACCOUNTS = 1 << 16;
+    private static final String JOURNAL_PREFIX = "partition-";
+    private static final String JOURNAL_SUFFIX = ".journal";
+    private static final Pattern JOURNAL = Pattern.compile("partition-(\\d+)(?:\\.(\\d+))?\\.journal");
+    private static final Pattern SNAPSHOT = Pattern.compile("snapshot-(\\d+)(?:-\\d+\\.part|\\.manifest)(\\.tmp)?");
+    private static final Logger log = LoggerFactory.getLogger(LedgerEngine.class);
+
+    private final Path journalDir;
+    private final boolean fsync;
+    private final LedgerPartition[] partitions;
+    private final Thread[] threads;
+    private final ExecutorService snapshotWriter;
+    private final AtomicInteger audits = new AtomicInteger();
+    private volatile boolean running;
+    private long generation;
+    private CompletableFuture<Long> lastSnapshot = CompletableFuture.completedFuture(0L);
+
+    public LedgerEngine(String journalDir, int partitionCount, int ringSize, boolean fsync) {
+        this(journalDir, partitionCount, ringSize, fsync, DEFAULT_SNAPSHOT_JOURNAL_BYTES);
+    }
+
+    public LedgerEngine(String journalDir, int partitionCount, int ringSize, boolean fsync,
+                        long snapshotJournalBytes) {
+        this(journalDir, partitionCount, ringSize, fsync, snapshotJournalBytes, BalanceStorage.HEAP,
+                DEFAULT_EXPECTED_ACCOUNTS);
+    }
+
+    @Autowired
+    public LedgerEngine(@Value("${accounts.ledger.journal-dir:ledger}") String journalDir,
+                        @Value("${accounts.ledger.partitions:4}") int partitionCount,
+                        @Value("${accounts.ledger.ring-size:16384}") int ringSize,
+                        @Value("${accounts.ledger.fsync:true}") boolean fsync,
+                        @Value("${accounts.ledger.snapshot-journal-bytes:" + DEFAULT_SNAPSHOT_JOURNAL_BYTES + "}")
+                                long snapshotJournalBytes,
+                        @Value("${accounts.ledger.balance-storage:HEAP}") BalanceStorage balanceStorage,
+                        @Value("${accounts.ledger.expected-accounts:" + DEFAULT_EXPECTED_ACCOUNTS + "}")
+                                int expectedAccounts) {
+        this.journalDir = Paths.get(journalDir);
+        this.fsync = fsync;
+        this.partitions = new LedgerPartition[partitionCount];
+        this.threads = new Thread[partitionCount];
+        for (int i = 0; i < partitionCount; i++) {
+            partitions[i] = new LedgerPartition(i, this, ringSize, snapshotJournalBytes,
+                    balanceStorage.newStore(expectedAccounts / partitionCount));
+        }
+        this.snapshotWriter = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ledger-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void start() {
+        try {
+            Files.createDirectories(journalDir);
+            Replay replay = new Replay();
+            generation = loadSnapshot(replay);
+            for (Path journal : journalsAfter(generation)) {
+                LedgerJournal.replay(journal, replay);
+            }
+            for (int i = 0; i < partitions.length; i++) {
+                LedgerJournal journal = new LedgerJournal(journalFile(i), fsync);
+                partitions[i].open(journal, replay.lastTransferSequence(i));
+            }
+            for (LedgerPartition.Credit credit : replay.pendingCredits()) {
+                partitionOf(credit.recipientAccountId).credit(credit.transferId, credit.recipientAccountId, credit.amount);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        running = true;
+        for (int i = 0; i < partitions.length; i++) {
+            threads[i] = new Thread(partitions[i], "ledger-partition-" + i);
+            threads[i].start();
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        CompletableFuture<Long> snapshot;
+        synchronized (this) {
+            running = false;
+            snapshot = lastSnapshot;
+        }
+        try {
+            snapshot.join();
+        } catch (CompletionException e) {
+            // already logged, the journals are kept
+        }
+        for (LedgerPartition partition : partitions) {
+            partition.stop();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        snapshotWriter.shutdown();
+    }
+
+    /**
+     * Takes a snapshot now, or returns the one in progress. Completes with its generation once it is on disk.
+     */
+    public synchronized CompletableFuture<Long> snapshot() {
+        if (!running) {
+            throw new IllegalStateException("Ledger is not running");
+        }
+        if (!lastSnapshot.isDone()) {
+            return lastSnapshot;
+        }
+        LedgerSnapshot snapshot = new LedgerSnapshot(++generation, partitions.length);
+        lastSnapshot = snapshot.captured().thenApplyAsync(this::writeSnapshot, snapshotWriter);
+        for (LedgerPartition partition : partitions) {
+            partition.snapshot(snapshot);
+        }
+        return lastSnapshot;
+    }
+
+    /**
+     * Takes a snapshot and reads it back into the sheet: the balances at its cut and, as in transit, the credits
+     * on their way between partitions at the cut. The partitions stand still for the cut only, not for the reading.
+     * Snapshots are not deleted while an audit reads one. The ledger does not count deposits and withdrawals, so
+     * the sheet gets no expected total.
+     */
+    public void audit(BalanceSheet sheet) throws IOException {
+        audits.incrementAndGet();
+        try {
+            long generation = snapshot().join();
+            LedgerSnapshot.Handler handler = new LedgerSnapshot.Handler() {
+                @Override
+                public void onBalance(String accountId, long balance) {
+                    sheet.add(accountId, balance);
+                }
+
+                @Override
+                public void onTransferSequence(int partition, long transferSequence) {
+                }
+
+                @Override
+                public void onPendingCredit(long transferId, String recipientAccountId, long amount) {
+                    sheet.addInTransit(amount);
+                }
+            };
+            int parts = LedgerSnapshot.readManifest(LedgerSnapshot.manifestFile(journalDir, generation), handler);
+            for (int part = 0; part < parts; part++) {
+                LedgerSnapshot.readPart(LedgerSnapshot.partFile(journalDir, generation, part), handler);
+            }
+        } finally {
+            audits.decrementAndGet();
+        }
+    }
+
+    public void createAccount(String accountId) {
+        execute(LedgerCommand.CREATE, accountId, null, 0);
+    }
+
+    public long getBalance(String accountId) {
+        return execute(LedgerCommand.READ, accountId, null, 0);
+    }
+
+    public long increaseBalance(String accountId, long money) {
+        return execute(LedgerCommand.DEPOSIT, accountId, null, money);
+    }
+
+    public long reduceBalance(String accountId, long money) {
+        return execute(LedgerCommand.WITHDRAW, accountId, null, money);
+    }
+
+    public void transferMoney(String accountId, String recipientAccountId, long money) {
+        execute(LedgerCommand.TRANSFER, accountId, recipientAccountId, money);
+    }
+
+    /**
+     * Called by a partition whose journal has outgrown the threshold. A failed snapshot is only logged: the journals
+     * it would have replaced are kept.
+     */
+    void requestSnapshot() {
+        synchronized (this) {
+            if (!running || !lastSnapshot.isDone()) {
+                return;
+            }
+        }
+        snapshot().exceptionally(e -> {
+            log.error("Ledger snapshot failed, keeping the journals", e);
+            return null;
+        });
+    }
+
+    /**
+     * Closes the journal of a partition at the cut of a snapshot, keeps it under the generation of the snapshot
+     * until the snapshot is written, and opens a new one.
+     */
+    LedgerJournal rotateJournal(int partition, LedgerJournal journal, long generation) {
+        journal.close();
+        try {
+            Files.move(journalFile(partition), journalDir.resolve(JOURNAL_PREFIX + partition + "." + generation
+                    + JOURNAL_SUFFIX), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new LedgerJournal(journalFile(partition), fsync);
+    }
+
+    LedgerPartition partitionOf(String accountId) {
+        int h = accountId.hashCode();
+        return partitions[Math.floorMod(h ^ (h >>> 16), partitions.length)];
+    }
+
+    private long execute(int type, String accountId, String otherAccountId, long amount) {
+        if (!running) {
+            throw new IllegalStateException("Ledger is not running");
+        }
+        LedgerReply reply = LedgerReply.current();
+        CommandRing ring = partitionOf(accountId).getRing();
+        LedgerCommand command = ring.claim();
+        command.set(type, accountId, otherAccountId, amount, reply);
+        ring.publish(command);
+        reply.await();
+
+        switch (reply.getStatus()) {
+            case LedgerReply.OK:
+                return reply.getResult();
+            case LedgerReply.NOT_FOUND:
+                throw new AccountEntityNotFoundException(accountId);
+            case LedgerReply.RECIPIENT_NOT_FOUND:
+                throw new AccountEntityNotFoundException(otherAccountId);
+            case LedgerReply.NOT_ENOUGH_MONEY:
+                throw new AccountNotEnoughMoneyException(accountId);
+            case LedgerReply.OVERFLOW:
+                throw new AccountBalanceOverflowException(accountId);
+            default:
+                throw new IllegalStateException("Unknown ledger status " + reply.getStatus());
+        }
+    }
+
+    private long writeSnapshot(LedgerSnapshot snapshot) {
+        try {
+            snapshot.write(journalDir);
+            deleteBefore(snapshot.getGeneration());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return snapshot.getGeneration();
+    }
+
+    /**
+     * Loads the latest complete snapshot, if any, and returns its generation. Parts of different partitions are
+     * read in parallel.
+     */
+    private long loadSnapshot(Replay replay) throws IOException {
+        long latest = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(journalDir, "snapshot-*.manifest")) {
+            for (Path file : files) {
+                Matcher matcher = SNAPSHOT.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    latest = Math.max(latest, Long.parseLong(matcher.group(1)));
+                }
+            }
+        }
+        if (latest == 0) {
+            return 0;
+        }
+        long generation = latest;
+        int parts = LedgerSnapshot.readManifest(LedgerSnapshot.manifestFile(journalDir, generation), replay);
+        try {
+            IntStream.range(0, parts).parallel().forEach(part -> {
+                try {
+                    LedgerSnapshot.readPart(LedgerSnapshot.partFile(journalDir, generation, part), replay);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        deleteBefore(generation);
+        return generation;
+    }
+
+    /**
+     * Journals not covered by the snapshot of the given generation, oldest first. Rotated journals carry the
+     * generation of the snapshot they were rotated for; the current journal of a partition has none.
+     */
+    private List<Path> journalsAfter(long snapshotGeneration) throws IOException {
+        List<Path> rotated = new ArrayList<>();
+        List<Path> current = new ArrayList<>();
+        try (DirectoryStream<Path> journals = Files.newDirectoryStream(journalDir,
+                JOURNAL_PREFIX + "*" + JOURNAL_SUFFIX)) {
+            for (Path journal : journals) {
+                Matcher matcher = JOURNAL.matcher(journal.getFileName().toString());
+                if (!matcher.matches()) {
+                    continue;
+                }
+                if (matcher.group(2) == null) {
+                    current.add(journal);
+                } else if (Long.parseLong(matcher.group(2)) > snapshotGeneration) {
+                    rotated.add(journal);
+                    generation = Math.max(generation, Long.parseLong(matcher.group(2)));
+                }
+            }
+        }
+        rotated.sort((a, b) -> Long.compare(rotatedGeneration(a), rotatedGeneration(b)));
+        rotated.addAll(current);
+        return rotated;
+    }
+
+    /**
+     * Deletes what the snapshot of the given generation has made obsolete: older snapshots, files left half-written
+     * and journals rotated up to that generation. Snapshots are left to the next call while an audit is running.
+     */
+    private void deleteBefore(long snapshotGeneration) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(journalDir)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                Matcher snapshot = SNAPSHOT.matcher(name);
+                Matcher journal = JOURNAL.matcher(name);
+                if (snapshot.matches() && audits.get() == 0 && (Long.parseLong(snapshot.group(1)) < snapshotGeneration
+                        || snapshot.group(2) != null && Long.parseLong(snapshot.group(1)) <= snapshotGeneration)
+                        || journal.matches() && journal.group(2) != null
+                        && Long.parseLong(journal.group(2)) <= snapshotGeneration) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private long rotatedGeneration(Path journal) {
+        Matcher matcher = JOURNAL.matcher(journal.getFileName().toString());
+        return matcher.matches() ? Long.parseLong(matcher.group(2)) : 0;
+    }
+
+    private Path journalFile(int partition) {
+        return journalDir.resolve(JOURNAL_PREFIX + partition + JOURNAL_SUFFIX);
+    }
+
+    /**
+     * Rebuilds balances from a snapshot and the journal records after it. Records are applied as plain deltas
+     * without checks on top of the snapshot, so journals of different partitions can be replayed in any order.
+     */
+    private final class Replay implements LedgerJournal.RecordHandler, LedgerSnapshot.Handler {
+        private final Map<Long, LedgerPartition.Credit> transfersOut = new HashMap<>();
+        private final Set<Long> transfersIn = new HashSet<>();
+        private final Map<Integer, Long> transferSequences = new HashMap<>();
+
+        @Override
+        public void onBalance(String accountId, long balance) {
+            partitionOf(accountId).balances().put(accountId, balance);
+        }
+
+        @Override
+        public void onTransferSequence(int partition, long transferSequence) {
+            transferSequences.merge(partition, transferSequence, Math::max);
+        }
+
+        @Override
+        public void onPendingCredit(long transferId, String recipientAccountId, long amount) {
+            transfersOut.put(transferId, new LedgerPartition.Credit(transferId, recipientAccountId, amount));
+        }
+
+        @Override
+        public void onCreate(String accountId) {
+            add(accountId, 0);
+        }
+
+        @Override
+        public void onDeposit(String accountId, long amount) {
+            add(accountId, amount);
+        }
+
+        @Override
+        public void onWithdraw(String accountId, long amount) {
+            add(accountId, -amount);
+        }
+
+        @Override
+        public void onTransfer(String accountId, String recipientAccountId, long amount) {
+            add(accountId, -amount);
+            add(recipientAccountId, amount);
+        }
+
+        @Override
+        public void onTransferOut(long transferId, String accountId, String recipientAccountId, long amount) {
+            add(accountId, -amount);
+            add(recipientAccountId, 0);
+            transfersOut.put(transferId, new LedgerPartition.Credit(transferId, recipientAccountId, amount));
+            transferSequences.merge((int) (transferId >>> 48), transferId & ((1L << 48) - 1), Math::max);
+        }
+
+        @Override
+        public void onTransferIn(long transferId, String recipientAccountId, long amount) {
+            add(recipientAccountId, amount);
+            transfersIn.add(transferId);
+        }
+
+        /**
+         * Credits that were debited from the sender but never reached the recipient before shutdown.
+         */
+        Collection<LedgerPartition.Credit> pendingCredits() {
+            transfersOut.keySet().removeAll(transfersIn);
+            return transfersOut.values();
+        }
+
+        long lastTransferSequence(int partition) {
+            return transferSequences.getOrDefault(partition, 0L);
+        }
+
+        private void add(String accountId, long amount) {
+            partitionOf(accountId).balances().add(accountId, amount);
+        }
+    }
+}
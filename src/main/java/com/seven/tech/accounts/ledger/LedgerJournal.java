@@ -0,0 +1,243 @@
+package com.seven.tech.accounts.ledger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Append-only journal of applied ledger changes. Every record is {@code [length:int][type:byte][payload]}.
+ * Records are buffered and written by {@link #flush()}, which the partition calls once per drained batch before it
+ * answers any caller of that batch.
+ */
+final class LedgerJournal implements AutoCloseable {
+    static final byte CREATE = 1;
+    static final byte DEPOSIT = 2;
+    static final byte WITHDRAW = 3;
+    static final byte TRANSFER = 4;
+    static final byte TRANSFER_OUT = 5;
+    static final byte TRANSFER_IN = 6;
+
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final int MAX_RECORD_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final boolean fsync;
+    private long size;
+
+    LedgerJournal(Path file, boolean fsync) {
+        try {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.fsync = fsync;
+    }
+
+    void create(String accountId) {
+        int start = begin(CREATE);
+        putId(accountId);
+        end(start);
+    }
+
+    void deposit(String accountId, long amount) {
+        int start = begin(DEPOSIT);
+        putId(accountId);
+        buffer.putLong(amount);
+        end(start);
+    }
+
+    void withdraw(String accountId, long amount) {
+        int start = begin(WITHDRAW);
+        putId(accountId);
+        buffer.putLong(amount);
+        end(start);
+    }
+
+    void transfer(String accountId, String recipientAccountId, long amount) {
+        int start = begin(TRANSFER);
+        putId(accountId);
+        putId(recipientAccountId);
+        buffer.putLong(amount);
+        end(start);
+    }
+
+    void transferOut(long transferId, String accountId, String recipientAccountId, long amount) {
+        int start = begin(TRANSFER_OUT);
+        buffer.putLong(transferId);
+        putId(accountId);
+        putId(recipientAccountId);
+        buffer.putLong(amount);
+        end(start);
+    }
+
+    void transferIn(long transferId, String recipientAccountId, long amount) {
+        int start = begin(TRANSFER_IN);
+        buffer.putLong(transferId);
+        putId(recipientAccountId);
+        buffer.putLong(amount);
+        end(start);
+    }
+
+    /**
+     * Bytes written by this instance, not counting what the file held when it was opened.
+     */
+    long size() {
+        return size;
+    }
+
+    boolean hasPending() {
+        return buffer.position() > 0;
+    }
+
+    void flush() {
+        write();
+        if (fsync) {
+            try {
+                channel.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        flush();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private int begin(byte type) {
+        if (buffer.remaining() < MAX_RECORD_SIZE) {
+            write();
+        }
+        int start = buffer.position();
+        buffer.putInt(0);
+        buffer.put(type);
+        return start;
+    }
+
+    private void end(int start) {
+        buffer.putInt(start, buffer.position() - start - Integer.BYTES);
+    }
+
+    private void putId(String accountId) {
+        putId(buffer, accountId);
+    }
+
+    static void putId(ByteBuffer buffer, String accountId) {
+        int length = accountId.length();
+        buffer.putShort((short) length);
+        for (int i = 0; i < length; i++) {
+            buffer.put((byte) accountId.charAt(i));
+        }
+    }
+
+    private void write() {
+        buffer.flip();
+        size += buffer.remaining();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Reads every complete record of {@code file}. A torn record at the tail, left by a crash in the middle of a
+     * write, is cut off so that new records are appended after the last complete one.
+     */
+    static void replay(Path file, RecordHandler handler) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            long position = 0;
+            boolean torn = false;
+            while (!torn && (channel.read(buffer) > 0 || buffer.position() > 0)) {
+                buffer.flip();
+                int consumed = 0;
+                while (buffer.remaining() >= Integer.BYTES) {
+                    int length = buffer.getInt(buffer.position());
+                    if (length <= 0 || length > MAX_RECORD_SIZE) {
+                        torn = true;
+                        break;
+                    }
+                    if (buffer.remaining() < Integer.BYTES + length) {
+                        break;
+                    }
+                    buffer.getInt();
+                    int recordEnd = buffer.position() + length;
+                    readRecord(buffer, handler);
+                    buffer.position(recordEnd);
+                    consumed += Integer.BYTES + length;
+                }
+                position += consumed;
+                if (consumed == 0 && channel.position() >= channel.size()) {
+                    torn = true;
+                }
+                buffer.compact();
+            }
+            if (position < channel.size()) {
+                channel.truncate(position);
+            }
+        }
+    }
+
+    private static void readRecord(ByteBuffer buffer, RecordHandler handler) {
+        byte type = buffer.get();
+        switch (type) {
+            case CREATE:
+                handler.onCreate(getId(buffer));
+                break;
+            case DEPOSIT:
+                handler.onDeposit(getId(buffer), buffer.getLong());
+                break;
+            case WITHDRAW:
+                handler.onWithdraw(getId(buffer), buffer.getLong());
+                break;
+            case TRANSFER:
+                handler.onTransfer(getId(buffer), getId(buffer), buffer.getLong());
+                break;
+            case TRANSFER_OUT:
+                handler.onTransferOut(buffer.getLong(), getId(buffer), getId(buffer), buffer.getLong());
+                break;
+            case TRANSFER_IN:
+                handler.onTransferIn(buffer.getLong(), getId(buffer), buffer.getLong());
+                break;
+            default:
+                throw new IllegalStateException("Unknown journal record type " + type);
+        }
+    }
+
+    static String getId(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    interface RecordHandler {
+        void onCreate(String accountId);
+
+        void onDeposit(String accountId, long amount);
+
+        void onWithdraw(String accountId, long amount);
+
+        void onTransfer(String accountId, String recipientAccountId, long amount);
+
+        void onTransferOut(long transferId, String accountId, String recipientAccountId, long amount);
+
+        void onTransferIn(long transferId, String recipientAccountId, long amount);
+    }
+}
@@ -0,0 +1,325 @@
+package com.seven.tech.accounts.ledger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * One single-writer shard of the ledger. Only the partition thread changes its balances and writes its journal;
+ * other partitions only ask whether an account exists here.
+ * <p>
+ * A transfer to an account of another partition is split in two: this partition debits the sender and journals
+ * {@code TRANSFER_OUT}, and once that record is on disk it hands a credit to the recipient's partition and then
+ * answers; the recipient's partition applies the credit before the next command it takes and journals
+ * {@code TRANSFER_IN}. Replay re-issues every {@code TRANSFER_OUT} without a matching {@code TRANSFER_IN}. The money
+ * is already gone from the sender, so a credit that would overflow the recipient's balance is not refused but held,
+ * and tried again after every batch of commands until a withdrawal makes room for it.
+ * <p>
+ * Between two batches the partition may stop at the cut of a {@link LedgerSnapshot}, and once its journal has grown
+ * past the snapshot threshold it asks the engine for one.
+ */
+final class LedgerPartition implements Runnable {
+    private static final Logger log = LoggerFactory.getLogger(LedgerPartition.class);
+
+    private final int index;
+    private final LedgerEngine engine;
+    private final CommandRing ring;
+    private final int maxBatchSize;
+    private final long snapshotJournalBytes;
+    private final BalanceStore balances;
+    private final Queue<Credit> credits = new ConcurrentLinkedQueue<>();
+    private final List<Credit> outgoingCredits = new ArrayList<>();
+    private final List<Credit> heldCredits = new ArrayList<>();
+
+    private LedgerJournal journal;
+    private long transferSequence;
+    private volatile LedgerSnapshot snapshot;
+    private volatile boolean running = true;
+
+    LedgerPartition(int index, LedgerEngine engine, int ringSize, long snapshotJournalBytes,
+                    BalanceStore balances) {
+        this.index = index;
+        this.engine = engine;
+        this.ring = new CommandRing(ringSize);
+        this.maxBatchSize = ringSize;
+        this.snapshotJournalBytes = snapshotJournalBytes;
+        this.balances = balances;
+    }
+
+    void open(LedgerJournal journal, long transferSequence) {
+        this.journal = journal;
+        this.transferSequence = transferSequence;
+    }
+
+    CommandRing getRing() {
+        return ring;
+    }
+
+    BalanceStore balances() {
+        return balances;
+    }
+
+    boolean contains(String accountId) {
+        return balances.contains(accountId);
+    }
+
+    void credit(long transferId, String recipientAccountId, long amount) {
+        credits.add(new Credit(transferId, recipientAccountId, amount));
+        ring.wakeUp();
+    }
+
+    /**
+     * Asks the partition to stop at the cut of the snapshot before its next batch.
+     */
+    void snapshot(LedgerSnapshot snapshot) {
+        this.snapshot = snapshot;
+        ring.wakeUp();
+    }
+
+    void stop() {
+        running = false;
+        ring.wakeUp();
+    }
+
+    @Override
+    public void run() {
+        ring.attachConsumer(Thread.currentThread());
+        try {
+            while (running || !ring.isEmpty() || !credits.isEmpty()) {
+                LedgerSnapshot requested = snapshot;
+                if (requested != null) {
+                    snapshot = null;
+                    takeSnapshot(requested);
+                }
+                if (drain() == 0) {
+                    ring.awaitPublished(ring.releasedSequence() + 1);
+                }
+            }
+        } finally {
+            journal.close();
+        }
+    }
+
+    /**
+     * The sender's partition hands a credit over before it answers the transfer, so a credit the caller has seen
+     * answered is queued here before any command the caller sends next; taking the arrived credits before every
+     * command lets the caller read or spend the money right away.
+     */
+    private int drain() {
+        int applied = applyCredits(maxBatchSize);
+
+        long first = ring.releasedSequence() + 1;
+        long next = first;
+        LedgerCommand command;
+        while (next - first < maxBatchSize && (command = ring.get(next)) != null) {
+            applied += applyCredits(Integer.MAX_VALUE);
+            apply(command);
+            next++;
+        }
+        if (next != first && !heldCredits.isEmpty()) {
+            retryHeldCredits();
+        }
+        if (applied == 0 && next == first) {
+            return 0;
+        }
+
+        if (journal.hasPending()) {
+            journal.flush();
+            if (snapshotJournalBytes > 0 && journal.size() >= snapshotJournalBytes) {
+                engine.requestSnapshot();
+            }
+        }
+        for (Credit outgoing : outgoingCredits) {
+            engine.partitionOf(outgoing.recipientAccountId)
+                    .credit(outgoing.transferId, outgoing.recipientAccountId, outgoing.amount);
+        }
+        outgoingCredits.clear();
+        for (long sequence = first; sequence < next; sequence++) {
+            ring.get(sequence).answer();
+        }
+        if (next != first) {
+            ring.release(next - 1);
+        }
+        return applied + (int) (next - first);
+    }
+
+    private int applyCredits(int limit) {
+        int applied = 0;
+        Credit credit;
+        while (applied < limit && (credit = credits.poll()) != null) {
+            applyCredit(credit);
+            applied++;
+        }
+        return applied;
+    }
+
+    /**
+     * Waits until every partition is at the cut, so no credit is on its way between partitions, then starts a new
+     * journal and hands over a copy of the balances and of the credits received but not yet applied. Then waits
+     * again until every partition has done so, so no credit of after the cut reaches a queue not yet copied.
+     */
+    private void takeSnapshot(LedgerSnapshot snapshot) {
+        if (!snapshot.awaitCut()) {
+            return;
+        }
+        try {
+            journal = engine.rotateJournal(index, journal, snapshot.getGeneration());
+            String[] ids = new String[balances.size()];
+            long[] values = new long[ids.length];
+            int[] count = new int[1];
+            balances.forEach((accountId, balance) -> {
+                ids[count[0]] = accountId;
+                values[count[0]++] = balance;
+            });
+            List<Credit> pendingCredits = new ArrayList<>(heldCredits);
+            pendingCredits.addAll(credits);
+            snapshot.addPart(index, ids, values, count[0], pendingCredits, transferSequence);
+        } catch (RuntimeException e) {
+            snapshot.fail(e);
+            throw e;
+        }
+        snapshot.awaitParts();
+    }
+
+    private void apply(LedgerCommand command) {
+        switch (command.type) {
+            case LedgerCommand.CREATE:
+                if (balances.create(command.accountId)) {
+                    journal.create(command.accountId);
+                }
+                break;
+            case LedgerCommand.READ:
+                read(command);
+                break;
+            case LedgerCommand.DEPOSIT:
+                deposit(command);
+                break;
+            case LedgerCommand.WITHDRAW:
+                withdraw(command);
+                break;
+            case LedgerCommand.TRANSFER:
+                transfer(command);
+                break;
+            default:
+                throw new IllegalStateException("Unknown ledger command " + command.type);
+        }
+    }
+
+    private void read(LedgerCommand command) {
+        long balance = balances.get(command.accountId);
+        if (balance == BalanceStore.MISSING) {
+            command.status = LedgerReply.NOT_FOUND;
+            return;
+        }
+        command.result = balance;
+    }
+
+    private void deposit(LedgerCommand command) {
+        long balance = balances.get(command.accountId);
+        if (balance == BalanceStore.MISSING) {
+            command.status = LedgerReply.NOT_FOUND;
+            return;
+        }
+        long updated = balance + command.amount;
+        if (((balance ^ updated) & (command.amount ^ updated)) < 0) {
+            command.status = LedgerReply.OVERFLOW;
+            return;
+        }
+        command.result = balances.add(command.accountId, command.amount);
+        journal.deposit(command.accountId, command.amount);
+    }
+
+    private void withdraw(LedgerCommand command) {
+        long balance = balances.get(command.accountId);
+        if (balance == BalanceStore.MISSING) {
+            command.status = LedgerReply.NOT_FOUND;
+            return;
+        }
+        if (balance < command.amount) {
+            command.status = LedgerReply.NOT_ENOUGH_MONEY;
+            return;
+        }
+        command.result = balances.add(command.accountId, -command.amount);
+        journal.withdraw(command.accountId, command.amount);
+    }
+
+    private void transfer(LedgerCommand command) {
+        long balance = balances.get(command.accountId);
+        if (balance == BalanceStore.MISSING) {
+            command.status = LedgerReply.NOT_FOUND;
+            return;
+        }
+        if (balance < command.amount) {
+            command.status = LedgerReply.NOT_ENOUGH_MONEY;
+            return;
+        }
+        LedgerPartition recipientPartition = engine.partitionOf(command.otherAccountId);
+        if (!recipientPartition.contains(command.otherAccountId)) {
+            command.status = LedgerReply.RECIPIENT_NOT_FOUND;
+            return;
+        }
+        if (command.accountId.equals(command.otherAccountId)) {
+            return;
+        }
+        if (recipientPartition == this) {
+            long recipientBalance = balances.get(command.otherAccountId);
+            long updated = recipientBalance + command.amount;
+            if (((recipientBalance ^ updated) & (command.amount ^ updated)) < 0) {
+                command.status = LedgerReply.OVERFLOW;
+                return;
+            }
+            balances.add(command.accountId, -command.amount);
+            balances.add(command.otherAccountId, command.amount);
+            journal.transfer(command.accountId, command.otherAccountId, command.amount);
+            return;
+        }
+        long transferId = ((long) index << 48) | ++transferSequence;
+        balances.add(command.accountId, -command.amount);
+        journal.transferOut(transferId, command.accountId, command.otherAccountId, command.amount);
+        outgoingCredits.add(new Credit(transferId, command.otherAccountId, command.amount));
+    }
+
+    private void applyCredit(Credit credit) {
+        if (!tryCredit(credit)) {
+            log.warn("Holding transfer {} to {}: the credit would overflow the balance", credit.transferId,
+                    credit.recipientAccountId);
+            heldCredits.add(credit);
+        }
+    }
+
+    private void retryHeldCredits() {
+        for (Iterator<Credit> held = heldCredits.iterator(); held.hasNext(); ) {
+            if (tryCredit(held.next())) {
+                held.remove();
+            }
+        }
+    }
+
+    private boolean tryCredit(Credit credit) {
+        long balance = balances.get(credit.recipientAccountId);
+        long updated = balance + credit.amount;
+        if (((balance ^ updated) & (credit.amount ^ updated)) < 0) {
+            return false;
+        }
+        balances.add(credit.recipientAccountId, credit.amount);
+        journal.transferIn(credit.transferId, credit.recipientAccountId, credit.amount);
+        return true;
+    }
+
+    static final class Credit {
+        final long transferId;
+        final String recipientAccountId;
+        final long amount;
+
+        Credit(long transferId, String recipientAccountId, long amount) {
+            this.transferId = transferId;
+            this.recipientAccountId = recipientAccountId;
+            this.amount = amount;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.seven.tech.accounts.ledger;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Per-thread rendezvous between a caller and the partition that executes its command. Reused for every call of
+ * the owning thread, so a round trip through the ledger allocates nothing.
+ */
+final class LedgerReply {
+    static final int OK = 0;
+    static final int NOT_FOUND = 1;
+    static final int NOT_ENOUGH_MONEY = 2;
+    static final int OVERFLOW = 3;
+    static final int RECIPIENT_NOT_FOUND = 4;
+
+    private static final int SPINS_BEFORE_PARK = 200;
+    private static final ThreadLocal<LedgerReply> REPLIES = ThreadLocal.withInitial(LedgerReply::new);
+
+    private final Thread thread = Thread.currentThread();
+    private volatile boolean done;
+    private int status;
+    private long result;
+
+    static LedgerReply current() {
+        LedgerReply reply = REPLIES.get();
+        reply.done = false;
+        return reply;
+    }
+
+    void complete(int status, long result) {
+        this.status = status;
+        this.result = result;
+        done = true;
+        LockSupport.unpark(thread);
+    }
+
+    void await() {
+        for (int spins = 0; !done && spins < SPINS_BEFORE_PARK; spins++) {
+            Thread.onSpinWait();
+        }
+        while (!done) {
+            LockSupport.park(this);
+        }
+    }
+
+    int getStatus() {
+        return status;
+    }
+
+    long getResult() {
+        return result;
+    }
+}
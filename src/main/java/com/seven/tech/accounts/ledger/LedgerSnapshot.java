@@ -0,0 +1,299 @@
+package com.seven.tech.accounts.ledger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One snapshot of the ledger, taken at a cut where every partition stands still between two batches, and its files.
+ * <p>
+ * At the cut each partition rotates its journal and copies its balances, so the snapshot plus the journals written
+ * after it give back the whole ledger. Credits already debited by one partition but not yet applied by another are
+ * part of the cut as well: their {@code TRANSFER_OUT} records are in the rotated journals, so the snapshot has to
+ * carry them, and no partition resumes before every part is copied, so it carries no later ones. The files are one
+ * part per partition, {@code [magic:int][count:int]} followed by {@code [id][balance:long]} entries, and a manifest
+ * written last, which makes the snapshot complete.
+ */
+final class LedgerSnapshot {
+    private static final int PART_MAGIC = 0x4C534E50;
+    private static final int MANIFEST_MAGIC = 0x4C534E4D;
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final int MAX_ENTRY_SIZE = Short.BYTES + (1 << 16) + 2 * Long.BYTES;
+
+    private final long generation;
+    private final CyclicBarrier cut;
+    private final String[][] ids;
+    private final long[][] balances;
+    private final int[] counts;
+    private final List<LedgerPartition.Credit> credits = new ArrayList<>();
+    private final Map<Integer, Long> transferSequences = new HashMap<>();
+    private final AtomicInteger missing;
+    private final CompletableFuture<LedgerSnapshot> captured = new CompletableFuture<>();
+
+    LedgerSnapshot(long generation, int partitionCount) {
+        this.generation = generation;
+        this.cut = new CyclicBarrier(partitionCount);
+        this.ids = new String[partitionCount][];
+        this.balances = new long[partitionCount][];
+        this.counts = new int[partitionCount];
+        this.missing = new AtomicInteger(partitionCount);
+    }
+
+    long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Completes once every partition has added its part.
+     */
+    CompletableFuture<LedgerSnapshot> captured() {
+        return captured;
+    }
+
+    /**
+     * Blocks the partition thread until every partition has reached the cut. Returns {@code false} if the snapshot
+     * failed in the meantime.
+     */
+    boolean awaitCut() {
+        try {
+            cut.await();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail(e);
+            return false;
+        } catch (BrokenBarrierException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Blocks the partition thread until every partition has added its part, so none resumes and hands a credit of
+     * after the cut to a partition still copying its queue. Returns {@code false} if the snapshot failed.
+     */
+    boolean awaitParts() {
+        try {
+            captured.get();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail(e);
+            return false;
+        } catch (ExecutionException e) {
+            return false;
+        }
+    }
+
+    void addPart(int partition, String[] partIds, long[] partBalances, int count,
+                 Collection<LedgerPartition.Credit> pendingCredits, long transferSequence) {
+        ids[partition] = partIds;
+        balances[partition] = partBalances;
+        counts[partition] = count;
+        synchronized (this) {
+            credits.addAll(pendingCredits);
+            transferSequences.put(partition, transferSequence);
+        }
+        if (missing.decrementAndGet() == 0) {
+            captured.complete(this);
+        }
+    }
+
+    void fail(Throwable e) {
+        cut.reset();
+        captured.completeExceptionally(e);
+    }
+
+    /**
+     * Writes the parts and then the manifest. Each file is written under a temporary name, forced to disk and
+     * renamed, so a crash never leaves a file that looks complete but is not.
+     */
+    void write(Path dir) throws IOException {
+        for (int partition = 0; partition < counts.length; partition++) {
+            try (Output output = Output.create(partFile(dir, generation, partition))) {
+                output.ensure(2 * Integer.BYTES);
+                output.buffer.putInt(PART_MAGIC).putInt(counts[partition]);
+                for (int i = 0; i < counts[partition]; i++) {
+                    output.ensure(MAX_ENTRY_SIZE);
+                    LedgerJournal.putId(output.buffer, ids[partition][i]);
+                    output.buffer.putLong(balances[partition][i]);
+                }
+                output.commit();
+            }
+            ids[partition] = null;
+            balances[partition] = null;
+        }
+        try (Output output = Output.create(manifestFile(dir, generation))) {
+            output.ensure(3 * Integer.BYTES + Long.BYTES);
+            output.buffer.putInt(MANIFEST_MAGIC).putLong(generation).putInt(counts.length)
+                    .putInt(transferSequences.size());
+            for (Map.Entry<Integer, Long> sequence : transferSequences.entrySet()) {
+                output.ensure(Integer.BYTES + Long.BYTES);
+                output.buffer.putInt(sequence.getKey()).putLong(sequence.getValue());
+            }
+            output.ensure(Integer.BYTES);
+            output.buffer.putInt(credits.size());
+            for (LedgerPartition.Credit credit : credits) {
+                output.ensure(MAX_ENTRY_SIZE);
+                output.buffer.putLong(credit.transferId);
+                LedgerJournal.putId(output.buffer, credit.recipientAccountId);
+                output.buffer.putLong(credit.amount);
+            }
+            output.commit();
+        }
+    }
+
+    static Path partFile(Path dir, long generation, int partition) {
+        return dir.resolve("snapshot-" + generation + "-" + partition + ".part");
+    }
+
+    static Path manifestFile(Path dir, long generation) {
+        return dir.resolve("snapshot-" + generation + ".manifest");
+    }
+
+    /**
+     * Reads a manifest and returns its number of parts.
+     */
+    static int readManifest(Path file, Handler handler) throws IOException {
+        try (Input input = new Input(file)) {
+            input.ensure(3 * Integer.BYTES + Long.BYTES);
+            checkMagic(file, input.buffer.getInt(), MANIFEST_MAGIC);
+            input.buffer.getLong();
+            int parts = input.buffer.getInt();
+            int sequences = input.buffer.getInt();
+            for (int i = 0; i < sequences; i++) {
+                input.ensure(Integer.BYTES + Long.BYTES);
+                handler.onTransferSequence(input.buffer.getInt(), input.buffer.getLong());
+            }
+            input.ensure(Integer.BYTES);
+            int credits = input.buffer.getInt();
+            for (int i = 0; i < credits; i++) {
+                input.ensure(MAX_ENTRY_SIZE);
+                handler.onPendingCredit(input.buffer.getLong(), LedgerJournal.getId(input.buffer),
+                        input.buffer.getLong());
+            }
+            return parts;
+        }
+    }
+
+    static void readPart(Path file, Handler handler) throws IOException {
+        try (Input input = new Input(file)) {
+            input.ensure(2 * Integer.BYTES);
+            checkMagic(file, input.buffer.getInt(), PART_MAGIC);
+            int count = input.buffer.getInt();
+            for (int i = 0; i < count; i++) {
+                input.ensure(MAX_ENTRY_SIZE);
+                handler.onBalance(LedgerJournal.getId(input.buffer), input.buffer.getLong());
+            }
+        }
+    }
+
+    private static void checkMagic(Path file, int magic, int expected) {
+        if (magic != expected) {
+            throw new IllegalStateException("Not a ledger snapshot file: " + file);
+        }
+    }
+
+    interface Handler {
+        void onBalance(String accountId, long balance);
+
+        void onTransferSequence(int partition, long transferSequence);
+
+        void onPendingCredit(long transferId, String recipientAccountId, long amount);
+    }
+
+    private static final class Output implements AutoCloseable {
+        private final Path file;
+        private final Path temporary;
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        private Output(Path file, Path temporary, FileChannel channel) {
+            this.file = file;
+            this.temporary = temporary;
+            this.channel = channel;
+        }
+
+        static Output create(Path file) throws IOException {
+            Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+            return new Output(file, temporary, FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING));
+        }
+
+        void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                write();
+            }
+        }
+
+        private void write() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        /**
+         * Makes the file visible under its name. A file closed without a commit is deleted.
+         */
+        void commit() throws IOException {
+            write();
+            channel.force(true);
+            channel.close();
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (channel.isOpen()) {
+                channel.close();
+                Files.deleteIfExists(temporary);
+            }
+        }
+    }
+
+    private static final class Input implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        Input(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            buffer.flip();
+        }
+
+        /**
+         * Makes at least {@code bytes} bytes readable, or everything left in the file if that is less.
+         */
+        void ensure(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) {
+                return;
+            }
+            buffer.compact();
+            while (buffer.position() < bytes) {
+                if (channel.read(buffer) < 0) {
+                    break;
+                }
+            }
+            buffer.flip();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.seven.tech.accounts.ledger;
+
+import com.seven.tech.accounts.id.AccountIds;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Balances in an open-addressing table with linear probing in direct memory. A slot is three longs: the two halves
+ * of the account id and the balance. An id half of 0 marks a free slot, which is why only canonical UUID ids are
+ * taken (the version and variant bits make both halves non-zero).
+ * <p>
+ * The table is split into direct buffers of at most {@value #SEGMENT_SLOTS} slots, so it can outgrow the 2 GiB limit
+ * of one buffer, and doubles once three quarters full. Balances are read and changed with volatile reads and
+ * compare-and-set on their slot. Accounts are added under the monitor of the store: the id is written before its
+ * high half, which is published last, so a reader never sees half an id.
+ */
+final class OffHeapBalanceStore implements BalanceStore {
+    private static final int SEGMENT_SHIFT = 20;
+    private static final int SEGMENT_SLOTS = 1 << SEGMENT_SHIFT;
+    private static final int SLOT_BYTES = 3 * Long.BYTES;
+    private static final int LOW_OFFSET = Long.BYTES;
+    private static final int BALANCE_OFFSET = 2 * Long.BYTES;
+    private static final int MIN_CAPACITY = 16;
+    private static final int MAX_CAPACITY = 1 << 30;
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private volatile Table table;
+    private volatile int size;
+
+    OffHeapBalanceStore(int expectedAccounts) {
+        this.table = new Table(capacityFor(expectedAccounts));
+    }
+
+    @Override
+    public synchronized boolean create(String accountId) {
+        long high = highBits(accountId);
+        long low = AccountIds.lowBits(accountId);
+        if (table.find(high, low) >= 0) {
+            return false;
+        }
+        insert(high, low, 0);
+        return true;
+    }
+
+    @Override
+    public boolean contains(String accountId) {
+        long high = AccountIds.highBits(accountId);
+        long low = AccountIds.lowBits(accountId);
+        return high != 0 && low != 0 && table.find(high, low) >= 0;
+    }
+
+    @Override
+    public long get(String accountId) {
+        long high = AccountIds.highBits(accountId);
+        long low = AccountIds.lowBits(accountId);
+        if (high == 0 || low == 0) {
+            return MISSING;
+        }
+        Table current = table;
+        long slot = current.find(high, low);
+        return slot >= 0 ? current.getBalance(slot) : MISSING;
+    }
+
+    @Override
+    public void put(String accountId, long balance) {
+        long high = highBits(accountId);
+        long low = AccountIds.lowBits(accountId);
+        Table current = table;
+        long slot = current.find(high, low);
+        if (slot >= 0) {
+            current.setBalance(slot, balance);
+            return;
+        }
+        synchronized (this) {
+            current = table;
+            slot = current.find(high, low);
+            if (slot >= 0) {
+                current.setBalance(slot, balance);
+            } else {
+                insert(high, low, balance);
+            }
+        }
+    }
+
+    @Override
+    public long add(String accountId, long delta) {
+        long high = highBits(accountId);
+        long low = AccountIds.lowBits(accountId);
+        Table current = table;
+        long slot = current.find(high, low);
+        if (slot < 0) {
+            synchronized (this) {
+                current = table;
+                slot = current.find(high, low);
+                if (slot < 0) {
+                    insert(high, low, 0);
+                    current = table;
+                    slot = current.find(high, low);
+                }
+            }
+        }
+        while (true) {
+            long balance = current.getBalance(slot);
+            if (current.compareAndSetBalance(slot, balance, balance + delta)) {
+                return balance + delta;
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void forEach(ObjLongConsumer<String> action) {
+        Table current = table;
+        for (long slot = 0; slot < current.capacity; slot++) {
+            long high = current.getHigh(slot);
+            if (high != 0) {
+                action.accept(AccountIds.fromBits(high, current.getLow(slot)), current.getBalance(slot));
+            }
+        }
+    }
+
+    /**
+     * Bytes of direct memory held by the table.
+     */
+    long allocatedBytes() {
+        return table.capacity * SLOT_BYTES;
+    }
+
+    /**
+     * Called under the monitor, for an id that is not in the table.
+     */
+    private void insert(long high, long low, long balance) {
+        if (size + 1 > table.capacity / 4 * 3) {
+            table = table.grow();
+        }
+        table.insert(high, low, balance);
+        size++;
+    }
+
+    private static long highBits(String accountId) {
+        long high = AccountIds.highBits(accountId);
+        if (high == 0 || AccountIds.lowBits(accountId) == 0) {
+            throw new IllegalArgumentException("Off-heap balances take canonical UUID ids only: " + accountId);
+        }
+        return high;
+    }
+
+    private static int capacityFor(int expectedAccounts) {
+        long capacity = MIN_CAPACITY;
+        while (capacity / 4 * 3 < expectedAccounts && capacity < MAX_CAPACITY) {
+            capacity <<= 1;
+        }
+        return (int) capacity;
+    }
+
+    private static long hash(long high, long low) {
+        long h = high * 0x9E3779B97F4A7C15L ^ low;
+        h ^= h >>> 32;
+        h *= 0xD6E8FEB86659FD93L;
+        return h ^ h >>> 32;
+    }
+
+    private static final class Table {
+        private final ByteBuffer[] segments;
+        private final long capacity;
+        private final long mask;
+
+        private Table(int capacity) {
+            this.capacity = capacity;
+            this.mask = capacity - 1;
+            int segmentSlots = Math.min(capacity, SEGMENT_SLOTS);
+            this.segments = new ByteBuffer[capacity / segmentSlots];
+            for (int i = 0; i < segments.length; i++) {
+                segments[i] = ByteBuffer.allocateDirect(segmentSlots * SLOT_BYTES).order(ByteOrder.nativeOrder());
+            }
+        }
+
+        /**
+         * The slot of the id, or -1.
+         */
+        private long find(long high, long low) {
+            for (long slot = hash(high, low) & mask; ; slot = slot + 1 & mask) {
+                long slotHigh = getHigh(slot);
+                if (slotHigh == 0) {
+                    return -1;
+                }
+                if (slotHigh == high && getLow(slot) == low) {
+                    return slot;
+                }
+            }
+        }
+
+        private void insert(long high, long low, long balance) {
+            long slot = hash(high, low) & mask;
+            while (getHigh(slot) != 0) {
+                slot = slot + 1 & mask;
+            }
+            ByteBuffer segment = segment(slot);
+            int offset = offset(slot);
+            LONGS.set(segment, offset + BALANCE_OFFSET, balance);
+            LONGS.set(segment, offset + LOW_OFFSET, low);
+            LONGS.setRelease(segment, offset, high);
+        }
+
+        private Table grow() {
+            if (capacity == MAX_CAPACITY) {
+                throw new IllegalStateException("Off-heap balance table is full at " + capacity + " slots");
+            }
+            Table grown = new Table((int) capacity << 1);
+            for (long slot = 0; slot < capacity; slot++) {
+                long high = getHigh(slot);
+                if (high != 0) {
+                    grown.insert(high, getLow(slot), getBalance(slot));
+                }
+            }
+            return grown;
+        }
+
+        private long getHigh(long slot) {
+            return (long) LONGS.getAcquire(segment(slot), offset(slot));
+        }
+
+        private long getLow(long slot) {
+            return (long) LONGS.get(segment(slot), offset(slot) + LOW_OFFSET);
+        }
+
+        private long getBalance(long slot) {
+            return (long) LONGS.getVolatile(segment(slot), offset(slot) + BALANCE_OFFSET);
+        }
+
+        private void setBalance(long slot, long balance) {
+            LONGS.setVolatile(segment(slot), offset(slot) + BALANCE_OFFSET, balance);
+        }
+
+        private boolean compareAndSetBalance(long slot, long expected, long balance) {
+            return LONGS.compareAndSet(segment(slot), offset(slot) + BALANCE_OFFSET, expected, balance);
+        }
+
+        private ByteBuffer segment(long slot) {
+            return segments[(int) (slot >>> SEGMENT_SHIFT)];
+        }
+
+        private static int offset(long slot) {
+            return (int) (slot & SEGMENT_SLOTS - 1) * SLOT_BYTES;
+        }
+    }
+}
@@ -0,0 +1,379 @@
+package com.seven.tech.accounts.lock;
+
+import com.seven.tech.accounts.exception.AccountBusyException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Per-account locks shared by the services that serialize balance changes inside one JVM.
+ * <p>
+ * Accounts are hashed onto a fixed array of lock stripes, so the footprint does not grow with the number of
+ * accounts. Two accounts may share a stripe; that only costs some concurrency, never correctness, because a
+ * stripe is held for the whole operation and transfers take their stripes in stripe index order.
+ * <p>
+ * Waiting can be bounded with {@code accounts.lock.max-wait-millis}, and the callers holding or waiting for a stripe
+ * can be limited by an {@link AdmissionLimiter} with {@code accounts.lock.admission.max-limit}. A caller that is
+ * turned away or waits too long gets an {@link AccountBusyException} and holds no lock, so a hot account cannot
+ * tie up every request thread. Both are off by default.
+ */
+@Component
+public class AccountLocks {
+    public static final int DEFAULT_STRIPES = 4096;
+    private static final int HOT_ACCOUNTS_TRACKED = 64;
+    private static final long MIN_BACKOFF_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long MAX_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final ReentrantLock[] stripes;
+    private final AtomicReferenceArray<String> holders;
+    private final int mask;
+    private final LockAcquisition acquisition;
+    private final long maxWaitNanos;
+    private final AdmissionLimiter limiter;
+
+    private final LongAdder contendedAcquisitions = new LongAdder();
+    private final LongAdder stripeCollisions = new LongAdder();
+    private final LongAdder sharedStripeTransfers = new LongAdder();
+    private final LongAdder tryLockRetries = new LongAdder();
+    private final LongAdder rejectedAcquisitions = new LongAdder();
+    private final HotAccounts hotAccounts = new HotAccounts(HOT_ACCOUNTS_TRACKED);
+
+    public AccountLocks(LockAcquisition acquisition) {
+        this(acquisition, DEFAULT_STRIPES);
+    }
+
+    public AccountLocks(LockAcquisition acquisition, int stripeCount) {
+        this(acquisition, stripeCount, 0, 0, 0);
+    }
+
+    /**
+     * @param maxWaitMillis    longest wait for a lock, 0 for no limit
+     * @param maxLimit         most callers holding or waiting for one stripe, 0 for no limit
+     * @param targetWaitMillis lock wait above which the limit of a stripe is lowered
+     */
+    @Autowired
+    public AccountLocks(@Value("${accounts.lock.acquisition:ORDERED}") LockAcquisition acquisition,
+                        @Value("${accounts.lock.stripes:" + DEFAULT_STRIPES + "}") int stripeCount,
+                        @Value("${accounts.lock.max-wait-millis:0}") long maxWaitMillis,
+                        @Value("${accounts.lock.admission.max-limit:0}") int maxLimit,
+                        @Value("${accounts.lock.admission.target-wait-millis:20}") long targetWaitMillis) {
+        if (stripeCount <= 0 || Integer.bitCount(stripeCount) != 1) {
+            throw new IllegalArgumentException("accounts.lock.stripes must be a power of two: " + stripeCount);
+        }
+        this.acquisition = acquisition;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        this.limiter = maxLimit > 0
+                ? new AdmissionLimiter(stripeCount, maxLimit, TimeUnit.MILLISECONDS.toNanos(targetWaitMillis))
+                : null;
+        this.stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.holders = new AtomicReferenceArray<>(stripeCount);
+        this.mask = stripeCount - 1;
+    }
+
+    public void lock(String accountId) {
+        lockStripe(stripeOf(accountId), accountId);
+    }
+
+    public void unlock(String accountId) {
+        unlockStripe(stripeOf(accountId));
+    }
+
+    /**
+     * Takes the locks of both accounts. Accounts that share a stripe (including equal ids) take it once. If the
+     * second lock cannot be taken, the first is released before the {@link AccountBusyException} is thrown.
+     */
+    public void lock(String accountId, String otherAccountId) {
+        int stripe = stripeOf(accountId);
+        int otherStripe = stripeOf(otherAccountId);
+        if (stripe == otherStripe) {
+            if (!accountId.equals(otherAccountId)) {
+                sharedStripeTransfers.increment();
+            }
+            lockStripe(stripe, accountId);
+        } else if (acquisition == LockAcquisition.TRY_LOCK_BACKOFF) {
+            takeLocks(stripe, accountId, otherStripe, otherAccountId);
+        } else if (stripe < otherStripe) {
+            lockStripes(stripe, accountId, otherStripe, otherAccountId);
+        } else {
+            lockStripes(otherStripe, otherAccountId, stripe, accountId);
+        }
+    }
+
+    public void unlock(String accountId, String otherAccountId) {
+        int stripe = stripeOf(accountId);
+        int otherStripe = stripeOf(otherAccountId);
+        unlockStripe(stripe);
+        if (stripe != otherStripe) {
+            unlockStripe(otherStripe);
+        }
+    }
+
+    /**
+     * Takes the locks of all given accounts in stripe index order, each distinct stripe once. Meant for batches,
+     * so it always blocks in order regardless of {@link LockAcquisition}. Each stripe is taken on behalf of its first
+     * account in the collection, which is the account reported to the metrics and by the
+     * {@link AccountBusyException} if that stripe cannot be taken.
+     */
+    public void lock(Collection<String> accountIds) {
+        SortedMap<Integer, String> stripeAccounts = new TreeMap<>();
+        for (String accountId : accountIds) {
+            stripeAccounts.putIfAbsent(stripeOf(accountId), accountId);
+        }
+        List<Integer> locked = new ArrayList<>(stripeAccounts.size());
+        for (Map.Entry<Integer, String> stripe : stripeAccounts.entrySet()) {
+            try {
+                lockStripe(stripe.getKey(), stripe.getValue());
+            } catch (AccountBusyException e) {
+                for (int lockedStripe : locked) {
+                    unlockStripe(lockedStripe);
+                }
+                throw e;
+            }
+            locked.add(stripe.getKey());
+        }
+    }
+
+    public void unlock(Collection<String> accountIds) {
+        for (int stripe : stripesOf(accountIds)) {
+            unlockStripe(stripe);
+        }
+    }
+
+    public LockAcquisition getAcquisition() {
+        return acquisition;
+    }
+
+    /**
+     * Number of lock stripes. This is the whole size of the registry and never changes.
+     */
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    /**
+     * Number of stripes held at the moment of the call.
+     */
+    public int getLockedStripeCount() {
+        int locked = 0;
+        for (ReentrantLock stripe : stripes) {
+            if (stripe.isLocked()) {
+                locked++;
+            }
+        }
+        return locked;
+    }
+
+    /**
+     * Acquisitions that found their stripe held.
+     */
+    public long getContendedAcquisitions() {
+        return contendedAcquisitions.sum();
+    }
+
+    /**
+     * Contended acquisitions where the stripe was held for a different account, i.e. waits caused by hashing.
+     */
+    public long getStripeCollisions() {
+        return stripeCollisions.sum();
+    }
+
+    /**
+     * Transfers between two different accounts that hashed onto the same stripe.
+     */
+    public long getSharedStripeTransfers() {
+        return sharedStripeTransfers.sum();
+    }
+
+    /**
+     * Rounds of {@link LockAcquisition#TRY_LOCK_BACKOFF} that failed to get both stripes and backed off.
+     */
+    public long getTryLockRetries() {
+        return tryLockRetries.sum();
+    }
+
+    /**
+     * Acquisitions turned away by the admission limit or given up after the longest wait.
+     */
+    public long getRejectedAcquisitions() {
+        return rejectedAcquisitions.sum();
+    }
+
+    /**
+     * Current admission limit of the account's stripe, or 0 without a limiter.
+     */
+    public int getAdmissionLimit(String accountId) {
+        return limiter != null ? limiter.getLimit(stripeOf(accountId)) : 0;
+    }
+
+    /**
+     * The accounts that most often found their stripe held, most contended first.
+     */
+    public List<HotAccounts.HotAccount> getHotAccounts(int n) {
+        return hotAccounts.top(n);
+    }
+
+    int stripeOf(String accountId) {
+        int h = accountId.hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private int[] stripesOf(Collection<String> accountIds) {
+        int[] stripes = new int[accountIds.size()];
+        int i = 0;
+        for (String accountId : accountIds) {
+            stripes[i++] = stripeOf(accountId);
+        }
+        return Arrays.stream(stripes).sorted().distinct().toArray();
+    }
+
+    private void lockStripe(int stripe, String accountId) {
+        admit(stripe, accountId);
+        ReentrantLock lock = stripes[stripe];
+        long waitNanos = 0;
+        if (!lock.tryLock()) {
+            recordContention(stripe, accountId);
+            long start = System.nanoTime();
+            if (!await(lock)) {
+                reject(stripe, accountId);
+            }
+            waitNanos = System.nanoTime() - start;
+        }
+        if (limiter != null) {
+            limiter.onWait(stripe, waitNanos);
+        }
+        holders.lazySet(stripe, accountId);
+    }
+
+    private void lockStripes(int stripe, String accountId, int otherStripe, String otherAccountId) {
+        lockStripe(stripe, accountId);
+        try {
+            lockStripe(otherStripe, otherAccountId);
+        } catch (AccountBusyException e) {
+            unlockStripe(stripe);
+            throw e;
+        }
+    }
+
+    private boolean await(ReentrantLock lock) {
+        if (maxWaitNanos == 0) {
+            lock.lock();
+            return true;
+        }
+        try {
+            return lock.tryLock(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void admit(int stripe, String accountId) {
+        if (limiter != null && !limiter.tryAcquire(stripe)) {
+            rejectedAcquisitions.increment();
+            throw new AccountBusyException(accountId);
+        }
+    }
+
+    /**
+     * Gives up an admitted acquisition that did not get its lock.
+     */
+    private void reject(int stripe, String accountId) {
+        if (limiter != null) {
+            limiter.release(stripe);
+        }
+        rejectedAcquisitions.increment();
+        throw new AccountBusyException(accountId);
+    }
+
+    private boolean tryLockStripe(int stripe, String accountId) {
+        if (stripes[stripe].tryLock()) {
+            holders.lazySet(stripe, accountId);
+            return true;
+        }
+        recordContention(stripe, accountId);
+        return false;
+    }
+
+    private void unlockStripe(int stripe) {
+        stripes[stripe].unlock();
+        if (limiter != null) {
+            limiter.release(stripe);
+        }
+    }
+
+    private void recordContention(int stripe, String accountId) {
+        contendedAcquisitions.increment();
+        if (accountId != null) {
+            hotAccounts.record(accountId);
+        }
+        String holder = holders.get(stripe);
+        if (holder != null && !holder.equals(accountId)) {
+            stripeCollisions.increment();
+        }
+    }
+
+    /**
+     * Admission is taken for both stripes up front and kept across the rounds, so partial locks are released
+     * without releasing it. Between rounds the caller parks for a random time up to a doubling bound; an interrupt
+     * ends the wait with an {@link AccountBusyException} and leaves the interrupt flag set.
+     */
+    private void takeLocks(int stripe, String accountId, int otherStripe, String otherAccountId) {
+        admit(stripe, accountId);
+        try {
+            admit(otherStripe, otherAccountId);
+        } catch (AccountBusyException e) {
+            limiter.release(stripe);
+            throw e;
+        }
+        long start = System.nanoTime();
+        long backoffNanos = MIN_BACKOFF_NANOS;
+        boolean isAccountLock = false;
+        boolean isRecipientAccountLockLock = false;
+        while (true) {
+            try {
+                isAccountLock = tryLockStripe(stripe, accountId);
+                isRecipientAccountLockLock = tryLockStripe(otherStripe, otherAccountId);
+            } finally {
+                if (isAccountLock && isRecipientAccountLockLock) {
+                    if (limiter != null) {
+                        long waitNanos = System.nanoTime() - start;
+                        limiter.onWait(stripe, waitNanos);
+                        limiter.onWait(otherStripe, waitNanos);
+                    }
+                    return;
+                }
+                if (isAccountLock)
+                    stripes[stripe].unlock();
+                if (isRecipientAccountLockLock)
+                    stripes[otherStripe].unlock();
+            }
+            tryLockRetries.increment();
+            if (Thread.currentThread().isInterrupted()
+                    || maxWaitNanos > 0 && System.nanoTime() - start > maxWaitNanos) {
+                if (limiter != null) {
+                    limiter.release(otherStripe);
+                }
+                reject(stripe, accountId);
+            }
+            LockSupport.parkNanos(ThreadLocalRandom.current().nextLong(backoffNanos) + 1);
+            backoffNanos = Math.min(backoffNanos << 1, MAX_BACKOFF_NANOS);
+        }
+    }
+}
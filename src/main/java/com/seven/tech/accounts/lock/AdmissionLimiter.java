@@ -0,0 +1,61 @@
+package com.seven.tech.accounts.lock;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Per-stripe limit on the callers holding or waiting for a lock stripe, adapted by AIMD on the observed lock wait:
+ * every acquisition that waited longer than the target cuts the limit of its stripe by a tenth, every other one
+ * raises it by one, between 1 and the maximum. A hot account therefore ends up with a small queue of its own and
+ * the callers beyond it are turned away at once, while the limits of quiet stripes stay at the maximum.
+ */
+final class AdmissionLimiter {
+    private final AtomicIntegerArray limits;
+    private final AtomicIntegerArray inFlight;
+    private final int maxLimit;
+    private final long targetWaitNanos;
+
+    AdmissionLimiter(int stripeCount, int maxLimit, long targetWaitNanos) {
+        this.limits = new AtomicIntegerArray(stripeCount);
+        for (int i = 0; i < stripeCount; i++) {
+            limits.set(i, maxLimit);
+        }
+        this.inFlight = new AtomicIntegerArray(stripeCount);
+        this.maxLimit = maxLimit;
+        this.targetWaitNanos = targetWaitNanos;
+    }
+
+    /**
+     * Admits one more caller to the stripe unless its limit is reached. An admitted caller must {@link #release}.
+     */
+    boolean tryAcquire(int stripe) {
+        int limit = limits.get(stripe);
+        while (true) {
+            int current = inFlight.get(stripe);
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(stripe, current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    void release(int stripe) {
+        inFlight.decrementAndGet(stripe);
+    }
+
+    void onWait(int stripe, long waitNanos) {
+        while (true) {
+            int limit = limits.get(stripe);
+            int next = waitNanos > targetWaitNanos ? Math.max(1, limit - Math.max(1, limit / 10))
+                    : Math.min(maxLimit, limit + 1);
+            if (next == limit || limits.compareAndSet(stripe, limit, next)) {
+                return;
+            }
+        }
+    }
+
+    int getLimit(int stripe) {
+        return limits.get(stripe);
+    }
+}
@@ -0,0 +1,83 @@
+package com.seven.tech.accounts.lock;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-Saving sketch of the accounts whose lock is contended most often, in constant memory.
+ * <p>
+ * At most {@code capacity} accounts are tracked. An untracked account takes over the counter of the tracked one
+ * with the smallest count, and that count becomes its possible overestimate ({@link HotAccount#getError()}). Every
+ * account contended more than {@code total / capacity} times is guaranteed to be tracked.
+ */
+public class HotAccounts {
+    private final int capacity;
+    private final Map<String, HotAccount> tracked;
+
+    public HotAccounts(int capacity) {
+        this.capacity = capacity;
+        this.tracked = new HashMap<>(capacity * 2);
+    }
+
+    public synchronized void record(String accountId) {
+        HotAccount hotAccount = tracked.get(accountId);
+        if (hotAccount != null) {
+            hotAccount.count++;
+            return;
+        }
+        if (tracked.size() < capacity) {
+            tracked.put(accountId, new HotAccount(accountId, 1, 0));
+            return;
+        }
+        HotAccount coldest = null;
+        for (HotAccount candidate : tracked.values()) {
+            if (coldest == null || candidate.count < coldest.count) {
+                coldest = candidate;
+            }
+        }
+        tracked.remove(coldest.accountId);
+        tracked.put(accountId, new HotAccount(accountId, coldest.count + 1, coldest.count));
+    }
+
+    /**
+     * The {@code n} most contended accounts, most contended first.
+     */
+    public synchronized List<HotAccount> top(int n) {
+        List<HotAccount> top = new ArrayList<>(tracked.size());
+        for (HotAccount hotAccount : tracked.values()) {
+            top.add(new HotAccount(hotAccount.accountId, hotAccount.count, hotAccount.error));
+        }
+        top.sort(Comparator.comparingLong(HotAccount::getCount).reversed());
+        return top.size() > n ? top.subList(0, n) : top;
+    }
+
+    public static final class HotAccount {
+        private final String accountId;
+        private long count;
+        private final long error;
+
+        private HotAccount(String accountId, long count, long error) {
+            this.accountId = accountId;
+            this.count = count;
+            this.error = error;
+        }
+
+        public String getAccountId() {
+            return accountId;
+        }
+
+        /**
+         * Contended acquisitions counted for the account, overestimated by at most {@link #getError()}.
+         */
+        public long getCount() {
+            return count;
+        }
+
+        public long getError() {
+            return error;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.seven.tech.accounts.lock;
+
+/**
+ * How {@link AccountLocks} takes the two locks of a transfer.
+ */
+public enum LockAcquisition {
+    /**
+     * Blocking acquisition of the two lock stripes in stripe index order. Deadlock-free because every caller follows
+     * the same total order.
+     */
+    ORDERED,
+    /**
+     * Legacy mode: tries both lock stripes, releases on partial success and parks for a random time before the next
+     * attempt, below a bound that starts at 50 microseconds and doubles with every attempt up to 1 ms.
+     */
+    TRY_LOCK_BACKOFF
+}
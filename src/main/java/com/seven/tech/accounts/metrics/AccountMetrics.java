@@ -0,0 +1,86 @@
+package com.seven.tech.accounts.metrics;
+
+import com.seven.tech.accounts.cache.BalanceCache;
+import com.seven.tech.accounts.idempotency.IdempotencyStore;
+import com.seven.tech.accounts.lock.AccountLocks;
+import com.seven.tech.accounts.lock.HotAccounts;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Publishes the counters the lock registry and the balance cache keep anyway, so scraping costs nothing on the
+ * request path. The contention of the hottest accounts is published per rank; the account ids behind the ranks
+ * are served by {@link HotAccountsEndpoint}.
+ */
+@Component
+public class AccountMetrics implements MeterBinder {
+    private final AccountLocks accountLocks;
+    private final BalanceCache balanceCache;
+    private final IdempotencyStore idempotencyStore;
+    private final int hotAccounts;
+
+    public AccountMetrics(AccountLocks accountLocks, BalanceCache balanceCache, IdempotencyStore idempotencyStore,
+                          @Value("${accounts.metrics.hot-accounts:10}") int hotAccounts) {
+        this.accountLocks = accountLocks;
+        this.balanceCache = balanceCache;
+        this.idempotencyStore = idempotencyStore;
+        this.hotAccounts = hotAccounts;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("accounts.lock.stripes", accountLocks, AccountLocks::getStripeCount)
+                .description("Lock stripes in the registry")
+                .register(registry);
+        Gauge.builder("accounts.lock.stripes.locked", accountLocks, AccountLocks::getLockedStripeCount)
+                .description("Lock stripes held at scrape time")
+                .register(registry);
+        FunctionCounter.builder("accounts.lock.contended", accountLocks, AccountLocks::getContendedAcquisitions)
+                .description("Lock acquisitions that found their stripe held")
+                .register(registry);
+        FunctionCounter.builder("accounts.lock.collisions", accountLocks, AccountLocks::getStripeCollisions)
+                .description("Contended acquisitions where the stripe was held for another account")
+                .register(registry);
+        FunctionCounter.builder("accounts.lock.retries", accountLocks, AccountLocks::getTryLockRetries)
+                .description("Backoff rounds of the try-lock acquisition")
+                .register(registry);
+        FunctionCounter.builder("accounts.lock.rejected", accountLocks, AccountLocks::getRejectedAcquisitions)
+                .description("Lock acquisitions turned away by the admission limit or the longest wait")
+                .register(registry);
+        for (int rank = 1; rank <= hotAccounts; rank++) {
+            int index = rank - 1;
+            Gauge.builder("accounts.lock.hot.contended", accountLocks, locks -> hotAccountCount(locks, index))
+                    .description("Contended acquisitions of the hottest accounts by rank")
+                    .tag("rank", String.valueOf(rank))
+                    .register(registry);
+        }
+
+        FunctionCounter.builder("accounts.balance.cache.hits", balanceCache, BalanceCache::getHits)
+                .register(registry);
+        FunctionCounter.builder("accounts.balance.cache.misses", balanceCache, BalanceCache::getMisses)
+                .register(registry);
+        FunctionCounter.builder("accounts.balance.cache.evictions", balanceCache, BalanceCache::getEvictions)
+                .register(registry);
+        Gauge.builder("accounts.balance.cache.size", balanceCache, BalanceCache::getSize)
+                .register(registry);
+
+        FunctionCounter.builder("accounts.idempotency.replays", idempotencyStore, IdempotencyStore::getReplays)
+                .description("Requests answered with the stored response of an earlier request with the same key")
+                .register(registry);
+        FunctionCounter.builder("accounts.idempotency.evictions", idempotencyStore, IdempotencyStore::getEvictions)
+                .register(registry);
+        Gauge.builder("accounts.idempotency.size", idempotencyStore, IdempotencyStore::getSize)
+                .register(registry);
+    }
+
+    private double hotAccountCount(AccountLocks locks, int index) {
+        List<HotAccounts.HotAccount> top = locks.getHotAccounts(index + 1);
+        return top.size() > index ? top.get(index).getCount() : 0;
+    }
+}
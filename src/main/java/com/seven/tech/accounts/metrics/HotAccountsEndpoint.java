@@ -0,0 +1,31 @@
+package com.seven.tech.accounts.metrics;
+
+import com.seven.tech.accounts.lock.AccountLocks;
+import com.seven.tech.accounts.lock.HotAccounts;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * {@code /actuator/hotaccounts}: the accounts whose lock is contended most often. Kept out of the metrics because
+ * account ids as tags would grow the number of series without bound.
+ */
+@Component
+@Endpoint(id = "hotaccounts")
+public class HotAccountsEndpoint {
+    private final AccountLocks accountLocks;
+    private final int hotAccounts;
+
+    public HotAccountsEndpoint(AccountLocks accountLocks, @Value("${accounts.metrics.hot-accounts:10}") int hotAccounts) {
+        this.accountLocks = accountLocks;
+        this.hotAccounts = hotAccounts;
+    }
+
+    @ReadOperation
+    public List<HotAccounts.HotAccount> hotAccounts() {
+        return accountLocks.getHotAccounts(hotAccounts);
+    }
+}
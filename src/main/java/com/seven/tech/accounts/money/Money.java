@@ -0,0 +1,57 @@
+package com.seven.tech.accounts.money;
+
+import com.seven.tech.accounts.exception.AccountBalanceOverflowException;
+import com.seven.tech.accounts.exception.InvalidMoneyException;
+
+import java.math.BigDecimal;
+
+/**
+ * Money inside the service is a {@code long} of minor units with the fixed scale {@link #SCALE}, so balance updates
+ * neither allocate nor round. {@link BigDecimal} only appears at the JSON boundary, through
+ * {@link #toMinorUnits(BigDecimal)} and {@link #toMoney(long)}.
+ */
+public final class Money {
+    public static final int SCALE = 2;
+
+    private Money() {}
+
+    /**
+     * Rejects amounts with more than {@link #SCALE} fraction digits instead of rounding them, amounts that do not
+     * fit into a {@code long} of minor units, and amounts that are not positive: a negative one would move money
+     * the other way, so every amount the service works with is above zero.
+     */
+    public static long toMinorUnits(BigDecimal money) {
+        if (money == null) {
+            throw new InvalidMoneyException("Money is required");
+        }
+        if (money.signum() <= 0) {
+            throw new InvalidMoneyException("Money must be positive: " + money.toPlainString());
+        }
+        try {
+            return money.setScale(SCALE).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new InvalidMoneyException("Money must have at most " + SCALE
+                    + " fraction digits and fit into a balance: " + money.toPlainString());
+        }
+    }
+
+    public static BigDecimal toMoney(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    public static long credit(String accountId, long balance, long money) {
+        long result = balance + money;
+        if (((balance ^ result) & (money ^ result)) < 0) {
+            throw new AccountBalanceOverflowException(accountId);
+        }
+        return result;
+    }
+
+    public static long debit(String accountId, long balance, long money) {
+        long result = balance - money;
+        if (((balance ^ money) & (balance ^ result)) < 0) {
+            throw new AccountBalanceOverflowException(accountId);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,29 @@
+package com.seven.tech.accounts.repository;
+
+import com.seven.tech.accounts.entity.AccountOperationEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.QueryHint;
+import java.util.List;
+
+public interface AccountOperationRepository extends JpaRepository<AccountOperationEntity, Long> {
+
+    /**
+     * Newest operations of the account older than {@code before}, read through the (account_id, id) index. Keyset
+     * paging: a page costs the same however deep into the history it starts, and no count query is run.
+     */
+    @QueryHints(@QueryHint(name = "org.hibernate.readOnly", value = "true"))
+    @Query("select o from AccountOperationEntity o where o.accountId = :accountId and o.id < :before order by o.id desc")
+    List<AccountOperationEntity> findPage(@Param("accountId") String accountId, @Param("before") long before,
+                                          Pageable pageable);
+
+    /**
+     * Deposits minus withdrawals, the operations without a counterparty. Null without any.
+     */
+    @Query("select sum(o.amount) from AccountOperationEntity o where o.counterpartyId is null")
+    Long sumExternalAmounts();
+}
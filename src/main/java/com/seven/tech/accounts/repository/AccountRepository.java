@@ -2,5 +2,68 @@ package com.seven.tech.accounts.repository;
 
 import com.seven.tech.accounts.entity.AccountEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
-public interface AccountRepository extends JpaRepository<AccountEntity, String> {}
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface AccountRepository extends JpaRepository<AccountEntity, String> {
+
+    /**
+     * Locks the accounts in id order with a single {@code SELECT ... FOR UPDATE}. They are loaded read-only, so the
+     * session keeps no snapshots of them to dirty-check.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "org.hibernate.readOnly", value = "true"))
+    @Query("select a from AccountEntity a where a.id in :ids order by a.id")
+    List<AccountEntity> findAllForUpdate(@Param("ids") Collection<String> ids);
+
+    /**
+     * Same locks as {@link #findAllForUpdate(Collection)}, for accounts that are then changed through the entities.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a from AccountEntity a where a.id in :ids order by a.id")
+    List<AccountEntity> findAllForWrite(@Param("ids") Collection<String> ids);
+
+    /**
+     * Every account as an {@code [id, balance]} row, fetched 1000 rows at a time. Rows are not entities, so the
+     * persistence context stays empty however long the stream is. Has to be closed, in a transaction.
+     */
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    @Query("select a.id, a.balance from AccountEntity a")
+    Stream<Object[]> streamBalances();
+
+    /**
+     * Moves money between two different accounts in one statement, without any guard: the caller has locked and
+     * checked both rows.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update AccountEntity a set a.balance = a.balance + case when a.id = :id then :debit else :money end, " +
+            "a.version = a.version + 1 where a.id in (:id, :recipientId)")
+    int transferMoney(@Param("id") String id, @Param("recipientId") String recipientId, @Param("money") long money,
+                      @Param("debit") long debit);
+
+    /**
+     * Debits the account only if it holds enough money. Returns 0 when the account is missing or the guard fails.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update AccountEntity a set a.balance = a.balance - :money, a.version = a.version + 1 " +
+            "where a.id = :id and a.balance >= :money")
+    int reduceBalance(@Param("id") String id, @Param("money") long money);
+
+    /**
+     * Credits the account only if its balance does not exceed {@code limit}, the largest balance the credit cannot
+     * overflow. Returns 0 when the account is missing or the guard fails.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update AccountEntity a set a.balance = a.balance + :money, a.version = a.version + 1 " +
+            "where a.id = :id and a.balance <= :limit")
+    int increaseBalance(@Param("id") String id, @Param("money") long money, @Param("limit") long limit);
+}
@@ -0,0 +1,31 @@
+package com.seven.tech.accounts.repository;
+
+import com.seven.tech.accounts.entity.AccountOperationEntity;
+import com.seven.tech.accounts.entity.BalanceEventEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+
+public interface BalanceEventRepository extends JpaRepository<BalanceEventEntity, Long> {
+
+    /**
+     * The operations of the oldest unpublished events, oldest first.
+     */
+    @QueryHints(@QueryHint(name = "org.hibernate.readOnly", value = "true"))
+    @Query("select o from AccountOperationEntity o, BalanceEventEntity e where o.id = e.operationId " +
+            "order by e.operationId")
+    List<AccountOperationEntity> findPending(Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("delete from BalanceEventEntity e where e.operationId in :operationIds")
+    int deletePublished(@Param("operationIds") Collection<Long> operationIds);
+}
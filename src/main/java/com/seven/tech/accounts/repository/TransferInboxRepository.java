@@ -0,0 +1,7 @@
+package com.seven.tech.accounts.repository;
+
+import com.seven.tech.accounts.entity.TransferInboxEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface TransferInboxRepository extends JpaRepository<TransferInboxEntity, String> {
+}
@@ -0,0 +1,28 @@
+package com.seven.tech.accounts.repository;
+
+import com.seven.tech.accounts.entity.TransferOutboxEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface TransferOutboxRepository extends JpaRepository<TransferOutboxEntity, String> {
+
+    List<TransferOutboxEntity> findByStatusAndCreatedAtBeforeOrderByCreatedAt(TransferOutboxEntity.Status status,
+                                                                               Instant createdBefore, Pageable pageable);
+
+    List<TransferOutboxEntity> findByStatus(TransferOutboxEntity.Status status);
+
+    /**
+     * Moves a transfer from {@code from} to its final status. Returns 0 if it was finished already, by another
+     * delivery.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update TransferOutboxEntity t set t.status = :status where t.id = :id and t.status = :from")
+    int finish(@Param("id") String id, @Param("from") TransferOutboxEntity.Status from,
+               @Param("status") TransferOutboxEntity.Status status);
+}
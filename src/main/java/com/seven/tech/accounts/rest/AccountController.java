@@ -1,49 +1,104 @@
 package com.seven.tech.accounts.rest;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.seven.tech.accounts.BaseResult;
+import com.seven.tech.accounts.idempotency.IdempotencyStore;
 import com.seven.tech.accounts.json.MoneyJson;
+import com.seven.tech.accounts.json.TransferBatchJson;
+import com.seven.tech.accounts.money.Money;
 import com.seven.tech.accounts.service.AccountService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.List;
 
 @RestController
 @CrossOrigin
 @RequestMapping(value = "/account")
+@Profile("!async")
 public class AccountController {
 
 	private transient AccountService accountService;
+	private transient ObjectMapper objectMapper;
+	private transient IdempotencyStore idempotencyStore;
 
 	@PostMapping("/{accountId}/increaseBalance")
-	public BaseResult<MoneyJson> increaseBalance(@PathVariable("accountId") String accountId, @RequestBody MoneyJson value) {
-		return new BaseResult(new MoneyJson(accountService.increaseBalance(accountId, value.getMoney())));
+	public BaseResult<MoneyJson> increaseBalance(@PathVariable("accountId") String accountId,
+												 @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
+												 @RequestBody MoneyJson value) {
+		long money = Money.toMinorUnits(value.getMoney());
+		return idempotencyStore.execute(idempotencyKey, () -> RequestFingerprint.of("increaseBalance", accountId, money), () ->
+				new BaseResult<>(new MoneyJson(Money.toMoney(accountService.increaseBalance(accountId, money)))));
 	}
 
 	@PostMapping("/{accountId}/reduceBalance")
-	public BaseResult<MoneyJson> reduceBalance(@PathVariable("accountId") String accountId, @RequestBody MoneyJson value) {
-		return new BaseResult<>(new MoneyJson(accountService.reduceBalance(accountId, value.getMoney())));
+	public BaseResult<MoneyJson> reduceBalance(@PathVariable("accountId") String accountId,
+											   @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
+											   @RequestBody MoneyJson value) {
+		long money = Money.toMinorUnits(value.getMoney());
+		return idempotencyStore.execute(idempotencyKey, () -> RequestFingerprint.of("reduceBalance", accountId, money), () ->
+				new BaseResult<>(new MoneyJson(Money.toMoney(accountService.reduceBalance(accountId, money)))));
 	}
 
 	@PostMapping("/{accountId}/transferMoney/{recipientAccountId}")
 	public BaseResult<Boolean> transferMoney(@PathVariable("accountId") String accountId,
 									@PathVariable("recipientAccountId") String recipientAccountId,
+									@RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
 									@RequestBody MoneyJson value) {
-		return new BaseResult<>(accountService.transferMoney(accountId, recipientAccountId, value.getMoney()));
+		long money = Money.toMinorUnits(value.getMoney());
+		return idempotencyStore.execute(idempotencyKey,
+				() -> RequestFingerprint.of("transferMoney", accountId, recipientAccountId, money), () ->
+						new BaseResult<>(accountService.transferMoney(accountId, recipientAccountId, money)));
+	}
+
+	@PostMapping("/transfers/batch")
+	public BaseResult<List<BaseResult<Boolean>>> transferMoneyBatch(
+			@RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
+			@RequestBody TransferBatchJson batch) {
+		return idempotencyStore.execute(idempotencyKey, () -> RequestFingerprint.of(batch), () ->
+				new BaseResult<>(accountService.transferMoneyBatch(batch.getTransfers(), batch.isAtomic())));
 	}
 
 	@GetMapping("/{accountId}/getBalance")
 	public BaseResult<MoneyJson> getBalance(@PathVariable("accountId") String accountId) {
-		return new BaseResult(new MoneyJson(accountService.getBalance(accountId)));
+		return new BaseResult(new MoneyJson(Money.toMoney(accountService.getBalance(accountId))));
+	}
+
+	/**
+	 * Operations newest first, {@code limit} at most, older than the {@code before} cursor taken from the
+	 * {@code next} field of the previous page.
+	 */
+	@GetMapping("/{accountId}/history")
+	public ResponseEntity<StreamingResponseBody> history(@PathVariable("accountId") String accountId,
+														 @RequestParam(value = "before", required = false) Long before,
+														 @RequestParam(value = "limit", defaultValue = HistoryResponse.DEFAULT_LIMIT) long limit) {
+		return HistoryResponse.stream(accountService, objectMapper, accountId, before, limit);
 	}
 
 	@PostMapping("/createAccount")
-	public BaseResult<String> createAccount() {
-		return new BaseResult<>(accountService.createAccount());
+	public BaseResult<String> createAccount(
+			@RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+		return idempotencyStore.execute(idempotencyKey, () -> RequestFingerprint.of("createAccount"), () ->
+				new BaseResult<>(accountService.createAccount()));
+	}
+
+	/**
+	 * Creates {@code count} accounts and streams their ids. Not idempotent: a retry creates another {@code count}.
+	 */
+	@PostMapping("/createAccounts")
+	public ResponseEntity<StreamingResponseBody> createAccounts(@RequestParam("count") long count) {
+		return CreatedAccountsResponse.stream(accountService, objectMapper, count);
 	}
 
 	@Autowired
@@ -51,4 +106,14 @@ public class AccountController {
 		this.accountService = accountService;
 	}
 
+	@Autowired
+	public void setObjectMapper(ObjectMapper objectMapper) {
+		this.objectMapper = objectMapper;
+	}
+
+	@Autowired
+	public void setIdempotencyStore(IdempotencyStore idempotencyStore) {
+		this.idempotencyStore = idempotencyStore;
+	}
+
 }
@@ -0,0 +1,135 @@
+package com.seven.tech.accounts.rest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.seven.tech.accounts.BaseResult;
+import com.seven.tech.accounts.idempotency.IdempotencyStore;
+import com.seven.tech.accounts.async.AccountExecutor;
+import com.seven.tech.accounts.json.MoneyJson;
+import com.seven.tech.accounts.json.TransferBatchJson;
+import com.seven.tech.accounts.money.Money;
+import com.seven.tech.accounts.service.AccountService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * {@link AccountController} for the {@code async} profile: balance changes are handed to the {@link AccountExecutor}
+ * and the servlet thread is released until they complete, so request concurrency no longer depends on the size of
+ * the Tomcat thread pool. Reads and batches still run on the servlet thread.
+ */
+@RestController
+@CrossOrigin
+@RequestMapping(value = "/account")
+@Profile("async")
+public class AsyncAccountController {
+
+	private transient AccountService accountService;
+	private transient ObjectMapper objectMapper;
+	private transient IdempotencyStore idempotencyStore;
+	private transient AccountExecutor accountExecutor;
+
+	@PostMapping("/{accountId}/increaseBalance")
+	public CompletableFuture<BaseResult<MoneyJson>> increaseBalance(@PathVariable("accountId") String accountId,
+																	@RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
+																	@RequestBody MoneyJson value) {
+		long money = Money.toMinorUnits(value.getMoney());
+		return idempotencyStore.submit(idempotencyKey, () -> RequestFingerprint.of("increaseBalance", accountId, money), () ->
+				accountExecutor.submit(accountId, () ->
+						new BaseResult<>(new MoneyJson(Money.toMoney(accountService.increaseBalance(accountId, money))))));
+	}
+
+	@PostMapping("/{accountId}/reduceBalance")
+	public CompletableFuture<BaseResult<MoneyJson>> reduceBalance(@PathVariable("accountId") String accountId,
+																  @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
+																  @RequestBody MoneyJson value) {
+		long money = Money.toMinorUnits(value.getMoney());
+		return idempotencyStore.submit(idempotencyKey, () -> RequestFingerprint.of("reduceBalance", accountId, money), () ->
+				accountExecutor.submit(accountId, () ->
+						new BaseResult<>(new MoneyJson(Money.toMoney(accountService.reduceBalance(accountId, money))))));
+	}
+
+	@PostMapping("/{accountId}/transferMoney/{recipientAccountId}")
+	public CompletableFuture<BaseResult<Boolean>> transferMoney(@PathVariable("accountId") String accountId,
+																@PathVariable("recipientAccountId") String recipientAccountId,
+																@RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
+																@RequestBody MoneyJson value) {
+		long money = Money.toMinorUnits(value.getMoney());
+		return idempotencyStore.submit(idempotencyKey,
+				() -> RequestFingerprint.of("transferMoney", accountId, recipientAccountId, money), () ->
+						accountExecutor.submit(accountId, () ->
+								new BaseResult<>(accountService.transferMoney(accountId, recipientAccountId, money))));
+	}
+
+	@PostMapping("/transfers/batch")
+	public BaseResult<List<BaseResult<Boolean>>> transferMoneyBatch(
+			@RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
+			@RequestBody TransferBatchJson batch) {
+		return idempotencyStore.execute(idempotencyKey, () -> RequestFingerprint.of(batch), () ->
+				new BaseResult<>(accountService.transferMoneyBatch(batch.getTransfers(), batch.isAtomic())));
+	}
+
+	@GetMapping("/{accountId}/getBalance")
+	public BaseResult<MoneyJson> getBalance(@PathVariable("accountId") String accountId) {
+		return new BaseResult<>(new MoneyJson(Money.toMoney(accountService.getBalance(accountId))));
+	}
+
+	/**
+	 * Operations newest first, {@code limit} at most, older than the {@code before} cursor taken from the
+	 * {@code next} field of the previous page.
+	 */
+	@GetMapping("/{accountId}/history")
+	public ResponseEntity<StreamingResponseBody> history(@PathVariable("accountId") String accountId,
+														 @RequestParam(value = "before", required = false) Long before,
+														 @RequestParam(value = "limit", defaultValue = HistoryResponse.DEFAULT_LIMIT) long limit) {
+		return HistoryResponse.stream(accountService, objectMapper, accountId, before, limit);
+	}
+
+	@PostMapping("/createAccount")
+	public BaseResult<String> createAccount(
+			@RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+		return idempotencyStore.execute(idempotencyKey, () -> RequestFingerprint.of("createAccount"), () ->
+				new BaseResult<>(accountService.createAccount()));
+	}
+
+	/**
+	 * Creates {@code count} accounts and streams their ids. Not idempotent: a retry creates another {@code count}.
+	 */
+	@PostMapping("/createAccounts")
+	public ResponseEntity<StreamingResponseBody> createAccounts(@RequestParam("count") long count) {
+		return CreatedAccountsResponse.stream(accountService, objectMapper, count);
+	}
+
+	@Autowired
+	public void setAccountService(AccountService accountService) {
+		this.accountService = accountService;
+	}
+
+	@Autowired
+	public void setObjectMapper(ObjectMapper objectMapper) {
+		this.objectMapper = objectMapper;
+	}
+
+	@Autowired
+	public void setIdempotencyStore(IdempotencyStore idempotencyStore) {
+		this.idempotencyStore = idempotencyStore;
+	}
+
+	@Autowired
+	public void setAccountExecutor(AccountExecutor accountExecutor) {
+		this.accountExecutor = accountExecutor;
+	}
+
+}
@@ -0,0 +1,43 @@
+package com.seven.tech.accounts.rest;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.seven.tech.accounts.service.AccountService;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Writes the ids of newly created accounts as a {@link com.seven.tech.accounts.BaseResult} of a list, each id as soon
+ * as its chunk is committed. The count is checked before the response starts; a failure while streaming truncates
+ * the body, and the accounts already listed stay created.
+ */
+final class CreatedAccountsResponse {
+
+	private CreatedAccountsResponse() {}
+
+	static ResponseEntity<StreamingResponseBody> stream(AccountService accountService, ObjectMapper objectMapper,
+														long count) {
+		accountService.checkAccountCount(count);
+		StreamingResponseBody body = outputStream -> {
+			try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+				generator.writeStartObject();
+				generator.writeBooleanField("success", true);
+				generator.writeArrayFieldStart("result");
+				accountService.createAccounts((int) count, accountId -> {
+					try {
+						generator.writeString(accountId);
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+				generator.writeEndArray();
+				generator.writeEndObject();
+			}
+		};
+		return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+	}
+}
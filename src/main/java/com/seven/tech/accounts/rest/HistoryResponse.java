@@ -0,0 +1,52 @@
+package com.seven.tech.accounts.rest;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.seven.tech.accounts.json.OperationJson;
+import com.seven.tech.accounts.money.Money;
+import com.seven.tech.accounts.service.AccountService;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Writes an account history page as a {@link com.seven.tech.accounts.BaseResult} of
+ * {@code {"operations": [...], "next": id}}, one operation at a time, so a page of any size is served with constant
+ * memory. The account is checked before the response starts; a failure while streaming truncates the body.
+ */
+final class HistoryResponse {
+	static final String DEFAULT_LIMIT = "100";
+
+	private HistoryResponse() {}
+
+	static ResponseEntity<StreamingResponseBody> stream(AccountService accountService, ObjectMapper objectMapper,
+														String accountId, Long before, long limit) {
+		accountService.checkHistory(accountId);
+		StreamingResponseBody body = outputStream -> {
+			try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+				generator.writeStartObject();
+				generator.writeBooleanField("success", true);
+				generator.writeObjectFieldStart("result");
+				generator.writeArrayFieldStart("operations");
+				Long next = accountService.readHistory(accountId, before == null ? Long.MAX_VALUE : before, limit,
+						operation -> {
+							try {
+								generator.writeObject(new OperationJson(operation.getId(), operation.getCounterpartyId(),
+										Money.toMoney(operation.getAmount()), Money.toMoney(operation.getBalance()),
+										operation.getCreatedAt()));
+							} catch (IOException e) {
+								throw new UncheckedIOException(e);
+							}
+						});
+				generator.writeEndArray();
+				generator.writeObjectField("next", next);
+				generator.writeEndObject();
+				generator.writeEndObject();
+			}
+		};
+		return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+	}
+}
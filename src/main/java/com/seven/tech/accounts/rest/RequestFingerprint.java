@@ -0,0 +1,73 @@
+package com.seven.tech.accounts.rest;
+
+import com.seven.tech.accounts.json.TransferBatchJson;
+import com.seven.tech.accounts.json.TransferJson;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Identifies a mutating request for the {@link com.seven.tech.accounts.idempotency.IdempotencyStore}, so that a key
+ * reused for a different request is rejected instead of answered with the wrong response.
+ */
+final class RequestFingerprint {
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+	private RequestFingerprint() {}
+
+	static String of(String operation, Object... parts) {
+		StringBuilder fingerprint = new StringBuilder(operation);
+		for (Object part : parts) {
+			fingerprint.append('/').append(part);
+		}
+		return fingerprint.toString();
+	}
+
+	/**
+	 * A batch can be large, so it is reduced to its size and a SHA-256 digest of its transfers. The amounts go in as
+	 * sent: they are validated per transfer when the batch runs, not here.
+	 */
+	static String of(TransferBatchJson batch) {
+		MessageDigest digest = sha256();
+		for (TransferJson transfer : batch.getTransfers()) {
+			update(digest, transfer.getAccountId());
+			update(digest, transfer.getRecipientAccountId());
+			BigDecimal money = transfer.getMoney();
+			update(digest, money == null ? null : money.toPlainString());
+		}
+		return of("transfers/batch", batch.isAtomic(), batch.getTransfers().size(), toHex(digest.digest()));
+	}
+
+	/**
+	 * Each value is prefixed with its length, so no two different sequences of values hash the same bytes.
+	 */
+	private static void update(MessageDigest digest, String value) {
+		if (value == null) {
+			digest.update((byte) '-');
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		digest.update(Integer.toString(bytes.length).getBytes(StandardCharsets.US_ASCII));
+		digest.update((byte) ':');
+		digest.update(bytes);
+	}
+
+	private static MessageDigest sha256() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	}
+
+	private static String toHex(byte[] bytes) {
+		char[] hex = new char[bytes.length * 2];
+		for (int i = 0; i < bytes.length; i++) {
+			hex[2 * i] = HEX_DIGITS[(bytes[i] >> 4) & 0xF];
+			hex[2 * i + 1] = HEX_DIGITS[bytes[i] & 0xF];
+		}
+		return new String(hex);
+	}
+}
@@ -1,72 +1,503 @@
 package com.seven.tech.accounts.service;
 
+import com.seven.tech.accounts.BaseResult;
+import com.seven.tech.accounts.audit.BalanceSheet;
+import com.seven.tech.accounts.cache.BalanceCache;
 import com.seven.tech.accounts.entity.AccountEntity;
+import com.seven.tech.accounts.entity.AccountOperationEntity;
+import com.seven.tech.accounts.event.BalanceEventOutbox;
+import com.seven.tech.accounts.exception.AccountBalanceOverflowException;
 import com.seven.tech.accounts.exception.AccountEntityNotFoundException;
 import com.seven.tech.accounts.exception.AccountNotEnoughMoneyException;
+import com.seven.tech.accounts.exception.BaseAccountException;
+import com.seven.tech.accounts.exception.InvalidAccountCountException;
+import com.seven.tech.accounts.exception.TransferBatchRolledBackException;
+import com.seven.tech.accounts.id.AccountIdFormat;
+import com.seven.tech.accounts.json.TransferJson;
+import com.seven.tech.accounts.money.Money;
+import com.seven.tech.accounts.repository.AccountOperationRepository;
 import com.seven.tech.accounts.repository.AccountRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.math.BigDecimal;
-import java.util.UUID;
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceContext;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 
 public class AccountService {
+    public static final int MAX_CREATE_COUNT = 1000000;
+    private static final int CREATE_CHUNK_SIZE = 1000;
+    private static final int PRELOAD_CHUNK_SIZE = 1000;
+    private static final int HISTORY_PAGE_SIZE = 500;
+
    protected transient AccountRepository repository;
+    protected transient AccountOperationRepository operationRepository;
+    protected transient BalanceCache balanceCache = new BalanceCache(0);
+    protected transient BalanceEventOutbox eventOutbox = BalanceEventOutbox.DISABLED;
+    protected transient AccountIdFormat accountIdFormat = AccountIdFormat.STRING;
+    protected transient EntityManager entityManager;
+    protected transient TransactionTemplate auditTransaction;
+    /**
+     * How accounts are locked in the database when loaded to be changed through the entity. NONE as long as every
+     * such change holds the JVM lock of the account; writes that take no JVM lock need the rows locked instead.
+     */
+    protected transient LockModeType writeLockMode = LockModeType.NONE;
 
     public String createAccount() {
-        AccountEntity account = new AccountEntity();
-        account.setId(UUID.randomUUID().toString());
-        account.setBalance(BigDecimal.ZERO);
+        return insertAccount(newAccountId());
+    }
+
+    /**
+     * Fails before anything is created if the count is out of range, so the caller can still report the error
+     * instead of a truncated stream.
+     */
+    public void checkAccountCount(long count) {
+        if (count < 1 || count > MAX_CREATE_COUNT) {
+            throw new InvalidAccountCountException(count, MAX_CREATE_COUNT);
+        }
+    }
+
+    /**
+     * Creates {@code count} accounts and passes each id to the consumer once it is committed. The accounts are
+     * inserted in chunks, one transaction each, flushed as JDBC batches of {@code hibernate.jdbc.batch_size} rows
+     * and then dropped from the persistence context, so memory does not grow with the count. A failure keeps the
+     * chunks already committed.
+     */
+    public void createAccounts(int count, Consumer<String> consumer) {
+        checkAccountCount(count);
+        List<AccountEntity> chunk = new ArrayList<>(Math.min(count, CREATE_CHUNK_SIZE));
+        for (int created = 0; created < count; created += chunk.size()) {
+            chunk.clear();
+            for (int i = Math.min(CREATE_CHUNK_SIZE, count - created); i > 0; i--) {
+                chunk.add(newAccount(newAccountId()));
+            }
+            insertAccounts(chunk);
+            for (AccountEntity account : chunk) {
+                consumer.accept(account.getId());
+            }
+        }
+    }
+
+    protected String newAccountId() {
+        return accountIdFormat.newId();
+    }
+
+    protected String insertAccount(String accountId) {
+        AccountEntity account = newAccount(accountId);
         repository.save(account);
 
         return account.getId();
     }
 
+    protected void insertAccounts(List<AccountEntity> accounts) {
+        repository.saveAll(accounts);
+        if (entityManager != null) {
+            entityManager.clear();
+        }
+    }
+
     @Autowired
     public void setRepository(AccountRepository repository) {
         this.repository = repository;
     }
 
+    @Autowired
+    public void setOperationRepository(AccountOperationRepository operationRepository) {
+        this.operationRepository = operationRepository;
+    }
+
+    @Autowired
+    public void setBalanceCache(BalanceCache balanceCache) {
+        this.balanceCache = balanceCache;
+    }
+
+    @Autowired
+    public void setEventOutbox(BalanceEventOutbox eventOutbox) {
+        this.eventOutbox = eventOutbox;
+    }
+
+    @Autowired
+    public void setAccountIdFormat(AccountIdFormat accountIdFormat) {
+        this.accountIdFormat = accountIdFormat;
+    }
+
+    @PersistenceContext
+    public void setEntityManager(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Audits run read-only and serializable. The database serves them from one snapshot taken at their first
+     * statement, without locking rows, so every table they read is of the same point in time.
+     */
+    @Autowired
+    public void setTransactionManager(PlatformTransactionManager transactionManager) {
+        TransactionTemplate auditTransaction = new TransactionTemplate(transactionManager);
+        auditTransaction.setReadOnly(true);
+        auditTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_SERIALIZABLE);
+        this.auditTransaction = auditTransaction;
+    }
+
     @Transactional( propagation = Propagation.SUPPORTS,readOnly = true )
-    public BigDecimal getBalance(String accountId) {
+    public long getBalance(String accountId) {
+        long balance = balanceCache.get(accountId);
+        if (balance != BalanceCache.MISS) {
+            return balance;
+        }
+        long stamp = balanceCache.stamp(accountId);
         AccountEntity account = repository.findById(accountId).orElse(null);
         checkAccountExist(account, accountId);
+        balanceCache.putLoaded(accountId, account.getBalance(), account.getVersion(), stamp);
 
         return account.getBalance();
     }
 
-    public Boolean transferMoney(String accountId, String recipientAccountId, BigDecimal money) {
-        reduceBalance(accountId, money);
-        increaseBalance(recipientAccountId, money);
+    /**
+     * Fails before anything is read if the account has no history, so the caller can still report the error
+     * instead of a truncated stream.
+     */
+    public void checkHistory(String accountId) {
+        if (!repository.existsById(accountId)) {
+            throw new AccountEntityNotFoundException(accountId);
+        }
+    }
+
+    /**
+     * Passes up to {@code limit} operations of the account older than {@code before} to the consumer, newest first.
+     * They are read in keyset pages that are dropped once consumed, so memory does not grow with the range.
+     *
+     * @return the id to pass as {@code before} for the next page, or null when the history is exhausted
+     */
+    public Long readHistory(String accountId, long before, long limit, Consumer<AccountOperationEntity> consumer) {
+        long remaining = limit;
+        while (remaining > 0) {
+            int size = (int) Math.min(remaining, HISTORY_PAGE_SIZE);
+            List<AccountOperationEntity> page = operationRepository.findPage(accountId, before, PageRequest.of(0, size));
+            for (AccountOperationEntity operation : page) {
+                consumer.accept(operation);
+                before = operation.getId();
+            }
+            if (page.size() < size) {
+                return null;
+            }
+            remaining -= size;
+        }
+        return before;
+    }
+
+    /**
+     * Passes every balance to the sheet and adds deposits minus withdrawals as its expected total, all read in one
+     * audit transaction: the totals are of one point in time, and transfers committed meanwhile are neither blocked
+     * nor seen.
+     */
+    public void auditBalances(BalanceSheet sheet) {
+        auditTransaction.executeWithoutResult(status -> readBalances(sheet));
+    }
+
+    /**
+     * Has to run in a transaction. Balances are read as rows through a forward-only cursor rather than as entities,
+     * so memory does not grow with the number of accounts.
+     */
+    protected void readBalances(BalanceSheet sheet) {
+        try (Stream<Object[]> balances = repository.streamBalances()) {
+            balances.forEach(balance -> sheet.add((String) balance[0], (Long) balance[1]));
+        }
+        if (operationRepository != null) {
+            Long external = operationRepository.sumExternalAmounts();
+            sheet.addExpected(external == null ? 0 : external);
+        }
+    }
+
+    /**
+     * Locks and loads both accounts with one query and moves the money with one update, so a transfer costs two
+     * statements. Has to run in a transaction.
+     */
+    public Boolean transferMoney(String accountId, String recipientAccountId, long money) {
+        List<AccountEntity> accounts = repository.findAllForUpdate(Arrays.asList(accountId, recipientAccountId));
+        AccountEntity account = findLoaded(accounts, accountId);
+        checkAccountExist(account, accountId);
+        checkAccountBalance(account, money);
+        if (accountId.equals(recipientAccountId)) {
+            return true;
+        }
+        AccountEntity recipientAccount = findLoaded(accounts, recipientAccountId);
+        checkAccountExist(recipientAccount, recipientAccountId);
+        long balance = Money.debit(accountId, account.getBalance(), money);
+        long recipientBalance = Money.credit(recipientAccountId, recipientAccount.getBalance(), money);
+        repository.transferMoney(accountId, recipientAccountId, money, -money);
+        recordOperation(accountId, recipientAccountId, -money, balance);
+        recordOperation(recipientAccountId, accountId, money, recipientBalance);
+        cacheAfterCommit(accountId, balance, account.getVersion() + 1);
+        cacheAfterCommit(recipientAccountId, recipientBalance, recipientAccount.getVersion() + 1);
 
         return true;
     }
 
-    public BigDecimal reduceBalance(String accountId, BigDecimal money) {
-        AccountEntity account = repository.findById(accountId).orElse(null);
+    /**
+     * Applies the transfers in order and reports a result per transfer. Every transfer is validated before it
+     * changes anything, so a failed one leaves no partial update behind. In atomic mode the first failure throws
+     * {@link TransferBatchRolledBackException}.
+     */
+    public List<BaseResult<Boolean>> transferMoneyBatch(List<TransferJson> transfers, boolean atomic) {
+        preloadAccounts(getAccountIds(transfers));
+        List<BaseResult<Boolean>> results = new ArrayList<>(transfers.size());
+        for (TransferJson transfer : transfers) {
+            try {
+                applyTransfer(transfer.getAccountId(), transfer.getRecipientAccountId(),
+                        Money.toMinorUnits(transfer.getMoney()));
+                results.add(new BaseResult<>(true));
+            } catch (BaseAccountException e) {
+                results.add(new BaseResult<>(e.getCode(), e.getMessage()));
+                if (atomic) {
+                    throw new TransferBatchRolledBackException(rollBack(results, transfers.size()));
+                }
+            }
+        }
+        return results;
+    }
+
+    public long reduceBalance(String accountId, long money) {
+        return debit(accountId, null, money);
+    }
+
+    public long increaseBalance(String accountId, long money) {
+        return credit(accountId, null, money);
+    }
+
+    /**
+     * One side of a transfer when {@code counterpartyId} is set, a withdrawal otherwise.
+     */
+    protected long debit(String accountId, String counterpartyId, long money) {
+        AccountEntity account = findForWrite(accountId);
         checkAccountExist(account, accountId);
         checkAccountBalance(account, money);
-        account.setBalance(account.getBalance().subtract(money));
+        account.setBalance(Money.debit(accountId, account.getBalance(), money));
+        recordOperation(accountId, counterpartyId, -money, account.getBalance());
+        cacheAfterCommit(account);
         return account.getBalance();
     }
 
-    public BigDecimal increaseBalance(String accountId, BigDecimal money) {
-        AccountEntity account = repository.findById(accountId).orElse(null);
+    protected long credit(String accountId, String counterpartyId, long money) {
+        AccountEntity account = findForWrite(accountId);
         checkAccountExist(account, accountId);
-        account.setBalance(account.getBalance().add(money));
+        account.setBalance(Money.credit(accountId, account.getBalance(), money));
+        recordOperation(accountId, counterpartyId, money, account.getBalance());
+        cacheAfterCommit(account);
         return account.getBalance();
     }
 
+    /**
+     * A guard miss is re-checked against a fresh read: it either explains the miss with an exception or shows that
+     * a concurrent credit arrived in between, and then the update is simply repeated.
+     */
+    protected void conditionalReduce(String accountId, long money) {
+        while (repository.reduceBalance(accountId, money) == 0) {
+            AccountEntity account = repository.findById(accountId).orElse(null);
+            checkAccountExist(account, accountId);
+            checkAccountBalance(account, money);
+        }
+        invalidateAfterCommit(accountId);
+    }
+
+    protected void conditionalIncrease(String accountId, long money) {
+        if (repository.increaseBalance(accountId, money, Long.MAX_VALUE - money) == 0) {
+            checkAccountExist(repository.findById(accountId).orElse(null), accountId);
+            throw new AccountBalanceOverflowException(accountId);
+        }
+        invalidateAfterCommit(accountId);
+    }
+
+    /**
+     * Reads back the balance a conditional update produced and records the operation with it. Runs after the
+     * updates, which clear the session.
+     */
+    protected long recordConditional(String accountId, String counterpartyId, long amount) {
+        long balance = repository.findById(accountId).get().getBalance();
+        recordOperation(accountId, counterpartyId, amount, balance);
+        return balance;
+    }
+
+    protected Set<String> getAccountIds(List<TransferJson> transfers) {
+        Set<String> accountIds = new LinkedHashSet<>();
+        for (TransferJson transfer : transfers) {
+            accountIds.add(transfer.getAccountId());
+            accountIds.add(transfer.getRecipientAccountId());
+        }
+        return accountIds;
+    }
+
+    private void preloadAccounts(Set<String> accountIds) {
+        List<String> chunk = new ArrayList<>(Math.min(accountIds.size(), PRELOAD_CHUNK_SIZE));
+        for (String accountId : accountIds) {
+            chunk.add(accountId);
+            if (chunk.size() == PRELOAD_CHUNK_SIZE) {
+                preload(chunk);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            preload(chunk);
+        }
+    }
+
+    private void preload(List<String> accountIds) {
+        if (writeLockMode == LockModeType.NONE) {
+            repository.findAllById(accountIds);
+        } else {
+            repository.findAllForWrite(accountIds);
+        }
+    }
+
+    /**
+     * Loads the account to be changed through the entity, locked with {@link #writeLockMode}. An account preloaded
+     * with that lock is not read again.
+     */
+    protected AccountEntity findForWrite(String accountId) {
+        if (writeLockMode == LockModeType.NONE) {
+            return repository.findById(accountId).orElse(null);
+        }
+        return entityManager.find(AccountEntity.class, accountId, writeLockMode);
+    }
+
+    private void applyTransfer(String accountId, String recipientAccountId, long money) {
+        AccountEntity account = findForWrite(accountId);
+        checkAccountExist(account, accountId);
+        checkAccountBalance(account, money);
+        AccountEntity recipientAccount = findForWrite(recipientAccountId);
+        checkAccountExist(recipientAccount, recipientAccountId);
+        long balance = Money.debit(accountId, account.getBalance(), money);
+        long recipientBalance = Money.credit(recipientAccountId,
+                account == recipientAccount ? balance : recipientAccount.getBalance(), money);
+        account.setBalance(balance);
+        recipientAccount.setBalance(recipientBalance);
+        if (account != recipientAccount) {
+            recordOperation(accountId, recipientAccountId, -money, balance);
+            recordOperation(recipientAccountId, accountId, money, recipientBalance);
+        }
+        cacheAfterCommit(account);
+        cacheAfterCommit(recipientAccount);
+    }
+
+    private static AccountEntity newAccount(String accountId) {
+        AccountEntity account = new AccountEntity();
+        account.setId(accountId);
+        account.setBalance(0);
+        return account;
+    }
+
+    private static AccountEntity findLoaded(List<AccountEntity> accounts, String accountId) {
+        for (AccountEntity account : accounts) {
+            if (account.getId().equals(accountId)) {
+                return account;
+            }
+        }
+        return null;
+    }
+
+    private static List<BaseResult<Boolean>> rollBack(List<BaseResult<Boolean>> results, int size) {
+        List<BaseResult<Boolean>> rolledBack = new ArrayList<>(size);
+        BaseResult<Boolean> failed = results.get(results.size() - 1);
+        for (int i = 0; i < size; i++) {
+            rolledBack.add(i == results.size() - 1 ? failed : new BaseResult<>(TransferBatchRolledBackException.CODE,
+                    "Transfer batch rolled back"));
+        }
+        return Collections.unmodifiableList(rolledBack);
+    }
+
+    /**
+     * Appends the operation to the account history, and to the event outbox, in the current transaction. The inserts
+     * are only flushed with the balance change, batched with the other inserts of the transaction. Has to come after
+     * any bulk update of the transaction, which clears the session. No-op without an operation repository.
+     */
+    protected void recordOperation(String accountId, String counterpartyId, long amount, long balance) {
+        if (operationRepository == null) {
+            return;
+        }
+        AccountOperationEntity operation = new AccountOperationEntity();
+        operation.setAccountId(accountId);
+        operation.setCounterpartyId(counterpartyId);
+        operation.setAmount(amount);
+        operation.setBalance(balance);
+        operation.setCreatedAt(Instant.now());
+        operationRepository.save(operation);
+        eventOutbox.append(operation);
+    }
+
+    /**
+     * Puts the balance and version the account has at commit into the cache. Nothing is cached if the transaction
+     * rolls back; without a transaction the account is just invalidated.
+     */
+    protected void cacheAfterCommit(AccountEntity account) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            balanceCache.invalidate(account.getId());
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                balanceCache.putCommitted(account.getId(), account.getBalance(), account.getVersion());
+            }
+        });
+    }
+
+    /**
+     * Same for a write that bypassed the entity and knows the balance and version it produced.
+     */
+    protected void cacheAfterCommit(String accountId, long balance, long version) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            balanceCache.invalidate(accountId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                balanceCache.putCommitted(accountId, balance, version);
+            }
+        });
+    }
+
+    /**
+     * Invalidates the account once the transaction commits, for writes that bypass the entity.
+     */
+    protected void invalidateAfterCommit(String accountId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            balanceCache.invalidate(accountId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                balanceCache.invalidate(accountId);
+            }
+        });
+    }
+
     protected void checkAccountExist(AccountEntity account, String accountId) {
         if (account == null) {
             throw new AccountEntityNotFoundException(accountId);
         }
     }
 
-    protected void checkAccountBalance(AccountEntity account, BigDecimal money) {
-        if (account.getBalance().subtract(money).compareTo(BigDecimal.ZERO) < 0) {
+    protected void checkAccountBalance(AccountEntity account, long money) {
+        if (account.getBalance() < money) {
             throw new AccountNotEnoughMoneyException(account.getId());
         }
     }
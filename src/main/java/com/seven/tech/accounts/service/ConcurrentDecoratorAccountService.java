@@ -1,80 +1,175 @@
 package com.seven.tech.accounts.service;
 
+import com.seven.tech.accounts.BaseResult;
+import com.seven.tech.accounts.exception.TransferBatchRolledBackException;
+import com.seven.tech.accounts.json.TransferJson;
+import com.seven.tech.accounts.lock.AccountLocks;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.support.TransactionCallback;
 import org.springframework.transaction.support.TransactionTemplate;
 
-import java.math.BigDecimal;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.ReentrantLock;
+import javax.persistence.LockModeType;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
+/**
+ * Serializes the changes of an account through its JVM lock from {@link AccountLocks}, one transaction per call.
+ * With {@code accounts.single-account-update=ATOMIC} deposits and withdrawals skip the lock, see
+ * {@link SingleAccountUpdate#ATOMIC}.
+ */
 @Service
 public class ConcurrentDecoratorAccountService extends AccountService {
-    private static final ConcurrentHashMap<String, ReentrantLock> MAP_LOCK = new ConcurrentHashMap<>();
-
     private final TransactionTemplate transactionTemplate;
+    private final AccountLocks accountLocks;
+    private final SingleAccountUpdate singleAccountUpdate;
+
+    private final OperationTimers transferTimers;
+    private final OperationTimers batchTimers;
+    private final OperationTimers reduceTimers;
+    private final OperationTimers increaseTimers;
+
+    public ConcurrentDecoratorAccountService(TransactionTemplate transactionTemplate, AccountLocks accountLocks,
+                                             MeterRegistry meterRegistry) {
+        this(transactionTemplate, accountLocks, meterRegistry, SingleAccountUpdate.LOCKED);
+    }
 
-    public ConcurrentDecoratorAccountService(TransactionTemplate transactionTemplate) {
+    @Autowired
+    public ConcurrentDecoratorAccountService(TransactionTemplate transactionTemplate, AccountLocks accountLocks,
+                                             MeterRegistry meterRegistry,
+                                             @Value("${accounts.single-account-update:LOCKED}")
+                                                     SingleAccountUpdate singleAccountUpdate) {
         this.transactionTemplate = transactionTemplate;
+        this.accountLocks = accountLocks;
+        this.singleAccountUpdate = singleAccountUpdate;
+        if (singleAccountUpdate == SingleAccountUpdate.ATOMIC) {
+            writeLockMode = LockModeType.PESSIMISTIC_WRITE;
+        }
+        this.transferTimers = new OperationTimers(meterRegistry, "transfer");
+        this.batchTimers = new OperationTimers(meterRegistry, "transferBatch");
+        this.reduceTimers = new OperationTimers(meterRegistry, "reduce");
+        this.increaseTimers = new OperationTimers(meterRegistry, "increase");
     }
 
-    public Boolean transferMoney(String accountId, String recipientAccountId, BigDecimal money) {
-        ReentrantLock accountLock = MAP_LOCK.computeIfAbsent(accountId, x -> new ReentrantLock());
-        ReentrantLock recipientAccountLock = MAP_LOCK.computeIfAbsent(recipientAccountId, x -> new ReentrantLock());
-        takeLocks(accountLock, recipientAccountLock);
+    public Boolean transferMoney(String accountId, String recipientAccountId, long money) {
+        long start = System.nanoTime();
+        accountLocks.lock(accountId, recipientAccountId);
+        long locked = transferTimers.lockAcquired(start);
         try {
             return (Boolean) transactionTemplate.execute((TransactionCallback) status ->
                     super.transferMoney(accountId, recipientAccountId, money));
 
         } finally {
-            accountLock.unlock();
-            recipientAccountLock.unlock();
+            transferTimers.transactionDone(locked);
+            accountLocks.unlock(accountId, recipientAccountId);
+        }
+    }
+
+    public List<BaseResult<Boolean>> transferMoneyBatch(List<TransferJson> transfers, boolean atomic) {
+        Set<String> accountIds = getAccountIds(transfers);
+        long start = System.nanoTime();
+        accountLocks.lock(accountIds);
+        long locked = batchTimers.lockAcquired(start);
+        try {
+            return (List<BaseResult<Boolean>>) transactionTemplate.execute((TransactionCallback) status ->
+                    super.transferMoneyBatch(transfers, atomic));
+        } catch (TransferBatchRolledBackException e) {
+            return e.getResults();
+        } finally {
+            batchTimers.transactionDone(locked);
+            accountLocks.unlock(accountIds);
         }
     }
 
-    public BigDecimal reduceBalance(String accountId, BigDecimal money) {
-        ReentrantLock reentrantLock = MAP_LOCK.computeIfAbsent(accountId, x -> new ReentrantLock());
-        reentrantLock.lock();
+    public long reduceBalance(String accountId, long money) {
+        if (singleAccountUpdate == SingleAccountUpdate.ATOMIC) {
+            return atomic(reduceTimers, () -> {
+                conditionalReduce(accountId, money);
+                return recordConditional(accountId, null, -money);
+            });
+        }
+        long start = System.nanoTime();
+        accountLocks.lock(accountId);
+        long locked = reduceTimers.lockAcquired(start);
         try {
-            return (BigDecimal) transactionTemplate.execute((TransactionCallback) status ->
+            return (Long) transactionTemplate.execute((TransactionCallback) status ->
                     super.reduceBalance(accountId, money));
         } finally {
-            reentrantLock.unlock();
+            reduceTimers.transactionDone(locked);
+            accountLocks.unlock(accountId);
         }
     }
 
-    public BigDecimal increaseBalance(String accountId, BigDecimal money) {
-        ReentrantLock reentrantLock = MAP_LOCK.computeIfAbsent(accountId, x -> new ReentrantLock());
-        reentrantLock.lock();
+    public long increaseBalance(String accountId, long money) {
+        if (singleAccountUpdate == SingleAccountUpdate.ATOMIC) {
+            return atomic(increaseTimers, () -> {
+                conditionalIncrease(accountId, money);
+                return recordConditional(accountId, null, money);
+            });
+        }
+        long start = System.nanoTime();
+        accountLocks.lock(accountId);
+        long locked = increaseTimers.lockAcquired(start);
         try {
-            return (BigDecimal) transactionTemplate.execute((TransactionCallback) status ->
+            return (Long) transactionTemplate.execute((TransactionCallback) status ->
                     super.increaseBalance(accountId, money));
         } finally {
-            reentrantLock.unlock();
+            increaseTimers.transactionDone(locked);
+            accountLocks.unlock(accountId);
         }
     }
 
-    private void takeLocks(ReentrantLock accountLock, ReentrantLock recipientAccountLock) {
-        boolean isAccountLock = false;
-        boolean isRecipientAccountLockLock = false;
-        while (true) {
-            try {
-                isAccountLock = accountLock.tryLock();
-                isRecipientAccountLockLock = recipientAccountLock.tryLock();
-            } finally {
-                if (isAccountLock && isRecipientAccountLockLock)
-                    return;
-                if (isAccountLock)
-                    accountLock.unlock();
-                if (isRecipientAccountLockLock)
-                    recipientAccountLock.unlock();
-            }
-            // решение для прототипа
-            try {
-                Thread.sleep(1);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
+    public SingleAccountUpdate getSingleAccountUpdate() {
+        return singleAccountUpdate;
+    }
+
+    /**
+     * Runs a guarded single-account update in its own transaction without the JVM lock. Only the transaction time
+     * is recorded; there is no lock wait.
+     */
+    private long atomic(OperationTimers timers, Supplier<Long> update) {
+        long start = System.nanoTime();
+        try {
+            return transactionTemplate.execute(status -> update.get());
+        } finally {
+            timers.transactionDone(start);
+        }
+    }
+
+    /**
+     * Lock wait and transaction time, commit included, of one kind of operation. Both publish histograms, so
+     * percentiles can be aggregated across instances.
+     */
+    private static final class OperationTimers {
+        private final Timer lockWait;
+        private final Timer transaction;
+
+        private OperationTimers(MeterRegistry meterRegistry, String operation) {
+            lockWait = Timer.builder("accounts.lock.wait")
+                    .description("Time spent waiting for account locks")
+                    .tag("operation", operation)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+            transaction = Timer.builder("accounts.transaction")
+                    .description("Time spent in the transaction while holding the account locks")
+                    .tag("operation", operation)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+        }
+
+        private long lockAcquired(long start) {
+            long now = System.nanoTime();
+            lockWait.record(now - start, TimeUnit.NANOSECONDS);
+            return now;
+        }
+
+        private void transactionDone(long start) {
+            transaction.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         }
     }
 }
@@ -0,0 +1,217 @@
+package com.seven.tech.accounts.service;
+
+import com.seven.tech.accounts.entity.AccountEntity;
+import com.seven.tech.accounts.exception.AccountBalanceOverflowException;
+import com.seven.tech.accounts.exception.AccountBusyException;
+import com.seven.tech.accounts.exception.AccountEntityNotFoundException;
+import com.seven.tech.accounts.exception.AccountNotEnoughMoneyException;
+import com.seven.tech.accounts.lock.AccountLocks;
+import com.seven.tech.accounts.money.Money;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Deposits and withdrawals are queued per account and applied in micro-batches: one load, one balance update and
+ * one commit per batch instead of per call. Enabled by the {@code group-commit} profile. Transfers and batches go
+ * through {@link ConcurrentDecoratorAccountService} unchanged.
+ * <p>
+ * There is no background thread. The caller that finds an account idle becomes its owner and commits batches;
+ * after each batch it returns and hands the ownership to the oldest caller still waiting, so no caller drains
+ * for others for more than one batch. Each caller gets its own result, and an operation that would overdraw or
+ * overflow the balance fails alone.
+ * <p>
+ * The batches replace the deposits and withdrawals of {@link SingleAccountUpdate}, so only
+ * {@link SingleAccountUpdate#LOCKED} is accepted.
+ */
+@Service
+@Primary
+@Profile("group-commit")
+public class GroupCommitAccountService extends ConcurrentDecoratorAccountService {
+    private final TransactionTemplate transactionTemplate;
+    private final AccountLocks accountLocks;
+    private final int maxBatchSize;
+    private final long maxLingerNanos;
+
+    private final ConcurrentHashMap<String, ArrayDeque<Operation>> queues = new ConcurrentHashMap<>();
+
+    public GroupCommitAccountService(TransactionTemplate transactionTemplate, AccountLocks accountLocks,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${accounts.group-commit.max-batch-size:256}") int maxBatchSize,
+                                     @Value("${accounts.group-commit.max-linger-micros:0}") long maxLingerMicros,
+                                     @Value("${accounts.single-account-update:LOCKED}")
+                                             SingleAccountUpdate singleAccountUpdate) {
+        super(transactionTemplate, accountLocks, meterRegistry, singleAccountUpdate);
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("accounts.group-commit.max-batch-size must be positive: " + maxBatchSize);
+        }
+        if (singleAccountUpdate != SingleAccountUpdate.LOCKED) {
+            throw new IllegalArgumentException("accounts.single-account-update must be LOCKED with group commit: "
+                    + singleAccountUpdate);
+        }
+        this.transactionTemplate = transactionTemplate;
+        this.accountLocks = accountLocks;
+        this.maxBatchSize = maxBatchSize;
+        this.maxLingerNanos = maxLingerMicros * 1000;
+    }
+
+    public long reduceBalance(String accountId, long money) {
+        return submit(accountId, new Operation(true, money));
+    }
+
+    public long increaseBalance(String accountId, long money) {
+        return submit(accountId, new Operation(false, money));
+    }
+
+    private long submit(String accountId, Operation operation) {
+        boolean[] owner = new boolean[1];
+        queues.compute(accountId, (key, queue) -> {
+            if (queue == null) {
+                queue = new ArrayDeque<>();
+                owner[0] = true;
+            }
+            queue.add(operation);
+            return queue;
+        });
+        if (owner[0]) {
+            drain(accountId);
+        }
+        while (!operation.result.isDone()) {
+            CompletableFuture.anyOf(operation.result, operation.ownership).exceptionally(e -> null).join();
+            if (!operation.result.isDone()) {
+                drain(accountId);
+            }
+        }
+        try {
+            return operation.result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Commits one batch and passes the ownership on to the oldest operation left, or drops the idle queue.
+     */
+    private void drain(String accountId) {
+        if (maxLingerNanos > 0) {
+            int[] queued = new int[1];
+            queues.computeIfPresent(accountId, (key, queue) -> {
+                queued[0] = queue.size();
+                return queue;
+            });
+            if (queued[0] < maxBatchSize) {
+                LockSupport.parkNanos(maxLingerNanos);
+            }
+        }
+        List<Operation> batch = new ArrayList<>();
+        queues.computeIfPresent(accountId, (key, queue) -> {
+            while (batch.size() < maxBatchSize && !queue.isEmpty()) {
+                batch.add(queue.poll());
+            }
+            return queue;
+        });
+        commit(accountId, batch);
+
+        Operation[] next = new Operation[1];
+        queues.computeIfPresent(accountId, (key, queue) -> {
+            next[0] = queue.peek();
+            return next[0] == null ? null : queue;
+        });
+        if (next[0] != null) {
+            next[0].ownership.complete(null);
+        }
+    }
+
+    private void commit(String accountId, List<Operation> batch) {
+        try {
+            accountLocks.lock(accountId);
+        } catch (AccountBusyException e) {
+            for (Operation operation : batch) {
+                operation.result.completeExceptionally(e);
+            }
+            return;
+        }
+        try {
+            transactionTemplate.execute((TransactionCallback<Void>) status -> {
+                apply(accountId, batch);
+                return null;
+            });
+        } catch (RuntimeException | Error e) {
+            for (Operation operation : batch) {
+                operation.failure = e;
+            }
+        } finally {
+            accountLocks.unlock(accountId);
+        }
+        for (Operation operation : batch) {
+            if (operation.failure != null) {
+                operation.result.completeExceptionally(operation.failure);
+            } else {
+                operation.result.complete(operation.balance);
+            }
+        }
+    }
+
+    private void apply(String accountId, List<Operation> batch) {
+        AccountEntity account = repository.findById(accountId).orElse(null);
+        if (account == null) {
+            for (Operation operation : batch) {
+                operation.failure = new AccountEntityNotFoundException(accountId);
+            }
+            return;
+        }
+        long balance = account.getBalance();
+        for (Operation operation : batch) {
+            if (operation.debit && balance < operation.money) {
+                operation.failure = new AccountNotEnoughMoneyException(accountId);
+                continue;
+            }
+            try {
+                balance = operation.debit ? Money.debit(accountId, balance, operation.money)
+                        : Money.credit(accountId, balance, operation.money);
+                operation.balance = balance;
+                recordOperation(accountId, null, operation.debit ? -operation.money : operation.money, balance);
+            } catch (AccountBalanceOverflowException e) {
+                operation.failure = e;
+            }
+        }
+        account.setBalance(balance);
+        cacheAfterCommit(account);
+    }
+
+    private static final class Operation {
+        private final boolean debit;
+        private final long money;
+        private final CompletableFuture<Long> result = new CompletableFuture<>();
+        private final CompletableFuture<Void> ownership = new CompletableFuture<>();
+        private long balance;
+        private Throwable failure;
+
+        private Operation(boolean debit, long money) {
+            this.debit = debit;
+            this.money = money;
+        }
+    }
+}
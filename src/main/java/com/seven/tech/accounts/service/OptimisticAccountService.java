@@ -0,0 +1,145 @@
+package com.seven.tech.accounts.service;
+
+import com.seven.tech.accounts.BaseResult;
+import com.seven.tech.accounts.exception.AccountConcurrentUpdateException;
+import com.seven.tech.accounts.exception.TransferBatchRolledBackException;
+import com.seven.tech.accounts.json.TransferJson;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.LockModeType;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * {@link AccountService} that takes no JVM locks, so several instances can share one database. Enabled by the
+ * {@code optimistic} profile.
+ */
+@Service
+@Primary
+@Profile("optimistic")
+public class OptimisticAccountService extends AccountService {
+    private final TransactionTemplate transactionTemplate;
+    private final OptimisticStrategy strategy;
+    private final int maxAttempts;
+    private final long backoffNanos;
+    private final long maxBackoffNanos;
+
+    public OptimisticAccountService(TransactionTemplate transactionTemplate,
+                                    @Value("${accounts.optimistic.strategy:CONDITIONAL_UPDATE}") OptimisticStrategy strategy,
+                                    @Value("${accounts.optimistic.max-attempts:10}") int maxAttempts,
+                                    @Value("${accounts.optimistic.backoff-micros:100}") long backoffMicros,
+                                    @Value("${accounts.optimistic.max-backoff-micros:10000}") long maxBackoffMicros) {
+        this.transactionTemplate = transactionTemplate;
+        this.strategy = strategy;
+        this.maxAttempts = maxAttempts;
+        this.backoffNanos = backoffMicros * 1000;
+        this.maxBackoffNanos = maxBackoffMicros * 1000;
+        if (strategy == OptimisticStrategy.CONDITIONAL_UPDATE) {
+            writeLockMode = LockModeType.PESSIMISTIC_WRITE;
+        }
+    }
+
+    public Boolean transferMoney(String accountId, String recipientAccountId, long money) {
+        if (strategy == OptimisticStrategy.CONDITIONAL_UPDATE) {
+            return (Boolean) transactionTemplate.execute((TransactionCallback) status ->
+                    conditionalTransfer(accountId, recipientAccountId, money));
+        }
+        return retry(accountId, () -> (Boolean) transactionTemplate.execute((TransactionCallback) status -> {
+            debit(accountId, recipientAccountId, money);
+            credit(recipientAccountId, accountId, money);
+            return true;
+        }));
+    }
+
+    /**
+     * One transaction for the whole batch. With conditional updates the accounts are locked in the database as they
+     * are preloaded, with versions a conflicting commit rolls the batch back and it is retried as a whole.
+     */
+    public List<BaseResult<Boolean>> transferMoneyBatch(List<TransferJson> transfers, boolean atomic) {
+        try {
+            if (strategy == OptimisticStrategy.CONDITIONAL_UPDATE) {
+                return (List<BaseResult<Boolean>>) transactionTemplate.execute((TransactionCallback) status ->
+                        super.transferMoneyBatch(transfers, atomic));
+            }
+            String accountId = transfers.isEmpty() ? null : transfers.get(0).getAccountId();
+            return retry(accountId, () -> (List<BaseResult<Boolean>>) transactionTemplate.execute(
+                    (TransactionCallback) status -> super.transferMoneyBatch(transfers, atomic)));
+        } catch (TransferBatchRolledBackException e) {
+            return e.getResults();
+        }
+    }
+
+    public long reduceBalance(String accountId, long money) {
+        if (strategy == OptimisticStrategy.CONDITIONAL_UPDATE) {
+            return (Long) transactionTemplate.execute((TransactionCallback) status -> {
+                conditionalReduce(accountId, money);
+                return recordConditional(accountId, null, -money);
+            });
+        }
+        return retry(accountId, () -> (Long) transactionTemplate.execute((TransactionCallback) status ->
+                super.reduceBalance(accountId, money)));
+    }
+
+    public long increaseBalance(String accountId, long money) {
+        if (strategy == OptimisticStrategy.CONDITIONAL_UPDATE) {
+            return (Long) transactionTemplate.execute((TransactionCallback) status -> {
+                conditionalIncrease(accountId, money);
+                return recordConditional(accountId, null, money);
+            });
+        }
+        return retry(accountId, () -> (Long) transactionTemplate.execute((TransactionCallback) status ->
+                super.increaseBalance(accountId, money)));
+    }
+
+    public OptimisticStrategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * In id order, so a batch locks its rows in the same order as {@link #conditionalTransfer} and other batches.
+     */
+    @Override
+    protected Set<String> getAccountIds(List<TransferJson> transfers) {
+        return new TreeSet<>(super.getAccountIds(transfers));
+    }
+
+    /**
+     * Updates the two rows in account id order, so two opposite transfers cannot deadlock in the database.
+     */
+    private Boolean conditionalTransfer(String accountId, String recipientAccountId, long money) {
+        if (accountId.compareTo(recipientAccountId) <= 0) {
+            conditionalReduce(accountId, money);
+            conditionalIncrease(recipientAccountId, money);
+        } else {
+            conditionalIncrease(recipientAccountId, money);
+            conditionalReduce(accountId, money);
+        }
+        recordConditional(accountId, recipientAccountId, -money);
+        recordConditional(recipientAccountId, accountId, money);
+        return true;
+    }
+
+    private <T> T retry(String accountId, Supplier<T> operation) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return operation.get();
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    throw new AccountConcurrentUpdateException(accountId);
+                }
+                long ceiling = Math.min(maxBackoffNanos, backoffNanos << Math.min(attempt - 1, 20));
+                LockSupport.parkNanos(ThreadLocalRandom.current().nextLong(ceiling + 1));
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.seven.tech.accounts.service;
+
+/**
+ * How {@link OptimisticAccountService} keeps balances consistent without JVM locks.
+ */
+public enum OptimisticStrategy {
+    /**
+     * Read-modify-write guarded by the {@code @Version} column, retried with jittered backoff on conflicts.
+     * Not safe on the embedded H2 1.4.200, whose MVStore can let two concurrent version checks both pass.
+     */
+    VERSION,
+    /**
+     * A single guarded {@code UPDATE} per account; the database serializes concurrent writers.
+     */
+    CONDITIONAL_UPDATE
+}
@@ -0,0 +1,18 @@
+package com.seven.tech.accounts.service;
+
+/**
+ * How {@link ConcurrentDecoratorAccountService} applies deposits and withdrawals. Transfers and batches always take
+ * the JVM locks of their accounts.
+ */
+public enum SingleAccountUpdate {
+    /**
+     * Under the JVM lock of the account, loading the entity and writing it back.
+     */
+    LOCKED,
+    /**
+     * A single guarded {@code UPDATE} without any JVM lock; the database serializes concurrent writers of the row.
+     * Transfer batches, which still change the entities under the JVM locks, then also lock their rows with
+     * {@code SELECT ... FOR UPDATE}, so a guarded update cannot slip in between their read and their write.
+     */
+    ATOMIC
+}
@@ -0,0 +1,95 @@
+package com.seven.tech.accounts.shard;
+
+import com.seven.tech.accounts.id.AccountIdFormat;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Maps account ids to shards.
+ * <p>
+ * A new account is placed on a consistent-hash ring of virtual nodes and its shard is written into the id, in the
+ * three hex digits after the UUID version ({@code xxxxxxxx-xxxx-vSSS-...}), which are random bits in both
+ * {@link AccountIdFormat}s, so routing an existing account is a parse, not a lookup, and it never moves when shards
+ * are added. Ids that carry no valid shard, such as ids of
+ * another system, are routed by the ring.
+ */
+public class ShardRouter {
+    public static final int MAX_SHARDS = 0x1000;
+    private static final int SHARD_OFFSET = 15;
+    private static final int SHARD_DIGITS = 3;
+    private static final int UUID_LENGTH = 36;
+
+    private final int shardCount;
+    private final TreeMap<Long, Integer> ring = new TreeMap<>();
+
+    public ShardRouter(int shardCount, int virtualNodes) {
+        if (shardCount < 1 || shardCount > MAX_SHARDS) {
+            throw new IllegalArgumentException("accounts.shards.count must be between 1 and " + MAX_SHARDS + ": "
+                    + shardCount);
+        }
+        this.shardCount = shardCount;
+        for (int shard = 0; shard < shardCount; shard++) {
+            for (int node = 0; node < virtualNodes; node++) {
+                ring.put(mix(shard * 0x9E3779B97F4A7C15L + node), shard);
+            }
+        }
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    public String newAccountId() {
+        return newAccountId(AccountIdFormat.STRING);
+    }
+
+    public String newAccountId(AccountIdFormat format) {
+        UUID uuid = UUID.fromString(format.newId());
+        int shard = ringShard(uuid.getMostSignificantBits() ^ uuid.getLeastSignificantBits());
+        return withShard(uuid.toString(), shard);
+    }
+
+    public int shardOf(String accountId) {
+        if (accountId.length() == UUID_LENGTH && accountId.charAt(SHARD_OFFSET - 2) == '-'
+                && accountId.charAt(SHARD_OFFSET + SHARD_DIGITS) == '-') {
+            int shard = parseShard(accountId);
+            if (shard >= 0 && shard < shardCount) {
+                return shard;
+            }
+        }
+        return ringShard(accountId.hashCode());
+    }
+
+    static String withShard(String uuid, int shard) {
+        String digits = Integer.toHexString(MAX_SHARDS | shard).substring(1);
+        return uuid.substring(0, SHARD_OFFSET) + digits + uuid.substring(SHARD_OFFSET + SHARD_DIGITS);
+    }
+
+    private static int parseShard(String accountId) {
+        int shard = 0;
+        for (int i = SHARD_OFFSET; i < SHARD_OFFSET + SHARD_DIGITS; i++) {
+            int digit = Character.digit(accountId.charAt(i), 16);
+            if (digit < 0) {
+                return -1;
+            }
+            shard = shard << 4 | digit;
+        }
+        return shard;
+    }
+
+    private int ringShard(long hash) {
+        Map.Entry<Long, Integer> node = ring.ceilingEntry(mix(hash));
+        return (node != null ? node : ring.firstEntry()).getValue();
+    }
+
+    /**
+     * The finalizer of SplitMix64, so that nearby keys land far apart on the ring.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
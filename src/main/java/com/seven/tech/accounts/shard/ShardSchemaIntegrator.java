@@ -0,0 +1,35 @@
+package com.seven.tech.accounts.shard;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.hibernate.tool.hbm2ddl.SchemaUpdate;
+import org.hibernate.tool.schema.TargetType;
+
+import java.util.EnumSet;
+
+/**
+ * Keeps the mapping metadata Hibernate was built from, so the schema it creates on shard 0 at startup can be
+ * created on the other shards too.
+ */
+public class ShardSchemaIntegrator implements Integrator {
+    private volatile Metadata metadata;
+    private volatile SessionFactoryImplementor sessionFactory;
+
+    @Override
+    public void integrate(Metadata metadata, SessionFactoryImplementor sessionFactory,
+                          SessionFactoryServiceRegistry serviceRegistry) {
+        this.metadata = metadata;
+        this.sessionFactory = sessionFactory;
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+    }
+
+    public void updateSchema(int shard) {
+        ShardRoutingDataSource.run(shard, () -> new SchemaUpdate().execute(EnumSet.of(TargetType.DATABASE), metadata,
+                sessionFactory.getServiceRegistry()));
+    }
+}
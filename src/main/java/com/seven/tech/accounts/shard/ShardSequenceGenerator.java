@@ -0,0 +1,43 @@
+package com.seven.tech.accounts.shard;
+
+import org.hibernate.HibernateException;
+import org.hibernate.MappingException;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.enhanced.Optimizer;
+import org.hibernate.id.enhanced.OptimizerFactory;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link SequenceStyleGenerator} that keeps the block of ids it hands out per shard. Every shard has its own
+ * sequence, and one block shared by all of them would hand the same ids out on several shards. Without sharding
+ * it behaves like the plain generator.
+ */
+public class ShardSequenceGenerator extends SequenceStyleGenerator {
+    private static final int UNBOUND = -1;
+
+    private final ConcurrentHashMap<Integer, Optimizer> optimizers = new ConcurrentHashMap<>();
+    private String optimizationStrategy;
+    private Class<?> returnedClass;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        super.configure(type, params, serviceRegistry);
+        this.optimizationStrategy = determineOptimizationStrategy(params, determineIncrementSize(params));
+        this.returnedClass = type.getReturnedClass();
+    }
+
+    @Override
+    public Serializable generate(SharedSessionContractImplementor session, Object object) throws HibernateException {
+        Integer shard = ShardRoutingDataSource.currentShard();
+        Optimizer optimizer = optimizers.computeIfAbsent(shard == null ? UNBOUND : shard, key ->
+                OptimizerFactory.buildOptimizer(optimizationStrategy, returnedClass,
+                        getDatabaseStructure().getIncrementSize(), getDatabaseStructure().getInitialValue()));
+        return optimizer.generate(getDatabaseStructure().buildCallback(session));
+    }
+}
@@ -0,0 +1,311 @@
+package com.seven.tech.accounts.shard;
+
+import com.seven.tech.accounts.BaseResult;
+import com.seven.tech.accounts.audit.BalanceSheet;
+import com.seven.tech.accounts.entity.AccountEntity;
+import com.seven.tech.accounts.entity.AccountOperationEntity;
+import com.seven.tech.accounts.entity.TransferInboxEntity;
+import com.seven.tech.accounts.entity.TransferOutboxEntity;
+import com.seven.tech.accounts.exception.AccountEntityNotFoundException;
+import com.seven.tech.accounts.exception.AtomicTransferBatchNotSupportedException;
+import com.seven.tech.accounts.exception.BaseAccountException;
+import com.seven.tech.accounts.json.TransferJson;
+import com.seven.tech.accounts.lock.AccountLocks;
+import com.seven.tech.accounts.money.Money;
+import com.seven.tech.accounts.repository.TransferInboxRepository;
+import com.seven.tech.accounts.repository.TransferOutboxRepository;
+import com.seven.tech.accounts.service.ConcurrentDecoratorAccountService;
+import com.seven.tech.accounts.service.SingleAccountUpdate;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * {@link ConcurrentDecoratorAccountService} over accounts spread across shards by {@link ShardRouter}. Enabled by
+ * the {@code sharded} profile.
+ * <p>
+ * Every operation runs on the shard of its account, and a transfer between accounts of one shard is the usual
+ * single local transaction. A transfer between shards is a saga of local transactions: the payer is debited together
+ * with an outbox record on its shard, the recipient is credited together with an inbox record on its own, and the
+ * outbox record is then finished, refunding the payer if the recipient refused the money. A transfer interrupted in
+ * between stays pending in the outbox and is finished by {@link #relayPendingTransfers()}; the inbox keeps a
+ * redelivery from crediting twice. Atomic batches across shards are not supported.
+ * <p>
+ * A balance audit waits for the sagas in flight and holds new ones back until every shard has been read, so the
+ * shards add up to one cut even though each is read at its own moment.
+ */
+@Service
+@Primary
+@Profile("sharded")
+public class ShardedAccountService extends ConcurrentDecoratorAccountService {
+    private static final int RELAY_BATCH_SIZE = 100;
+    private static final Logger log = LoggerFactory.getLogger(ShardedAccountService.class);
+
+    private final TransactionTemplate transactionTemplate;
+    private final AccountLocks accountLocks;
+    private final ShardRouter shardRouter;
+    private final long relayGraceMillis;
+    private final ReadWriteLock sagas = new ReentrantReadWriteLock();
+    private transient TransferOutboxRepository outboxRepository;
+    private transient TransferInboxRepository inboxRepository;
+
+    public ShardedAccountService(TransactionTemplate transactionTemplate, AccountLocks accountLocks,
+                                 MeterRegistry meterRegistry, ShardRouter shardRouter,
+                                 @Value("${accounts.shards.relay-grace-millis:5000}") long relayGraceMillis,
+                                 @Value("${accounts.single-account-update:LOCKED}")
+                                         SingleAccountUpdate singleAccountUpdate) {
+        super(transactionTemplate, accountLocks, meterRegistry, singleAccountUpdate);
+        this.transactionTemplate = transactionTemplate;
+        this.accountLocks = accountLocks;
+        this.shardRouter = shardRouter;
+        this.relayGraceMillis = relayGraceMillis;
+    }
+
+    @Autowired
+    public void setOutboxRepository(TransferOutboxRepository outboxRepository) {
+        this.outboxRepository = outboxRepository;
+    }
+
+    @Autowired
+    public void setInboxRepository(TransferInboxRepository inboxRepository) {
+        this.inboxRepository = inboxRepository;
+    }
+
+    @Override
+    public String createAccount() {
+        String accountId = newAccountId();
+        return ShardRoutingDataSource.call(shardRouter.shardOf(accountId), () -> insertAccount(accountId));
+    }
+
+    @Override
+    protected String newAccountId() {
+        return shardRouter.newAccountId(accountIdFormat);
+    }
+
+    /**
+     * One transaction per shard, each with the accounts of its shard.
+     */
+    @Override
+    protected void insertAccounts(List<AccountEntity> accounts) {
+        Map<Integer, List<AccountEntity>> shards = new HashMap<>();
+        for (AccountEntity account : accounts) {
+            shards.computeIfAbsent(shardRouter.shardOf(account.getId()), shard -> new ArrayList<>()).add(account);
+        }
+        shards.forEach((shard, shardAccounts) ->
+                ShardRoutingDataSource.run(shard, () -> super.insertAccounts(shardAccounts)));
+    }
+
+    @Override
+    public long getBalance(String accountId) {
+        return ShardRoutingDataSource.call(shardRouter.shardOf(accountId), () -> super.getBalance(accountId));
+    }
+
+    @Override
+    public void checkHistory(String accountId) {
+        ShardRoutingDataSource.run(shardRouter.shardOf(accountId), () -> super.checkHistory(accountId));
+    }
+
+    @Override
+    public Long readHistory(String accountId, long before, long limit, Consumer<AccountOperationEntity> consumer) {
+        return ShardRoutingDataSource.call(shardRouter.shardOf(accountId),
+                () -> super.readHistory(accountId, before, limit, consumer));
+    }
+
+    /**
+     * One audit transaction per shard, with no cross-shard saga running meanwhile: only transfers within a shard,
+     * which its own transaction sees whole, can change balances between the reads of two shards. A transfer left
+     * pending in an outbox, e.g. by a failed delivery, is in transit unless its recipient's inbox already has it.
+     */
+    @Override
+    public void auditBalances(BalanceSheet sheet) {
+        sagas.writeLock().lock();
+        try {
+            for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+                ShardRoutingDataSource.run(shard, () -> super.auditBalances(sheet));
+            }
+            for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+                List<TransferOutboxEntity> pending = ShardRoutingDataSource.call(shard,
+                        () -> outboxRepository.findByStatus(TransferOutboxEntity.Status.PENDING));
+                for (TransferOutboxEntity transfer : pending) {
+                    int recipientShard = shardRouter.shardOf(transfer.getRecipientAccountId());
+                    boolean received = ShardRoutingDataSource.call(recipientShard,
+                            () -> inboxRepository.existsById(transfer.getId()));
+                    if (!received) {
+                        sheet.addInTransit(transfer.getMoney());
+                    }
+                }
+            }
+        } finally {
+            sagas.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public long reduceBalance(String accountId, long money) {
+        return ShardRoutingDataSource.call(shardRouter.shardOf(accountId), () -> super.reduceBalance(accountId, money));
+    }
+
+    @Override
+    public long increaseBalance(String accountId, long money) {
+        return ShardRoutingDataSource.call(shardRouter.shardOf(accountId), () -> super.increaseBalance(accountId, money));
+    }
+
+    @Override
+    public Boolean transferMoney(String accountId, String recipientAccountId, long money) {
+        int shard = shardRouter.shardOf(accountId);
+        int recipientShard = shardRouter.shardOf(recipientAccountId);
+        if (shard == recipientShard) {
+            return ShardRoutingDataSource.call(shard,
+                    () -> super.transferMoney(accountId, recipientAccountId, money));
+        }
+        sagas.readLock().lock();
+        try {
+            return transferAcrossShards(accountId, shard, recipientAccountId, recipientShard, money);
+        } finally {
+            sagas.readLock().unlock();
+        }
+    }
+
+    /**
+     * A batch within one shard is one local transaction as before. A batch across shards is applied per transfer.
+     */
+    @Override
+    public List<BaseResult<Boolean>> transferMoneyBatch(List<TransferJson> transfers, boolean atomic) {
+        Set<Integer> shards = new HashSet<>();
+        for (String accountId : getAccountIds(transfers)) {
+            shards.add(shardRouter.shardOf(accountId));
+        }
+        if (shards.size() <= 1) {
+            int shard = shards.isEmpty() ? 0 : shards.iterator().next();
+            return ShardRoutingDataSource.call(shard, () -> super.transferMoneyBatch(transfers, atomic));
+        }
+        if (atomic) {
+            throw new AtomicTransferBatchNotSupportedException("Atomic transfer batches across shards are not supported");
+        }
+        List<BaseResult<Boolean>> results = new ArrayList<>(transfers.size());
+        for (TransferJson transfer : transfers) {
+            try {
+                results.add(new BaseResult<>(transferMoney(transfer.getAccountId(), transfer.getRecipientAccountId(),
+                        Money.toMinorUnits(transfer.getMoney()))));
+            } catch (BaseAccountException e) {
+                results.add(new BaseResult<>(e.getCode(), e.getMessage()));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Finishes cross-shard transfers left pending for longer than the grace period, e.g. by a crash between the
+     * debit and the credit.
+     */
+    @Scheduled(fixedDelayString = "${accounts.shards.relay-interval-millis:1000}")
+    public void relayPendingTransfers() {
+        Instant createdBefore = Instant.now().minusMillis(relayGraceMillis);
+        for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+            List<TransferOutboxEntity> pending = ShardRoutingDataSource.call(shard,
+                    () -> outboxRepository.findByStatusAndCreatedAtBeforeOrderByCreatedAt(TransferOutboxEntity.Status.PENDING,
+                            createdBefore, PageRequest.of(0, RELAY_BATCH_SIZE)));
+            for (TransferOutboxEntity transfer : pending) {
+                sagas.readLock().lock();
+                try {
+                    deliver(transfer, shard);
+                } catch (BaseAccountException e) {
+                    log.info("Cross-shard transfer {} refunded: {}", transfer.getId(), e.getCode());
+                } catch (RuntimeException e) {
+                    log.warn("Cross-shard transfer {} still pending", transfer.getId(), e);
+                } finally {
+                    sagas.readLock().unlock();
+                }
+            }
+        }
+    }
+
+    private Boolean transferAcrossShards(String accountId, int shard, String recipientAccountId, int recipientShard,
+                                         long money) {
+        ShardRoutingDataSource.run(recipientShard, () -> {
+            if (!repository.existsById(recipientAccountId)) {
+                throw new AccountEntityNotFoundException(recipientAccountId);
+            }
+        });
+        TransferOutboxEntity transfer = new TransferOutboxEntity();
+        transfer.setId(UUID.randomUUID().toString());
+        transfer.setAccountId(accountId);
+        transfer.setRecipientAccountId(recipientAccountId);
+        transfer.setMoney(money);
+        transfer.setStatus(TransferOutboxEntity.Status.PENDING);
+        transfer.setCreatedAt(Instant.now());
+        ShardRoutingDataSource.run(shard, () -> locked(accountId, () -> {
+            debit(accountId, recipientAccountId, money);
+            outboxRepository.save(transfer);
+        }));
+        deliver(transfer, shard);
+        return true;
+    }
+
+    /**
+     * Credits the recipient and finishes the transfer on the payer's shard, refunding the payer if the recipient
+     * refused the money, and then rethrows the refusal. Safe to repeat.
+     */
+    private void deliver(TransferOutboxEntity transfer, int shard) {
+        String accountId = transfer.getAccountId();
+        String recipientAccountId = transfer.getRecipientAccountId();
+        BaseAccountException refusal = null;
+        try {
+            ShardRoutingDataSource.run(shardRouter.shardOf(recipientAccountId), () -> locked(recipientAccountId, () -> {
+                if (!inboxRepository.existsById(transfer.getId())) {
+                    credit(recipientAccountId, accountId, transfer.getMoney());
+                    TransferInboxEntity received = new TransferInboxEntity();
+                    received.setTransferId(transfer.getId());
+                    received.setCreatedAt(Instant.now());
+                    inboxRepository.save(received);
+                }
+            }));
+        } catch (BaseAccountException e) {
+            refusal = e;
+        }
+        TransferOutboxEntity.Status status = refusal == null ? TransferOutboxEntity.Status.DONE
+                : TransferOutboxEntity.Status.COMPENSATED;
+        ShardRoutingDataSource.run(shard, () -> locked(accountId, () -> {
+            if (outboxRepository.finish(transfer.getId(), TransferOutboxEntity.Status.PENDING, status) == 1
+                    && status == TransferOutboxEntity.Status.COMPENSATED) {
+                credit(accountId, recipientAccountId, transfer.getMoney());
+            }
+        }));
+        if (refusal != null) {
+            throw refusal;
+        }
+    }
+
+    private void locked(String accountId, Runnable work) {
+        accountLocks.lock(accountId);
+        try {
+            transactionTemplate.execute((TransactionCallback<Void>) status -> {
+                work.run();
+                return null;
+            });
+        } finally {
+            accountLocks.unlock(accountId);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.seven.tech.accounts.shard;
+
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Spreads the accounts over {@code accounts.shards.count} databases, each with its own connection pool, behind one
+ * {@link ShardRoutingDataSource}. Hibernate still sees a single data source: it creates the schema on shard 0 and
+ * the same schema is then created on the others. Enabled by the {@code sharded} profile.
+ */
+@Configuration
+@Profile("sharded")
+public class ShardingConfiguration {
+
+    @Bean
+    public ShardRouter shardRouter(@Value("${accounts.shards.count:4}") int shardCount,
+                                   @Value("${accounts.shards.virtual-nodes:64}") int virtualNodes) {
+        return new ShardRouter(shardCount, virtualNodes);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardRouter shardRouter,
+                                 @Value("${accounts.shards.url-template}") String urlTemplate,
+                                 @Value("${spring.datasource.username:sa}") String username,
+                                 @Value("${spring.datasource.password:}") String password) {
+        Map<Object, Object> shards = new HashMap<>();
+        for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+            shards.put(shard, DataSourceBuilder.create()
+                    .url(String.format(urlTemplate, shard))
+                    .username(username)
+                    .password(password)
+                    .build());
+        }
+        ShardRoutingDataSource dataSource = new ShardRoutingDataSource();
+        dataSource.setTargetDataSources(shards);
+        dataSource.setDefaultTargetDataSource(shards.get(0));
+        return dataSource;
+    }
+
+    @Bean
+    public ShardSchemaIntegrator shardSchemaIntegrator() {
+        return new ShardSchemaIntegrator();
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer shardSchemaCustomizer(ShardSchemaIntegrator shardSchemaIntegrator) {
+        return properties -> properties.put("hibernate.integrator_provider",
+                (IntegratorProvider) () -> Collections.singletonList(shardSchemaIntegrator));
+    }
+
+    @Bean
+    public SmartInitializingSingleton shardSchemaInitializer(ShardSchemaIntegrator shardSchemaIntegrator,
+                                                             ShardRouter shardRouter,
+                                                             EntityManagerFactory entityManagerFactory) {
+        return () -> {
+            for (int shard = 1; shard < shardRouter.getShardCount(); shard++) {
+                shardSchemaIntegrator.updateSchema(shard);
+            }
+        };
+    }
+}
@@ -1,8 +1,16 @@
 package com.seven.tech.accounts;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.seven.tech.accounts.exception.AccountEntityNotFoundException;
 import com.seven.tech.accounts.exception.AccountNotEnoughMoneyException;
+import com.seven.tech.accounts.exception.IdempotencyKeyReusedException;
+import com.seven.tech.accounts.exception.InvalidAccountCountException;
+import com.seven.tech.accounts.exception.InvalidMoneyException;
+import com.seven.tech.accounts.exception.TransferBatchRolledBackException;
+import com.seven.tech.accounts.idempotency.IdempotencyStore;
 import com.seven.tech.accounts.json.MoneyJson;
+import com.seven.tech.accounts.json.TransferBatchJson;
+import com.seven.tech.accounts.json.TransferJson;
 import org.junit.jupiter.api.DynamicTest;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestFactory;
@@ -12,11 +20,21 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
@@ -34,8 +52,8 @@ import static org.junit.jupiter.api.DynamicTest.dynamicTest;
 class AccountsApplicationTests {
 
 	private static final int EXPECTED_LENGTH_ID = 36;
-	private static final BigDecimal INITIAL_BALANCE = BigDecimal.valueOf(20000).setScale(2, RoundingMode.HALF_EVEN);
-	private static final BigDecimal TRANSFER_VALUE = BigDecimal.TEN.setScale(2, RoundingMode.HALF_EVEN);
+	static final BigDecimal INITIAL_BALANCE = BigDecimal.valueOf(20000).setScale(2, RoundingMode.HALF_EVEN);
+	static final BigDecimal TRANSFER_VALUE = BigDecimal.TEN.setScale(2, RoundingMode.HALF_EVEN);
 	private static final int COUNT_TREADS = 40;
 
 	@LocalServerPort
@@ -56,6 +74,29 @@ class AccountsApplicationTests {
 		assertThat(response.getResult().length()).isEqualTo(EXPECTED_LENGTH_ID);
 	}
 
+	@Test
+	void createAccountsShouldStreamNewAccountIds() {
+		JsonNode response = createAccounts(1500);
+
+		assertTrue(response.get("success").asBoolean());
+		JsonNode accountIds = response.get("result");
+		assertEquals(1500, accountIds.size());
+		Set<String> distinct = new HashSet<>();
+		accountIds.forEach(accountId -> distinct.add(accountId.asText()));
+		assertEquals(1500, distinct.size());
+		String last = accountIds.get(accountIds.size() - 1).asText();
+		assertThat(last.length()).isEqualTo(EXPECTED_LENGTH_ID);
+		assertThat(getBalance(last).getResult().getMoney()).isEqualTo(BigDecimal.ZERO.setScale(2, RoundingMode.HALF_EVEN));
+	}
+
+	@Test
+	void createAccountsShouldReturnErrorWhenCountOutOfRange() {
+		JsonNode response = createAccounts(0);
+
+		assertFalse(response.get("success").asBoolean());
+		assertThat(response.get("errorCode").asText()).isEqualTo(InvalidAccountCountException.CODE);
+	}
+
 	@Test
 	void getBalanceShouldReturnZeroWhenNewAccount() {
 		String idAccount = createAccount().getResult();
@@ -107,6 +148,44 @@ class AccountsApplicationTests {
 		assertThat(response.getErrorCode()).isEqualTo(AccountNotEnoughMoneyException.CODE);
 	}
 
+	@Test
+	void increaseBalanceShouldReturnErrorWhenMoneyHasTooManyFractionDigits() {
+		String accountId = createAccount().getResult();
+
+		BaseResult<MoneyJson> response = increaseBalance(accountId, new MoneyJson(new BigDecimal("0.001")));
+
+		assertFalse(response.isSuccess());
+		assertThat(response.getErrorCode()).isEqualTo(InvalidMoneyException.CODE);
+		assertThat(getBalance(accountId).getResult().getMoney()).isEqualTo(BigDecimal.ZERO.setScale(2, RoundingMode.HALF_EVEN));
+	}
+
+	@Test
+	void transferMoneyShouldReturnErrorWhenMoneyIsNotPositive() {
+		String accountId = createAccount().getResult();
+		increaseBalance(accountId, new MoneyJson(INITIAL_BALANCE));
+		String recipientAccountId = createAccount().getResult();
+		increaseBalance(recipientAccountId, new MoneyJson(INITIAL_BALANCE));
+
+		BaseResult<Boolean> negative = transferMoney(accountId, recipientAccountId, new MoneyJson(TRANSFER_VALUE.negate()));
+		BaseResult<Boolean> zero = transferMoney(accountId, recipientAccountId, new MoneyJson(BigDecimal.ZERO));
+
+		assertThat(negative.getErrorCode()).isEqualTo(InvalidMoneyException.CODE);
+		assertThat(zero.getErrorCode()).isEqualTo(InvalidMoneyException.CODE);
+		assertEquals(INITIAL_BALANCE, getBalance(accountId).getResult().getMoney());
+		assertEquals(INITIAL_BALANCE, getBalance(recipientAccountId).getResult().getMoney());
+	}
+
+	@Test
+	void increaseBalanceShouldReturnErrorWhenMoneyIsNegative() {
+		String accountId = createAccount().getResult();
+
+		BaseResult<MoneyJson> response = increaseBalance(accountId, new MoneyJson(TRANSFER_VALUE.negate()));
+
+		assertFalse(response.isSuccess());
+		assertThat(response.getErrorCode()).isEqualTo(InvalidMoneyException.CODE);
+		assertThat(getBalance(accountId).getResult().getMoney()).isEqualTo(BigDecimal.ZERO.setScale(2, RoundingMode.HALF_EVEN));
+	}
+
 	@Test
 	void reduceBalanceShouldReturnBalanceWhenBalanceAccountNotEmpty() {
 		String accountId = createAccount().getResult();
@@ -142,6 +221,160 @@ class AccountsApplicationTests {
 		assertThat(response.getErrorCode()).isEqualTo(AccountNotEnoughMoneyException.CODE);
 	}
 
+	@Test
+	void transferMoneyBatchShouldApplyEveryTransferOnItsOwn() {
+		String accountId = createAccount().getResult();
+		increaseBalance(accountId, new MoneyJson(INITIAL_BALANCE));
+		String middleAccountId = createAccount().getResult();
+		String recipientAccountId = createAccount().getResult();
+
+		BaseResult<List<BaseResult<Boolean>>> response = transferMoneyBatch(new TransferBatchJson(false, Arrays.asList(
+				new TransferJson(accountId, middleAccountId, TRANSFER_VALUE),
+				new TransferJson(middleAccountId, recipientAccountId, TRANSFER_VALUE.add(TRANSFER_VALUE)),
+				new TransferJson(accountId, recipientAccountId, TRANSFER_VALUE))));
+
+		assertTrue(response.isSuccess());
+		assertTrue(response.getResult().get(0).isSuccess());
+		assertThat(response.getResult().get(1).getErrorCode()).isEqualTo(AccountNotEnoughMoneyException.CODE);
+		assertTrue(response.getResult().get(2).isSuccess());
+		assertEquals(INITIAL_BALANCE.subtract(TRANSFER_VALUE.add(TRANSFER_VALUE)), getBalance(accountId).getResult().getMoney());
+		assertEquals(TRANSFER_VALUE, getBalance(middleAccountId).getResult().getMoney());
+		assertEquals(TRANSFER_VALUE, getBalance(recipientAccountId).getResult().getMoney());
+	}
+
+	@Test
+	void atomicTransferMoneyBatchShouldRollBackWhenOneTransferFails() {
+		String accountId = createAccount().getResult();
+		increaseBalance(accountId, new MoneyJson(INITIAL_BALANCE));
+		String middleAccountId = createAccount().getResult();
+		String recipientAccountId = createAccount().getResult();
+
+		BaseResult<List<BaseResult<Boolean>>> response = transferMoneyBatch(new TransferBatchJson(true, Arrays.asList(
+				new TransferJson(accountId, middleAccountId, TRANSFER_VALUE),
+				new TransferJson(middleAccountId, recipientAccountId, TRANSFER_VALUE.add(TRANSFER_VALUE)),
+				new TransferJson(accountId, recipientAccountId, TRANSFER_VALUE))));
+
+		assertTrue(response.isSuccess());
+		assertThat(response.getResult().get(0).getErrorCode()).isEqualTo(TransferBatchRolledBackException.CODE);
+		assertThat(response.getResult().get(1).getErrorCode()).isEqualTo(AccountNotEnoughMoneyException.CODE);
+		assertThat(response.getResult().get(2).getErrorCode()).isEqualTo(TransferBatchRolledBackException.CODE);
+		assertEquals(INITIAL_BALANCE, getBalance(accountId).getResult().getMoney());
+		assertEquals(BigDecimal.ZERO.setScale(2, RoundingMode.HALF_EVEN), getBalance(middleAccountId).getResult().getMoney());
+		assertEquals(BigDecimal.ZERO.setScale(2, RoundingMode.HALF_EVEN), getBalance(recipientAccountId).getResult().getMoney());
+	}
+
+	@Test
+	void transferMoneyBatchWithInvalidAmountShouldFailOnlyThatTransfer() {
+		String accountId = createAccount().getResult();
+		increaseBalance(accountId, new MoneyJson(INITIAL_BALANCE));
+		String recipientAccountId = createAccount().getResult();
+		HttpHeaders headers = new HttpHeaders();
+		headers.set(IdempotencyStore.HEADER, UUID.randomUUID().toString());
+		TransferBatchJson batch = new TransferBatchJson(false, Arrays.asList(
+				new TransferJson(accountId, recipientAccountId, TRANSFER_VALUE),
+				new TransferJson(accountId, recipientAccountId, new BigDecimal("0.001")),
+				new TransferJson(accountId, recipientAccountId, null)));
+
+		BaseResult<List<BaseResult<Boolean>>> response = restTemplate.exchange(getBasicUrl() + "transfers/batch",
+				HttpMethod.POST, new HttpEntity<>(batch, headers),
+				new ParameterizedTypeReference<BaseResult<List<BaseResult<Boolean>>>>() {}).getBody();
+
+		assertTrue(response.isSuccess());
+		assertTrue(response.getResult().get(0).isSuccess());
+		assertThat(response.getResult().get(1).getErrorCode()).isEqualTo(InvalidMoneyException.CODE);
+		assertThat(response.getResult().get(2).getErrorCode()).isEqualTo(InvalidMoneyException.CODE);
+		assertEquals(TRANSFER_VALUE, getBalance(recipientAccountId).getResult().getMoney());
+	}
+
+	@Test
+	void transferMoneyBatchWithoutTransfersShouldBeEmpty() {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setContentType(MediaType.APPLICATION_JSON);
+		BaseResult<List<BaseResult<Boolean>>> response = restTemplate.exchange(getBasicUrl() + "transfers/batch",
+				HttpMethod.POST, new HttpEntity<>("{\"atomic\":false}", headers),
+				new ParameterizedTypeReference<BaseResult<List<BaseResult<Boolean>>>>() {}).getBody();
+
+		assertTrue(response.isSuccess());
+		assertThat(response.getResult()).isEmpty();
+	}
+
+	@Test
+	void transferMoneyRetriedWithIdempotencyKeyShouldMoveMoneyOnce() {
+		String accountId = createAccount().getResult();
+		increaseBalance(accountId, new MoneyJson(INITIAL_BALANCE));
+		String recipientAccountId = createAccount().getResult();
+		HttpHeaders headers = new HttpHeaders();
+		headers.set(IdempotencyStore.HEADER, UUID.randomUUID().toString());
+		HttpEntity<MoneyJson> request = new HttpEntity<>(new MoneyJson(TRANSFER_VALUE), headers);
+		String url = getBasicUrl() + accountId + "/transferMoney/" + recipientAccountId;
+
+		BaseResult<Boolean> response = restTemplate.postForObject(url, request, BaseResult.class);
+		BaseResult<Boolean> retried = restTemplate.postForObject(url, request, BaseResult.class);
+		BaseResult<Boolean> reused = restTemplate.postForObject(url,
+				new HttpEntity<>(new MoneyJson(TRANSFER_VALUE.add(TRANSFER_VALUE)), headers), BaseResult.class);
+
+		assertTrue(response.getResult());
+		assertTrue(retried.getResult());
+		assertThat(reused.getErrorCode()).isEqualTo(IdempotencyKeyReusedException.CODE);
+		assertEquals(TRANSFER_VALUE, getBalance(recipientAccountId).getResult().getMoney());
+	}
+
+	@Test
+	void historyShouldListOperationsNewestFirstInPages() {
+		String accountId = createAccount().getResult();
+		String recipientAccountId = createAccount().getResult();
+		increaseBalance(accountId, new MoneyJson(INITIAL_BALANCE));
+		reduceBalance(accountId, new MoneyJson(TRANSFER_VALUE));
+		transferMoney(accountId, recipientAccountId, new MoneyJson(TRANSFER_VALUE));
+
+		JsonNode firstPage = getHistory(accountId, "?limit=2");
+		JsonNode secondPage = getHistory(accountId, "?limit=2&before=" + firstPage.at("/result/next").asLong());
+
+		assertTrue(firstPage.get("success").asBoolean());
+		JsonNode operations = firstPage.at("/result/operations");
+		assertEquals(2, operations.size());
+		assertEquals(recipientAccountId, operations.get(0).get("counterpartyId").asText());
+		assertThat(operations.get(0).get("amount").decimalValue()).isEqualByComparingTo(TRANSFER_VALUE.negate());
+		assertThat(operations.get(0).get("balance").decimalValue())
+				.isEqualByComparingTo(INITIAL_BALANCE.subtract(TRANSFER_VALUE).subtract(TRANSFER_VALUE));
+		assertFalse(operations.get(1).has("counterpartyId"));
+		assertEquals(1, secondPage.at("/result/operations").size());
+		assertThat(secondPage.at("/result/operations/0/amount").decimalValue()).isEqualByComparingTo(INITIAL_BALANCE);
+		assertTrue(secondPage.at("/result/next").isNull());
+		assertThat(getHistory(recipientAccountId, "").at("/result/operations/0/balance").decimalValue())
+				.isEqualByComparingTo(TRANSFER_VALUE);
+	}
+
+	@Test
+	void historyShouldReturnErrorWhenAccountNotFound() {
+		JsonNode response = getHistory(UUID.randomUUID().toString(), "");
+
+		assertFalse(response.get("success").asBoolean());
+		assertThat(response.get("errorCode").asText()).isEqualTo(AccountEntityNotFoundException.CODE);
+	}
+
+	@Test
+	void balanceAuditShouldFindBalancesAddingUpToDeposits() {
+		String accountId = createAccount().getResult();
+		increaseBalance(accountId, new MoneyJson(INITIAL_BALANCE));
+		String recipientAccountId = createAccount().getResult();
+		transferMoney(accountId, recipientAccountId, new MoneyJson(TRANSFER_VALUE));
+		reduceBalance(recipientAccountId, new MoneyJson(TRANSFER_VALUE));
+
+		HttpHeaders headers = new HttpHeaders();
+		headers.setContentType(MediaType.APPLICATION_JSON);
+		ResponseEntity<JsonNode> response = restTemplate.postForEntity(getActuatorUrl() + "balanceaudit",
+				new HttpEntity<>("{}", headers), JsonNode.class);
+
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		JsonNode report = response.getBody();
+		assertThat(report.get("accounts").asLong()).isGreaterThanOrEqualTo(2);
+		assertThat(report.get("negativeAccounts").asLong()).isZero();
+		assertTrue(report.get("balanced").asBoolean());
+		assertEquals(report.toString(),
+				restTemplate.getForObject(getActuatorUrl() + "balanceaudit", JsonNode.class).toString());
+	}
+
 	@Execution(ExecutionMode.CONCURRENT)
 	@TestFactory
 	Collection<DynamicTest> concurrentTransferShouldNotToLoseMoney() {
@@ -213,11 +446,11 @@ class AccountsApplicationTests {
 
 
 
-	private BaseResult<MoneyJson> getBalance(String accountId) {
+	BaseResult<MoneyJson> getBalance(String accountId) {
 		return restTemplate.getForObject(getBasicUrl() + accountId + "/getBalance", MoneyBaseResult.class);
 	}
 
-	private BaseResult<MoneyJson> increaseBalance(String accountId, MoneyJson moneyJson) {
+	BaseResult<MoneyJson> increaseBalance(String accountId, MoneyJson moneyJson) {
 		return restTemplate.postForObject(getBasicUrl() + accountId + "/increaseBalance", moneyJson, MoneyBaseResult.class);
 	}
 
@@ -230,12 +463,29 @@ class AccountsApplicationTests {
 				moneyJson, BaseResult.class);
 	}
 
-	private BaseResult<String> createAccount() {
+	BaseResult<List<BaseResult<Boolean>>> transferMoneyBatch(TransferBatchJson batch) {
+		return restTemplate.exchange(getBasicUrl() + "transfers/batch", HttpMethod.POST, new HttpEntity<>(batch),
+				new ParameterizedTypeReference<BaseResult<List<BaseResult<Boolean>>>>() {}).getBody();
+	}
+
+	JsonNode getHistory(String accountId, String query) {
+		return restTemplate.getForObject(getBasicUrl() + accountId + "/history" + query, JsonNode.class);
+	}
+
+	BaseResult<String> createAccount() {
 		return restTemplate.postForObject(getBasicUrl() + "/createAccount", null, BaseResult.class);
 	}
 
+	private JsonNode createAccounts(long count) {
+		return restTemplate.postForObject(getBasicUrl() + "createAccounts?count=" + count, null, JsonNode.class);
+	}
+
 	private String getBasicUrl() {
 		return "http://localhost:" + port + "/account/";
 	}
 
+	private String getActuatorUrl() {
+		return "http://localhost:" + port + "/actuator/";
+	}
+
 }
@@ -0,0 +1,10 @@
+package com.seven.tech.accounts;
+
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Runs the REST contract of {@link AccountsApplicationTests} against the asynchronous controller.
+ */
+@ActiveProfiles("async")
+class AsyncAccountsApplicationTests extends AccountsApplicationTests {
+}
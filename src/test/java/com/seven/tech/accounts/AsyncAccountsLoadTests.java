@@ -0,0 +1,92 @@
+package com.seven.tech.accounts;
+
+import com.seven.tech.accounts.json.MoneyJson;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Hammers one account through a deliberately small Tomcat pool and checks that requests for unrelated accounts
+ * are served about as fast as without the load.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = {"server.tomcat.threads.max=8", "spring.jpa.show-sql=false"})
+@ActiveProfiles("async")
+class AsyncAccountsLoadTests {
+
+	private static final Logger log = LoggerFactory.getLogger(AsyncAccountsLoadTests.class);
+	private static final int HAMMER_THREADS = 32;
+	private static final int SAMPLES = 100;
+	private static final MoneyJson MONEY = new MoneyJson(BigDecimal.ONE);
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Test
+	void unrelatedAccountLatencyShouldStayFlatWhileOneAccountIsHammered() throws InterruptedException {
+		String hotAccountId = createAccount();
+		String accountId = createAccount();
+		measureP99(accountId);
+		long idleP99 = measureP99(accountId);
+
+		AtomicBoolean hammering = new AtomicBoolean(true);
+		ExecutorService hammer = Executors.newFixedThreadPool(HAMMER_THREADS);
+		for (int t = 0; t < HAMMER_THREADS; t++) {
+			hammer.execute(() -> {
+				while (hammering.get()) {
+					increaseBalance(hotAccountId);
+				}
+			});
+		}
+		Thread.sleep(500);
+		long loadedP99 = measureP99(accountId);
+		hammering.set(false);
+		hammer.shutdown();
+		assertTrue(hammer.awaitTermination(30, TimeUnit.SECONDS));
+
+		log.info("unrelated account p99: {} us idle, {} us with {} clients on one account",
+				TimeUnit.NANOSECONDS.toMicros(idleP99), TimeUnit.NANOSECONDS.toMicros(loadedP99), HAMMER_THREADS);
+		assertThat(loadedP99).isLessThan(idleP99 * 5 + TimeUnit.MILLISECONDS.toNanos(50));
+	}
+
+	private long measureP99(String accountId) {
+		long[] latencies = new long[SAMPLES];
+		for (int i = 0; i < SAMPLES; i++) {
+			long start = System.nanoTime();
+			increaseBalance(accountId);
+			latencies[i] = System.nanoTime() - start;
+		}
+		Arrays.sort(latencies);
+		return latencies[SAMPLES * 99 / 100];
+	}
+
+	private void increaseBalance(String accountId) {
+		restTemplate.postForObject(getBasicUrl() + accountId + "/increaseBalance", MONEY, BaseResult.class);
+	}
+
+	private String createAccount() {
+		return (String) restTemplate.postForObject(getBasicUrl() + "createAccount", null, BaseResult.class).getResult();
+	}
+
+	private String getBasicUrl() {
+		return "http://localhost:" + port + "/account/";
+	}
+}
@@ -0,0 +1,25 @@
+package com.seven.tech.accounts;
+
+import com.seven.tech.accounts.service.ConcurrentDecoratorAccountService;
+import com.seven.tech.accounts.service.SingleAccountUpdate;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs the REST contract of {@link AccountsApplicationTests} with deposits and withdrawals applied as guarded
+ * updates without JVM locks, next to transfers and batches that still take them.
+ */
+@TestPropertySource(properties = "accounts.single-account-update=ATOMIC")
+class AtomicSingleAccountUpdateApplicationTests extends AccountsApplicationTests {
+
+	@Autowired
+	private ConcurrentDecoratorAccountService accountService;
+
+	@Test
+	void depositsAndWithdrawalsShouldSkipTheLocks() {
+		assertEquals(SingleAccountUpdate.ATOMIC, accountService.getSingleAccountUpdate());
+	}
+}
@@ -0,0 +1,34 @@
+package com.seven.tech.accounts;
+
+import com.seven.tech.accounts.service.AccountService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs the REST contract of {@link AccountsApplicationTests} with time-ordered account ids stored as 16 bytes, in a
+ * database of its own since the schema differs.
+ */
+@TestPropertySource(properties = {"accounts.ids.format=BINARY",
+		"spring.datasource.url=jdbc:h2:mem:binaryIds;LOCK_TIMEOUT=10000"})
+class BinaryAccountIdsApplicationTests extends AccountsApplicationTests {
+
+	@Autowired
+	private AccountService accountService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void accountIdShouldBeStoredAsSixteenBytes() {
+		String accountId = accountService.createAccount();
+
+		assertEquals("VARBINARY", jdbcTemplate.queryForObject("select type_name from information_schema.columns " +
+				"where table_name = 'ACCOUNT' and column_name = 'ID'", String.class));
+		assertEquals(16, jdbcTemplate.queryForObject("select max(length(id)) from account", Integer.class));
+		assertEquals('7', accountId.charAt(14));
+	}
+}
@@ -0,0 +1,79 @@
+package com.seven.tech.accounts;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.seven.tech.accounts.exception.AccountHistoryNotKeptException;
+import com.seven.tech.accounts.exception.AtomicTransferBatchNotSupportedException;
+import com.seven.tech.accounts.json.MoneyJson;
+import com.seven.tech.accounts.json.TransferBatchJson;
+import com.seven.tech.accounts.json.TransferJson;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Runs the REST contract of {@link AccountsApplicationTests} against the in-memory ledger.
+ */
+@ActiveProfiles("ledger")
+class LedgerAccountsApplicationTests extends AccountsApplicationTests {
+
+	@DynamicPropertySource
+	static void ledgerProperties(DynamicPropertyRegistry registry) throws IOException {
+		String journalDir = Files.createTempDirectory("ledger").toString();
+		registry.add("accounts.ledger.journal-dir", () -> journalDir);
+		registry.add("accounts.ledger.fsync", () -> "false");
+	}
+
+	/**
+	 * The ledger applies transfer batches per item only, so an atomic one is refused as a whole.
+	 */
+	@Test
+	@Override
+	void atomicTransferMoneyBatchShouldRollBackWhenOneTransferFails() {
+		String accountId = createAccount().getResult();
+		increaseBalance(accountId, new MoneyJson(INITIAL_BALANCE));
+		String recipientAccountId = createAccount().getResult();
+
+		BaseResult<List<BaseResult<Boolean>>> response = transferMoneyBatch(new TransferBatchJson(true,
+				Collections.singletonList(new TransferJson(accountId, recipientAccountId, TRANSFER_VALUE))));
+
+		assertFalse(response.isSuccess());
+		assertThat(response.getErrorCode()).isEqualTo(AtomicTransferBatchNotSupportedException.CODE);
+		assertEquals(INITIAL_BALANCE, getBalance(accountId).getResult().getMoney());
+	}
+
+	/**
+	 * The ledger keeps no account history.
+	 */
+	@Test
+	@Override
+	void historyShouldListOperationsNewestFirstInPages() {
+		String accountId = createAccount().getResult();
+		increaseBalance(accountId, new MoneyJson(INITIAL_BALANCE));
+
+		assertHistoryNotKept(accountId);
+	}
+
+	@Test
+	@Override
+	void historyShouldReturnErrorWhenAccountNotFound() {
+		assertHistoryNotKept(UUID.randomUUID().toString());
+	}
+
+	private void assertHistoryNotKept(String accountId) {
+		JsonNode response = getHistory(accountId, "");
+
+		assertFalse(response.get("success").asBoolean());
+		assertThat(response.get("errorCode").asText()).isEqualTo(AccountHistoryNotKeptException.CODE);
+	}
+}
@@ -0,0 +1,24 @@
+package com.seven.tech.accounts;
+
+import com.seven.tech.accounts.service.OptimisticAccountService;
+import com.seven.tech.accounts.service.OptimisticStrategy;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs the REST contract of {@link AccountsApplicationTests} against the service that takes no JVM locks.
+ */
+@ActiveProfiles("optimistic")
+class OptimisticAccountsApplicationTests extends AccountsApplicationTests {
+
+	@Autowired
+	private OptimisticAccountService accountService;
+
+	@Test
+	void changesShouldBeGuardedByTheDatabase() {
+		assertEquals(OptimisticStrategy.CONDITIONAL_UPDATE, accountService.getStrategy());
+	}
+}
@@ -0,0 +1,49 @@
+package com.seven.tech.accounts;
+
+import com.seven.tech.accounts.exception.AtomicTransferBatchNotSupportedException;
+import com.seven.tech.accounts.json.MoneyJson;
+import com.seven.tech.accounts.json.TransferBatchJson;
+import com.seven.tech.accounts.json.TransferJson;
+import com.seven.tech.accounts.shard.ShardRouter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Runs the REST contract of {@link AccountsApplicationTests} against accounts spread over several databases, where
+ * most transfers cross shards.
+ */
+@ActiveProfiles("sharded")
+class ShardedAccountsApplicationTests extends AccountsApplicationTests {
+
+	@Autowired
+	private ShardRouter shardRouter;
+
+	/**
+	 * Atomic transfer batches cannot span shards, so such a batch is refused as a whole.
+	 */
+	@Test
+	@Override
+	void atomicTransferMoneyBatchShouldRollBackWhenOneTransferFails() {
+		String accountId = createAccount().getResult();
+		increaseBalance(accountId, new MoneyJson(INITIAL_BALANCE));
+		String recipientAccountId;
+		do {
+			recipientAccountId = createAccount().getResult();
+		} while (shardRouter.shardOf(recipientAccountId) == shardRouter.shardOf(accountId));
+
+		BaseResult<List<BaseResult<Boolean>>> response = transferMoneyBatch(new TransferBatchJson(true,
+				Collections.singletonList(new TransferJson(accountId, recipientAccountId, TRANSFER_VALUE))));
+
+		assertFalse(response.isSuccess());
+		assertThat(response.getErrorCode()).isEqualTo(AtomicTransferBatchNotSupportedException.CODE);
+		assertEquals(INITIAL_BALANCE, getBalance(accountId).getResult().getMoney());
+	}
+}
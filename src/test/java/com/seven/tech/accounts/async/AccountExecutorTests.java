@@ -0,0 +1,75 @@
+package com.seven.tech.accounts.async;
+
+import com.seven.tech.accounts.exception.AccountBusyException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AccountExecutorTests {
+
+	@Test
+	void fullQueueShouldRejectWithRetryableError() throws Exception {
+		AccountExecutor executor = new AccountExecutor(2, 1, Duration.ofSeconds(30));
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger runs = new AtomicInteger();
+		try {
+			CompletableFuture<Integer> running = executor.submit("a", () -> await(release, runs));
+			CompletableFuture<Integer> queued = executor.submit("a", () -> await(release, runs));
+			CompletableFuture<Integer> rejected = executor.submit("a", () -> await(release, runs));
+			CompletableFuture<Integer> other = executor.submit("b", runs::incrementAndGet);
+
+			assertBusy(rejected);
+			other.get(5, TimeUnit.SECONDS);
+			release.countDown();
+			running.get(5, TimeUnit.SECONDS);
+			queued.get(5, TimeUnit.SECONDS);
+			assertEquals(3, runs.get());
+		} finally {
+			release.countDown();
+			executor.stop();
+		}
+	}
+
+	@Test
+	void operationQueuedPastRequestTimeoutShouldNotRun() throws Exception {
+		AccountExecutor executor = new AccountExecutor(1, 10, Duration.ofMillis(50));
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger runs = new AtomicInteger();
+		try {
+			CompletableFuture<Integer> running = executor.submit("a", () -> await(release, runs));
+			CompletableFuture<Integer> queued = executor.submit("a", runs::incrementAndGet);
+			Thread.sleep(100);
+			release.countDown();
+
+			running.get(5, TimeUnit.SECONDS);
+			assertBusy(queued);
+			assertEquals(1, runs.get());
+		} finally {
+			release.countDown();
+			executor.stop();
+		}
+	}
+
+	private static int await(CountDownLatch release, AtomicInteger runs) {
+		try {
+			release.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return runs.incrementAndGet();
+	}
+
+	private static void assertBusy(CompletableFuture<Integer> future) {
+		ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+		assertThat(e.getCause()).isInstanceOf(AccountBusyException.class);
+	}
+}
@@ -0,0 +1,81 @@
+package com.seven.tech.accounts.audit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BalanceSheetTests {
+	private final ForkJoinPool pool = new ForkJoinPool(4);
+
+	@AfterEach
+	void stop() {
+		pool.shutdown();
+	}
+
+	@Test
+	void shouldSumBalancesOfManyChunks() throws InterruptedException {
+		BalanceSheet sheet = new BalanceSheet(pool);
+		int accounts = 10 * BalanceSheet.CHUNK_SIZE + 7;
+		for (int i = 0; i < accounts; i++) {
+			sheet.add("a" + i, 100);
+		}
+		sheet.addExpected(100L * accounts);
+
+		BalanceAuditReport report = sheet.finish();
+
+		assertEquals(accounts, report.getAccounts());
+		assertEquals(BigDecimal.valueOf(100L * accounts, 2), report.getTotal());
+		assertTrue(report.isBalanced());
+	}
+
+	@Test
+	void totalShouldNotOverflow() throws InterruptedException {
+		BalanceSheet sheet = new BalanceSheet(pool);
+		sheet.add("a", Long.MAX_VALUE);
+		sheet.add("b", Long.MAX_VALUE);
+		sheet.add("c", 2);
+
+		BalanceAuditReport report = sheet.finish();
+
+		assertEquals(new BigDecimal(BigDecimal.valueOf(Long.MAX_VALUE).multiply(BigDecimal.valueOf(2))
+				.add(BigDecimal.valueOf(2)).toBigInteger(), 2), report.getTotal());
+		assertNull(report.getExpectedTotal());
+	}
+
+	@Test
+	void shouldFlagNegativeBalances() throws InterruptedException {
+		BalanceSheet sheet = new BalanceSheet(pool);
+		sheet.add("a", 100);
+		sheet.add("b", -100);
+		sheet.addExpected(0);
+
+		BalanceAuditReport report = sheet.finish();
+
+		assertEquals(1, report.getNegativeAccounts());
+		assertThat(report.getNegativeSamples()).containsExactly("b");
+		assertFalse(report.isBalanced());
+	}
+
+	@Test
+	void moneyInTransitShouldCountTowardsTheTotal() throws InterruptedException {
+		BalanceSheet sheet = new BalanceSheet(pool);
+		sheet.add("a", 70);
+		sheet.addInTransit(30);
+		sheet.addExpected(150);
+		sheet.addExpected(-50);
+
+		BalanceAuditReport report = sheet.finish();
+
+		assertEquals(BigDecimal.valueOf(30, 2), report.getInTransit());
+		assertEquals(BigDecimal.valueOf(100, 2), report.getExpectedTotal());
+		assertTrue(report.isBalanced());
+	}
+}
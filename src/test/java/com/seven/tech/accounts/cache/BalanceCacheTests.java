@@ -0,0 +1,54 @@
+package com.seven.tech.accounts.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BalanceCacheTests {
+
+	@Test
+	void shouldCountHitsAndMisses() {
+		BalanceCache cache = new BalanceCache(16);
+		assertEquals(BalanceCache.MISS, cache.get("a"));
+		cache.putLoaded("a", 1000L, 1, cache.stamp("a"));
+		assertEquals(1000L, cache.get("a"));
+		assertEquals(1, cache.getHits());
+		assertEquals(1, cache.getMisses());
+	}
+
+	@Test
+	void shouldEvictLeastRecentlyUsedAccount() {
+		BalanceCache cache = new BalanceCache(1);
+		cache.putCommitted("a", 100L, 1);
+		cache.putCommitted("b", 1000L, 1);
+		assertEquals(BalanceCache.MISS, cache.get("a"));
+		assertEquals(1000L, cache.get("b"));
+		assertEquals(1, cache.getSize());
+		assertEquals(1, cache.getEvictions());
+	}
+
+	@Test
+	void olderVersionShouldNotReplaceNewerOne() {
+		BalanceCache cache = new BalanceCache(16);
+		cache.putCommitted("a", 1000L, 2);
+		cache.putCommitted("a", 100L, 1);
+		assertEquals(1000L, cache.get("a"));
+	}
+
+	@Test
+	void loadStartedBeforeACommitShouldNotBeCached() {
+		BalanceCache cache = new BalanceCache(16);
+		long stamp = cache.stamp("a");
+		cache.invalidate("a");
+		cache.putLoaded("a", 100L, 1, stamp);
+		assertEquals(BalanceCache.MISS, cache.get("a"));
+	}
+
+	@Test
+	void zeroSizeShouldDisableCache() {
+		BalanceCache cache = new BalanceCache(0);
+		cache.putCommitted("a", 100L, 1);
+		assertEquals(BalanceCache.MISS, cache.get("a"));
+		assertEquals(0, cache.getSize());
+	}
+}
@@ -0,0 +1,113 @@
+package com.seven.tech.accounts.event;
+
+import com.seven.tech.accounts.entity.AccountOperationEntity;
+import com.seven.tech.accounts.exception.AccountNotEnoughMoneyException;
+import com.seven.tech.accounts.repository.BalanceEventRepository;
+import com.seven.tech.accounts.service.AccountService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * The scheduled relay is slowed down so the tests can drive it, with an in-process publisher in place of the file.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+		"accounts.events.enabled=true",
+		"accounts.events.publisher=recording",
+		"accounts.events.relay-interval-millis=3600000",
+		"spring.datasource.url=jdbc:h2:mem:balanceEvents;LOCK_TIMEOUT=10000"})
+@Execution(ExecutionMode.SAME_THREAD)
+class BalanceEventRelayTests {
+
+	private static final long INITIAL_BALANCE = 10000;
+	private static final long TRANSFER_VALUE = 100;
+
+	@Autowired
+	private AccountService accountService;
+
+	@Autowired
+	private BalanceEventRelay relay;
+
+	@Autowired
+	private BalanceEventRepository repository;
+
+	@Autowired
+	private RecordingPublisher publisher;
+
+	@Test
+	void committedChangesShouldBePublishedAndDeleted() {
+		String accountId = accountService.createAccount();
+		String recipientAccountId = accountService.createAccount();
+		accountService.increaseBalance(accountId, INITIAL_BALANCE);
+		accountService.transferMoney(accountId, recipientAccountId, TRANSFER_VALUE);
+		assertThrows(AccountNotEnoughMoneyException.class,
+				() -> accountService.reduceBalance(recipientAccountId, INITIAL_BALANCE));
+
+		relay.relay();
+
+		List<AccountOperationEntity> published = publisher.drain();
+		assertThat(published.stream().map(AccountOperationEntity::getAccountId).collect(Collectors.toList()))
+				.containsExactly(accountId, accountId, recipientAccountId);
+		assertThat(published.stream().map(AccountOperationEntity::getAmount).collect(Collectors.toList()))
+				.containsExactly(INITIAL_BALANCE, -TRANSFER_VALUE, TRANSFER_VALUE);
+		assertEquals(0, repository.count());
+	}
+
+	@Test
+	void failedPublishShouldBeRetried() {
+		String accountId = accountService.createAccount();
+		accountService.increaseBalance(accountId, INITIAL_BALANCE);
+		publisher.failing.set(true);
+
+		relay.relay();
+
+		assertEquals(1, repository.count());
+		publisher.failing.set(false);
+		relay.relay();
+
+		assertThat(publisher.drain()).extracting(AccountOperationEntity::getAccountId).containsExactly(accountId);
+		assertEquals(0, repository.count());
+	}
+
+	@TestConfiguration
+	static class RecordingPublisherConfiguration {
+
+		@Bean
+		RecordingPublisher recordingPublisher() {
+			return new RecordingPublisher();
+		}
+	}
+
+	static class RecordingPublisher implements BalanceEventPublisher {
+		private final List<AccountOperationEntity> published = new CopyOnWriteArrayList<>();
+		private final AtomicBoolean failing = new AtomicBoolean();
+
+		@Override
+		public void publish(List<AccountOperationEntity> operations) {
+			if (failing.get()) {
+				throw new IllegalStateException("publisher down");
+			}
+			published.addAll(operations);
+		}
+
+		List<AccountOperationEntity> drain() {
+			List<AccountOperationEntity> drained = new ArrayList<>(published);
+			published.clear();
+			return drained;
+		}
+	}
+}
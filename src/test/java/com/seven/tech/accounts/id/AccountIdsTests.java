@@ -0,0 +1,71 @@
+package com.seven.tech.accounts.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AccountIdsTests {
+
+	@Test
+	void idShouldSurviveConversionToBytes() {
+		for (int i = 0; i < 1000; i++) {
+			String accountId = i % 2 == 0 ? AccountIds.randomId() : AccountIds.timeOrderedId();
+			byte[] bytes = AccountIds.toBytes(accountId);
+			assertEquals(AccountIds.BYTES, bytes.length);
+			assertEquals(accountId, AccountIds.fromBytes(bytes));
+		}
+	}
+
+	@Test
+	void bytesShouldBeTheBytesOfTheUuid() {
+		UUID uuid = UUID.fromString("123e4567-e89b-7002-a456-426614174000");
+		byte[] bytes = AccountIds.toBytes(uuid.toString());
+		long mostSigBits = 0;
+		long leastSigBits = 0;
+		for (int i = 0; i < 8; i++) {
+			mostSigBits = mostSigBits << 8 | bytes[i] & 0xFF;
+			leastSigBits = leastSigBits << 8 | bytes[i + 8] & 0xFF;
+		}
+		assertEquals(uuid, new UUID(mostSigBits, leastSigBits));
+	}
+
+	@Test
+	void timeOrderedIdsShouldSortByCreationTime() throws InterruptedException {
+		String first = AccountIds.timeOrderedId();
+		Thread.sleep(2);
+		String second = AccountIds.timeOrderedId();
+
+		UUID uuid = UUID.fromString(first);
+		assertEquals(7, uuid.version());
+		assertEquals(2, uuid.variant());
+		assertTrue(first.compareTo(second) < 0);
+	}
+
+	@Test
+	void onlyCanonicalIdsShouldConvert() {
+		assertNull(AccountIds.toBytes("account-1"));
+		assertNull(AccountIds.toBytes("123E4567-E89B-7002-A456-426614174000"));
+		assertNull(AccountIds.toBytes("123e4567ae89b-7002-a456-426614174000"));
+		assertNull(AccountIds.toBytes("123e4567-e89b-7002-a456-42661417400g"));
+		assertArrayEquals(new byte[16], AccountIds.toBytes("00000000-0000-0000-0000-000000000000"));
+		assertThrows(IllegalArgumentException.class, () -> AccountIds.fromBytes(new byte[15]));
+	}
+
+	@Test
+	void bitsShouldBeTheHalvesOfTheUuid() {
+		UUID uuid = UUID.fromString("123e4567-e89b-7002-a456-426614174000");
+		assertEquals(uuid.getMostSignificantBits(), AccountIds.highBits(uuid.toString()));
+		assertEquals(uuid.getLeastSignificantBits(), AccountIds.lowBits(uuid.toString()));
+		assertEquals(uuid.toString(), AccountIds.fromBits(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits()));
+		assertEquals(0, AccountIds.highBits("account-1"));
+		assertEquals(0, AccountIds.lowBits("123e4567-e89b-7002-a456-42661417400g"));
+		assertEquals(0, AccountIds.highBits("123e4567ae89b-7002-a456-426614174000"));
+		assertEquals(0, AccountIds.lowBits("123e4567-e89b-7002ea456-426614174000"));
+	}
+}
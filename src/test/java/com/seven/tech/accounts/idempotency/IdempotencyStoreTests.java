@@ -0,0 +1,123 @@
+package com.seven.tech.accounts.idempotency;
+
+import com.seven.tech.accounts.BaseResult;
+import com.seven.tech.accounts.exception.AccountBusyException;
+import com.seven.tech.accounts.exception.AccountNotEnoughMoneyException;
+import com.seven.tech.accounts.exception.IdempotencyKeyReusedException;
+import com.seven.tech.accounts.exception.IdempotencyStoreFullException;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class IdempotencyStoreTests {
+
+	@Test
+	void repeatedKeyShouldReturnFirstResponse() {
+		IdempotencyStore store = new IdempotencyStore(16, 3600, false);
+		AtomicInteger calls = new AtomicInteger();
+		BaseResult<Integer> first = store.execute("k", () -> "op", () -> new BaseResult<>(calls.incrementAndGet()));
+		BaseResult<Integer> second = store.execute("k", () -> "op", () -> new BaseResult<>(calls.incrementAndGet()));
+		assertSame(first, second);
+		assertEquals(1, calls.get());
+		assertEquals(1, store.getReplays());
+	}
+
+	@Test
+	void requestWithoutKeyShouldAlwaysRun() {
+		IdempotencyStore store = new IdempotencyStore(16, 3600, false);
+		AtomicInteger calls = new AtomicInteger();
+		store.execute(null, () -> "op", () -> new BaseResult<>(calls.incrementAndGet()));
+		store.execute(null, () -> "op", () -> new BaseResult<>(calls.incrementAndGet()));
+		assertEquals(2, calls.get());
+		assertEquals(0, store.getSize());
+	}
+
+	@Test
+	void keyReusedForAnotherRequestShouldBeRejected() {
+		IdempotencyStore store = new IdempotencyStore(16, 3600, false);
+		store.execute("k", () -> "op", () -> new BaseResult<>(1));
+		assertThrows(IdempotencyKeyReusedException.class, () -> store.execute("k", () -> "other", () -> new BaseResult<>(2)));
+	}
+
+	@Test
+	void businessErrorShouldBeReplayed() {
+		IdempotencyStore store = new IdempotencyStore(16, 3600, false);
+		AtomicInteger calls = new AtomicInteger();
+		for (int i = 0; i < 2; i++) {
+			BaseResult<Object> response = store.execute("k", () -> "op", () -> {
+				calls.incrementAndGet();
+				throw new AccountNotEnoughMoneyException("a");
+			});
+			assertFalse(response.isSuccess());
+			assertEquals(AccountNotEnoughMoneyException.CODE, response.getErrorCode());
+		}
+		assertEquals(1, calls.get());
+	}
+
+	@Test
+	void retryableErrorShouldForgetKey() {
+		IdempotencyStore store = new IdempotencyStore(16, 3600, false);
+		assertThrows(AccountBusyException.class, () -> store.execute("k", () -> "op", () -> {
+			throw new AccountBusyException("a");
+		}));
+		assertEquals(2, store.execute("k", () -> "op", () -> new BaseResult<>(2)).getResult());
+	}
+
+	@Test
+	void otherFailureShouldForgetKey() {
+		IdempotencyStore store = new IdempotencyStore(16, 3600, false);
+		assertThrows(IllegalStateException.class, () -> store.execute("k", () -> "op", () -> {
+			throw new IllegalStateException();
+		}));
+		assertEquals(1, store.execute("k", () -> "op", () -> new BaseResult<>(1)).getResult());
+	}
+
+	@Test
+	void retryOfRunningRequestShouldWaitForItsResponse() {
+		IdempotencyStore store = new IdempotencyStore(16, 3600, false);
+		CompletableFuture<BaseResult<Integer>> running = new CompletableFuture<>();
+		CompletableFuture<BaseResult<Integer>> first = store.submit("k", () -> "op", () -> running);
+		CompletableFuture<BaseResult<Integer>> retry = store.submit("k", () -> "op", () -> CompletableFuture.completedFuture(new BaseResult<>(2)));
+		assertFalse(retry.isDone());
+		running.complete(new BaseResult<>(1));
+		assertEquals(1, first.join().getResult());
+		assertEquals(1, retry.join().getResult());
+	}
+
+	@Test
+	void fullStoreShouldEvictOldestKey() {
+		IdempotencyStore store = new IdempotencyStore(1, 3600, false);
+		store.execute("a", () -> "op", () -> new BaseResult<>(1));
+		store.execute("b", () -> "op", () -> new BaseResult<>(2));
+		assertEquals(1, store.getSize());
+		assertEquals(1, store.getEvictions());
+		assertEquals(3, store.execute("a", () -> "op", () -> new BaseResult<>(3)).getResult());
+	}
+
+	@Test
+	void fullStoreShouldKeepRunningRequests() {
+		IdempotencyStore store = new IdempotencyStore(1, 3600, false);
+		CompletableFuture<BaseResult<Integer>> running = new CompletableFuture<>();
+		store.submit("a", () -> "op", () -> running);
+		assertThrows(IdempotencyStoreFullException.class, () -> store.execute("b", () -> "op", () -> new BaseResult<>(2)));
+		assertEquals(0, store.getEvictions());
+
+		running.complete(new BaseResult<>(1));
+		assertEquals(2, store.execute("b", () -> "op", () -> new BaseResult<>(2)).getResult());
+		assertEquals(1, store.getEvictions());
+	}
+
+	@Test
+	void expiredKeyShouldRunAgain() {
+		IdempotencyStore store = new IdempotencyStore(16, 0, false);
+		store.execute("k", () -> "op", () -> new BaseResult<>(1));
+		assertEquals(2, store.execute("k", () -> "op", () -> new BaseResult<>(2)).getResult());
+		assertEquals(0, store.getEvictions());
+	}
+}
@@ -0,0 +1,58 @@
+package com.seven.tech.accounts.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.seven.tech.accounts.BaseResult;
+import com.seven.tech.accounts.repository.IdempotencyRecordRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * A second store stands in for a restarted or other instance that only shares the database.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class PersistentIdempotencyStoreTests {
+
+	@Autowired
+	private IdempotencyRecordRepository recordRepository;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Test
+	void otherInstanceShouldReplayPersistedResponse() {
+		String key = UUID.randomUUID().toString();
+		newStore().execute(key, () -> "op", () -> new BaseResult<>(Arrays.asList(new BaseResult<>(true),
+				new BaseResult<>("CODE", "message"))));
+
+		BaseResult<Object> replayed = newStore().execute(key, () -> "op", () -> new BaseResult<>("applied again"));
+
+		assertEquals(Arrays.asList(true, false), ((List<?>) replayed.getResult()).stream()
+				.map(result -> ((Map<?, ?>) result).get("success")).collect(Collectors.toList()));
+	}
+
+	@Test
+	void otherInstanceShouldReplayPersistedError() {
+		String key = UUID.randomUUID().toString();
+		newStore().execute(key, () -> "op", () -> new BaseResult<>("CODE", "message"));
+
+		BaseResult<Object> replayed = newStore().execute(key, () -> "op", () -> new BaseResult<>("applied again"));
+
+		assertEquals("CODE", replayed.getErrorCode());
+	}
+
+	private IdempotencyStore newStore() {
+		IdempotencyStore store = new IdempotencyStore(16, 3600, true);
+		store.setRecordRepository(recordRepository);
+		store.setObjectMapper(objectMapper);
+		return store;
+	}
+}
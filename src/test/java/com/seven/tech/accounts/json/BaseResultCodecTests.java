@@ -0,0 +1,67 @@
+package com.seven.tech.accounts.json;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.seven.tech.accounts.BaseResult;
+import com.seven.tech.accounts.money.Money;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BaseResultCodecTests {
+
+	private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+	private final BaseResultCodec codec = new BaseResultCodec(objectMapper);
+
+	@Test
+	void shouldWriteWhatTheObjectMapperWrites() throws IOException {
+		assertWrittenAsByObjectMapper(new BaseResult<>(new MoneyJson(Money.toMoney(123456789))));
+		assertWrittenAsByObjectMapper(new BaseResult<>(new MoneyJson(Money.toMoney(-5))));
+		assertWrittenAsByObjectMapper(new BaseResult<>(new MoneyJson(new BigDecimal("1E+3"))));
+		assertWrittenAsByObjectMapper(new BaseResult<>(true));
+		assertWrittenAsByObjectMapper(new BaseResult<>("3f1c2a9e-0000-4000-8000-000000000000"));
+		assertWrittenAsByObjectMapper(new BaseResult<>(null));
+		assertWrittenAsByObjectMapper(new BaseResult<>("ACCOUNT_NOT_FOUND", "Account \"é\tx\" not found"));
+		assertWrittenAsByObjectMapper(new BaseResult<>(Arrays.asList(new BaseResult<>(true), new BaseResult<>(false))));
+		assertWrittenAsByObjectMapper(new BaseResult<>(new MoneyJson()));
+	}
+
+	@Test
+	void shouldReadMoneyBodies() throws IOException {
+		assertEquals(new BigDecimal("10.05"), read("{\"money\":10.05}"));
+		assertEquals(new BigDecimal("-0.5e2"), read(" {\n\t\"money\" : -0.5e2 } "));
+		assertEquals(new BigDecimal("10.05"), read("{\"money\":\"10.05\"}"));
+		assertEquals(new BigDecimal("7"), read("{\"currency\":\"EUR\",\"money\":7}"));
+		assertNull(read("{}"));
+		assertNull(read("{\"money\":null}"));
+	}
+
+	@Test
+	void shouldRejectWhatTheObjectMapperRejects() {
+		for (String body : new String[]{"{\"money\":01}", "{\"money\":+1}", "{\"money\":1.}", "{\"money\":.5}",
+				"{\"money\":1e}", "{\"money\":1"}) {
+			assertThrows(JsonProcessingException.class, () -> read(body), body);
+		}
+	}
+
+	private void assertWrittenAsByObjectMapper(BaseResult<?> result) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		codec.write(result, out);
+		assertArrayEquals(objectMapper.writeValueAsBytes(result), out.toByteArray(),
+				() -> out.toString(StandardCharsets.UTF_8));
+	}
+
+	private BigDecimal read(String body) throws IOException {
+		return codec.readMoney(body.getBytes(StandardCharsets.UTF_8)).getMoney();
+	}
+}
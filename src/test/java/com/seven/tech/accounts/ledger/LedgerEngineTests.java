@@ -0,0 +1,280 @@
+package com.seven.tech.accounts.ledger;
+
+import com.seven.tech.accounts.exception.AccountNotEnoughMoneyException;
+import com.seven.tech.accounts.id.AccountIdFormat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LedgerEngineTests {
+
+	private static final int COUNT_ACCOUNTS = 32;
+	private static final int COUNT_THREADS = 8;
+	private static final int TRANSFERS_PER_THREAD = 2000;
+	private static final long INITIAL_BALANCE = 1_000_00;
+
+	@TempDir
+	Path journalDir;
+
+	@Test
+	void replayShouldRestoreBalancesAfterRestart() throws Exception {
+		String[] accountIds = new String[COUNT_ACCOUNTS];
+		LedgerEngine engine = newEngine(4);
+		engine.start();
+		for (int i = 0; i < COUNT_ACCOUNTS; i++) {
+			accountIds[i] = UUID.randomUUID().toString();
+			engine.createAccount(accountIds[i]);
+			engine.increaseBalance(accountIds[i], INITIAL_BALANCE);
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(COUNT_THREADS);
+		for (int t = 0; t < COUNT_THREADS; t++) {
+			int seed = t;
+			executor.execute(() -> {
+				for (int n = 0; n < TRANSFERS_PER_THREAD; n++) {
+					String from = accountIds[(seed + n) % COUNT_ACCOUNTS];
+					String to = accountIds[(seed * 7 + n * 3) % COUNT_ACCOUNTS];
+					engine.transferMoney(from, to, 1);
+				}
+			});
+		}
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+		engine.reduceBalance(accountIds[0], 5);
+		long[] expected = new long[COUNT_ACCOUNTS];
+		for (int i = 0; i < COUNT_ACCOUNTS; i++) {
+			expected[i] = engine.getBalance(accountIds[i]);
+		}
+		engine.stop();
+
+		LedgerEngine restarted = newEngine(3);
+		restarted.start();
+		long total = 0;
+		for (int i = 0; i < COUNT_ACCOUNTS; i++) {
+			assertEquals(expected[i], restarted.getBalance(accountIds[i]));
+			total += expected[i];
+		}
+		assertEquals(COUNT_ACCOUNTS * INITIAL_BALANCE - 5, total);
+		restarted.stop();
+	}
+
+	@Test
+	void replayShouldIgnoreTornTail() throws Exception {
+		String accountId = UUID.randomUUID().toString();
+		LedgerEngine engine = newEngine(1);
+		engine.start();
+		engine.createAccount(accountId);
+		engine.increaseBalance(accountId, 100);
+		engine.stop();
+		try (FileChannel channel = FileChannel.open(journalDir.resolve("partition-0.journal"), StandardOpenOption.WRITE)) {
+			channel.truncate(channel.size() - 3);
+		}
+
+		LedgerEngine restarted = newEngine(1);
+		restarted.start();
+		assertEquals(0, restarted.getBalance(accountId));
+		assertThrows(AccountNotEnoughMoneyException.class, () -> restarted.reduceBalance(accountId, 1));
+		restarted.increaseBalance(accountId, 7);
+		restarted.stop();
+
+		LedgerEngine again = newEngine(1);
+		again.start();
+		assertEquals(7, again.getBalance(accountId));
+		again.stop();
+	}
+
+	@Test
+	void snapshotShouldRestoreBalancesWithJournalsWrittenAfterIt() throws Exception {
+		String[] accountIds = new String[COUNT_ACCOUNTS];
+		LedgerEngine engine = newEngine(4);
+		engine.start();
+		for (int i = 0; i < COUNT_ACCOUNTS; i++) {
+			accountIds[i] = UUID.randomUUID().toString();
+			engine.createAccount(accountIds[i]);
+			engine.increaseBalance(accountIds[i], INITIAL_BALANCE);
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(COUNT_THREADS);
+		for (int t = 0; t < COUNT_THREADS; t++) {
+			int seed = t;
+			executor.execute(() -> {
+				for (int n = 0; n < TRANSFERS_PER_THREAD; n++) {
+					String from = accountIds[(seed + n) % COUNT_ACCOUNTS];
+					String to = accountIds[(seed * 7 + n * 3) % COUNT_ACCOUNTS];
+					engine.transferMoney(from, to, 1);
+				}
+			});
+		}
+		for (int i = 0; i < 5; i++) {
+			engine.snapshot().join();
+		}
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+		engine.reduceBalance(accountIds[0], 5);
+		long[] expected = new long[COUNT_ACCOUNTS];
+		for (int i = 0; i < COUNT_ACCOUNTS; i++) {
+			expected[i] = engine.getBalance(accountIds[i]);
+		}
+		engine.stop();
+		assertEquals(1, countFiles("snapshot-*.manifest"));
+		assertEquals(0, countFiles("partition-*.*.journal"));
+
+		LedgerEngine restarted = newEngine(3);
+		restarted.start();
+		long total = 0;
+		for (int i = 0; i < COUNT_ACCOUNTS; i++) {
+			assertEquals(expected[i], restarted.getBalance(accountIds[i]));
+			total += expected[i];
+		}
+		assertEquals(COUNT_ACCOUNTS * INITIAL_BALANCE - 5, total);
+		restarted.stop();
+	}
+
+	@Test
+	void journalPastThresholdShouldBeReplacedBySnapshot() throws Exception {
+		String accountId = UUID.randomUUID().toString();
+		LedgerEngine engine = new LedgerEngine(journalDir.toString(), 2, 1024, false, 4096);
+		engine.start();
+		engine.createAccount(accountId);
+		for (int i = 0; i < 2000; i++) {
+			engine.increaseBalance(accountId, 1);
+		}
+		engine.stop();
+		assertTrue(countFiles("snapshot-*.manifest") > 0);
+		try (Stream<Path> journals = Files.list(journalDir)) {
+			long journalBytes = journals.filter(file -> file.toString().endsWith(".journal"))
+					.mapToLong(file -> file.toFile().length()).sum();
+			assertThat(journalBytes).isLessThan(20 * 4096);
+		}
+
+		LedgerEngine restarted = newEngine(2);
+		restarted.start();
+		assertEquals(2000, restarted.getBalance(accountId));
+		restarted.stop();
+	}
+
+	@Test
+	void offHeapBalancesShouldSurviveRestart() throws Exception {
+		String[] accountIds = new String[COUNT_ACCOUNTS];
+		LedgerEngine engine = newEngine(2, BalanceStorage.OFF_HEAP);
+		engine.start();
+		for (int i = 0; i < COUNT_ACCOUNTS; i++) {
+			accountIds[i] = UUID.randomUUID().toString();
+			engine.createAccount(accountIds[i]);
+			engine.increaseBalance(accountIds[i], INITIAL_BALANCE);
+			engine.transferMoney(accountIds[i], accountIds[0], i);
+		}
+		engine.snapshot().join();
+		engine.reduceBalance(accountIds[1], 5);
+		assertThrows(AccountNotEnoughMoneyException.class,
+				() -> engine.reduceBalance(accountIds[2], INITIAL_BALANCE + 1));
+		engine.stop();
+
+		LedgerEngine restarted = newEngine(3, BalanceStorage.OFF_HEAP);
+		restarted.start();
+		long total = 0;
+		for (int i = 0; i < COUNT_ACCOUNTS; i++) {
+			total += restarted.getBalance(accountIds[i]);
+		}
+		assertEquals(COUNT_ACCOUNTS * INITIAL_BALANCE - 5, total);
+		assertEquals(INITIAL_BALANCE - 1 - 5, restarted.getBalance(accountIds[1]));
+		restarted.stop();
+	}
+
+	@Test
+	void recipientShouldSeeCrossPartitionTransferOnceAnswered() throws Exception {
+		LedgerEngine engine = newEngine(4);
+		engine.start();
+		String accountId = UUID.randomUUID().toString();
+		String recipientAccountId;
+		do {
+			recipientAccountId = UUID.randomUUID().toString();
+		} while (engine.partitionOf(recipientAccountId) == engine.partitionOf(accountId));
+		engine.createAccount(accountId);
+		engine.createAccount(recipientAccountId);
+		engine.increaseBalance(accountId, INITIAL_BALANCE);
+
+		for (int i = 1; i <= 1000; i++) {
+			engine.transferMoney(accountId, recipientAccountId, 2);
+			assertEquals(i + 1, engine.getBalance(recipientAccountId));
+			engine.transferMoney(accountId, recipientAccountId, 1);
+			assertEquals(i, engine.reduceBalance(recipientAccountId, 2));
+		}
+		engine.stop();
+	}
+
+	@Test
+	void creditOverflowingTheRecipientShouldWaitForRoom() throws Exception {
+		LedgerEngine engine = newEngine(2);
+		engine.start();
+		String accountId = UUID.randomUUID().toString();
+		String recipientAccountId;
+		do {
+			recipientAccountId = UUID.randomUUID().toString();
+		} while (engine.partitionOf(recipientAccountId) == engine.partitionOf(accountId));
+		engine.createAccount(accountId);
+		engine.createAccount(recipientAccountId);
+		engine.increaseBalance(accountId, INITIAL_BALANCE);
+		engine.increaseBalance(recipientAccountId, Long.MAX_VALUE - 10);
+
+		engine.transferMoney(accountId, recipientAccountId, 50);
+		engine.snapshot().join();
+		assertEquals(INITIAL_BALANCE - 50, engine.getBalance(accountId));
+		assertEquals(Long.MAX_VALUE - 10, engine.getBalance(recipientAccountId));
+		engine.stop();
+
+		LedgerEngine restarted = newEngine(2);
+		restarted.start();
+		assertEquals(Long.MAX_VALUE - 10, restarted.getBalance(recipientAccountId));
+		restarted.reduceBalance(recipientAccountId, 100);
+		assertEquals(Long.MAX_VALUE - 60, restarted.getBalance(recipientAccountId));
+		restarted.stop();
+	}
+
+	@Test
+	void serviceShouldCreateAccountIdsInConfiguredFormat() throws Exception {
+		LedgerEngine engine = newEngine(2);
+		engine.start();
+		LedgerAccountService accountService = new LedgerAccountService(engine);
+		accountService.setAccountIdFormat(AccountIdFormat.BINARY);
+
+		String accountId = accountService.createAccount();
+
+		assertEquals('7', accountId.charAt(14));
+		assertEquals(0, engine.getBalance(accountId));
+		engine.stop();
+	}
+
+	private long countFiles(String glob) throws IOException {
+		long count = 0;
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(journalDir, glob)) {
+			for (Path ignored : files) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private LedgerEngine newEngine(int partitions) throws IOException {
+		return new LedgerEngine(journalDir.toString(), partitions, 1024, false);
+	}
+
+	private LedgerEngine newEngine(int partitions, BalanceStorage balanceStorage) {
+		return new LedgerEngine(journalDir.toString(), partitions, 1024, false,
+				LedgerEngine.DEFAULT_SNAPSHOT_JOURNAL_BYTES, balanceStorage, 16);
+	}
+}
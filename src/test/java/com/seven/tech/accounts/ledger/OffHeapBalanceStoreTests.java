@@ -0,0 +1,88 @@
+package com.seven.tech.accounts.ledger;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OffHeapBalanceStoreTests {
+
+	private static final int COUNT_ACCOUNTS = 100000;
+
+	@Test
+	void storeShouldKeepEveryBalanceWhileGrowing() {
+		OffHeapBalanceStore store = new OffHeapBalanceStore(16);
+		Map<String, Long> expected = new HashMap<>();
+		for (int i = 0; i < COUNT_ACCOUNTS; i++) {
+			String accountId = UUID.randomUUID().toString();
+			assertTrue(store.create(accountId));
+			assertEquals(i, store.add(accountId, i));
+			expected.put(accountId, (long) i);
+		}
+		String accountId = expected.keySet().iterator().next();
+		assertFalse(store.create(accountId));
+		store.put(accountId, -7);
+		expected.put(accountId, -7L);
+
+		assertEquals(COUNT_ACCOUNTS, store.size());
+		assertThat(store.allocatedBytes()).isLessThanOrEqualTo(4L * 24 * COUNT_ACCOUNTS);
+		expected.forEach((id, balance) -> assertEquals(balance, store.get(id)));
+		AtomicInteger visited = new AtomicInteger();
+		store.forEach((id, balance) -> {
+			assertEquals(expected.get(id), balance);
+			visited.incrementAndGet();
+		});
+		assertEquals(COUNT_ACCOUNTS, visited.get());
+	}
+
+	@Test
+	void unknownAndNonCanonicalIdsShouldBeMissing() {
+		OffHeapBalanceStore store = new OffHeapBalanceStore(16);
+		assertEquals(BalanceStore.MISSING, store.get(UUID.randomUUID().toString()));
+		assertEquals(BalanceStore.MISSING, store.get("account-1"));
+		assertFalse(store.contains("account-1"));
+		assertThrows(IllegalArgumentException.class, () -> store.create("account-1"));
+		assertThrows(IllegalArgumentException.class, () -> store.create("00000000-0000-0000-0000-000000000000"));
+	}
+
+	@Test
+	void readersShouldSeeEveryAccountAddedBeforeThemWhileTheWriterGrowsTheTable() throws InterruptedException {
+		OffHeapBalanceStore store = new OffHeapBalanceStore(16);
+		String[] accountIds = new String[COUNT_ACCOUNTS];
+		for (int i = 0; i < COUNT_ACCOUNTS; i++) {
+			accountIds[i] = UUID.randomUUID().toString();
+		}
+		AtomicInteger added = new AtomicInteger();
+		AtomicBoolean failed = new AtomicBoolean();
+		ExecutorService readers = Executors.newFixedThreadPool(2);
+		for (int t = 0; t < 2; t++) {
+			readers.execute(() -> {
+				while (added.get() < COUNT_ACCOUNTS) {
+					int visible = added.get();
+					if (visible > 0 && store.get(accountIds[visible - 1]) != visible - 1) {
+						failed.set(true);
+					}
+				}
+			});
+		}
+		for (int i = 0; i < COUNT_ACCOUNTS; i++) {
+			store.put(accountIds[i], i);
+			added.set(i + 1);
+		}
+		readers.shutdown();
+		assertTrue(readers.awaitTermination(10, TimeUnit.SECONDS));
+		assertFalse(failed.get());
+	}
+}
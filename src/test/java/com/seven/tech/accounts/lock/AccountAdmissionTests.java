@@ -0,0 +1,78 @@
+package com.seven.tech.accounts.lock;
+
+import com.seven.tech.accounts.BaseResult;
+import com.seven.tech.accounts.exception.AccountBusyException;
+import com.seven.tech.accounts.json.MoneyJson;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * With an admission limit of one, a request for an account whose lock is held is answered with a retryable error
+ * at once instead of waiting, and requests for other accounts are served as usual.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = {"accounts.lock.admission.max-limit=1", "accounts.lock.max-wait-millis=5000",
+				"spring.jpa.show-sql=false", "spring.datasource.url=jdbc:h2:mem:admission;LOCK_TIMEOUT=10000"})
+class AccountAdmissionTests {
+
+	private static final MoneyJson MONEY = new MoneyJson(BigDecimal.ONE);
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Autowired
+	private AccountLocks accountLocks;
+
+	@Test
+	void requestForBusyAccountShouldFailFastWithRetryableError() {
+		String accountId = createAccount();
+		String otherAccountId = createAccount();
+		while (accountLocks.stripeOf(otherAccountId) == accountLocks.stripeOf(accountId)) {
+			otherAccountId = createAccount();
+		}
+
+		ResponseEntity<BaseResult> busy;
+		accountLocks.lock(accountId);
+		try {
+			busy = increaseBalance(accountId);
+			assertTrue(increaseBalance(otherAccountId).getBody().isSuccess());
+		} finally {
+			accountLocks.unlock(accountId);
+		}
+
+		assertFalse(busy.getBody().isSuccess());
+		assertEquals(AccountBusyException.CODE, busy.getBody().getErrorCode());
+		assertThat(busy.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isNotNull();
+		ResponseEntity<BaseResult> retried = increaseBalance(accountId);
+		assertTrue(retried.getBody().isSuccess());
+		assertNull(retried.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+	}
+
+	private ResponseEntity<BaseResult> increaseBalance(String accountId) {
+		return restTemplate.postForEntity(getBasicUrl() + accountId + "/increaseBalance", MONEY, BaseResult.class);
+	}
+
+	private String createAccount() {
+		return (String) restTemplate.postForObject(getBasicUrl() + "createAccount", null, BaseResult.class).getResult();
+	}
+
+	private String getBasicUrl() {
+		return "http://localhost:" + port + "/account/";
+	}
+}
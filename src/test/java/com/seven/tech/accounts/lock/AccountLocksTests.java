@@ -0,0 +1,189 @@
+package com.seven.tech.accounts.lock;
+
+import com.seven.tech.accounts.exception.AccountBusyException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AccountLocksTests {
+
+	private static final int COUNT_ACCOUNTS = 64;
+	private static final int COUNT_THREADS = 8;
+	private static final int TRANSFERS_PER_THREAD = 20000;
+
+	@ParameterizedTest
+	@EnumSource(LockAcquisition.class)
+	void transfersOverSharedStripesShouldNotDeadlockOrLoseUpdates(LockAcquisition acquisition) throws InterruptedException {
+		AccountLocks accountLocks = new AccountLocks(acquisition, 4);
+		String[] accountIds = new String[COUNT_ACCOUNTS];
+		long[] balances = new long[COUNT_ACCOUNTS];
+		for (int i = 0; i < COUNT_ACCOUNTS; i++) {
+			accountIds[i] = UUID.randomUUID().toString();
+			balances[i] = TRANSFERS_PER_THREAD;
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(COUNT_THREADS);
+		for (int t = 0; t < COUNT_THREADS; t++) {
+			executor.execute(() -> {
+				ThreadLocalRandom random = ThreadLocalRandom.current();
+				for (int n = 0; n < TRANSFERS_PER_THREAD; n++) {
+					int from = random.nextInt(COUNT_ACCOUNTS);
+					int to = random.nextInt(COUNT_ACCOUNTS);
+					accountLocks.lock(accountIds[from], accountIds[to]);
+					try {
+						balances[from]--;
+						balances[to]++;
+					} finally {
+						accountLocks.unlock(accountIds[from], accountIds[to]);
+					}
+				}
+			});
+		}
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+		long total = 0;
+		for (long balance : balances) {
+			total += balance;
+		}
+		assertEquals((long) COUNT_ACCOUNTS * TRANSFERS_PER_THREAD, total);
+		assertEquals(0, accountLocks.getLockedStripeCount());
+		assertThat(accountLocks.getStripeCount()).isEqualTo(4);
+		assertThat(accountLocks.getSharedStripeTransfers()).isPositive();
+	}
+
+	@ParameterizedTest
+	@EnumSource(LockAcquisition.class)
+	void transferShouldGiveUpAfterTheLongestWaitHoldingNoLock(LockAcquisition acquisition) throws Exception {
+		AccountLocks accountLocks = new AccountLocks(acquisition, 16, 50, 0, 0);
+		String accountId = UUID.randomUUID().toString();
+		String recipientAccountId = otherStripeAccountId(accountLocks, accountId);
+		accountLocks.lock(recipientAccountId);
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		Future<?> transfer = executor.submit(() -> accountLocks.lock(accountId, recipientAccountId));
+		ExecutionException e = assertThrows(ExecutionException.class, () -> transfer.get(5, TimeUnit.SECONDS));
+		executor.shutdown();
+
+		assertThat(e.getCause()).isInstanceOf(AccountBusyException.class);
+		assertEquals(1, accountLocks.getRejectedAcquisitions());
+		assertEquals(1, accountLocks.getLockedStripeCount());
+		accountLocks.unlock(recipientAccountId);
+		accountLocks.lock(accountId, recipientAccountId);
+		accountLocks.unlock(accountId, recipientAccountId);
+	}
+
+	@Test
+	void interruptedTryLockShouldGiveUpAndKeepTheInterrupt() throws Exception {
+		AccountLocks accountLocks = new AccountLocks(LockAcquisition.TRY_LOCK_BACKOFF, 16);
+		String accountId = UUID.randomUUID().toString();
+		String recipientAccountId = otherStripeAccountId(accountLocks, accountId);
+		accountLocks.lock(recipientAccountId);
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		Future<Boolean> transfer = executor.submit(() -> {
+			Thread.currentThread().interrupt();
+			try {
+				accountLocks.lock(accountId, recipientAccountId);
+				return false;
+			} catch (AccountBusyException e) {
+				return Thread.interrupted();
+			}
+		});
+		assertTrue(transfer.get(5, TimeUnit.SECONDS));
+		executor.shutdown();
+
+		assertEquals(1, accountLocks.getRejectedAcquisitions());
+		assertEquals(1, accountLocks.getLockedStripeCount());
+		accountLocks.unlock(recipientAccountId);
+	}
+
+	@Test
+	void batchShouldReportOnlyTheAccountOfTheBusyStripe() throws Exception {
+		AccountLocks accountLocks = new AccountLocks(LockAcquisition.ORDERED, 16, 50, 0, 0);
+		String busyAccountId = UUID.randomUUID().toString();
+		List<String> batch = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			batch.add(UUID.randomUUID().toString());
+		}
+		batch.add(busyAccountId);
+		accountLocks.lock(busyAccountId);
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		Future<?> locks = executor.submit(() -> accountLocks.lock(batch));
+		ExecutionException e = assertThrows(ExecutionException.class, () -> locks.get(5, TimeUnit.SECONDS));
+		executor.shutdown();
+
+		String reported = e.getCause().getMessage();
+		assertThat(batch).contains(reported);
+		assertEquals(accountLocks.stripeOf(busyAccountId), accountLocks.stripeOf(reported));
+		assertEquals(1, accountLocks.getLockedStripeCount());
+		accountLocks.unlock(busyAccountId);
+	}
+
+	@Test
+	void callerBeyondTheAdmissionLimitShouldBeTurnedAwayAtOnce() throws Exception {
+		AccountLocks accountLocks = new AccountLocks(LockAcquisition.ORDERED, 16, 0, 1, 20);
+		String accountId = UUID.randomUUID().toString();
+		String otherAccountId = otherStripeAccountId(accountLocks, accountId);
+		accountLocks.lock(accountId);
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		Future<?> busy = executor.submit(() -> accountLocks.lock(accountId));
+		ExecutionException e = assertThrows(ExecutionException.class, () -> busy.get(5, TimeUnit.SECONDS));
+		executor.submit(() -> {
+			accountLocks.lock(otherAccountId);
+			accountLocks.unlock(otherAccountId);
+		}).get(5, TimeUnit.SECONDS);
+		executor.shutdown();
+
+		assertThat(e.getCause()).isInstanceOf(AccountBusyException.class);
+		assertEquals(1, accountLocks.getRejectedAcquisitions());
+		accountLocks.unlock(accountId);
+		accountLocks.lock(accountId);
+		accountLocks.unlock(accountId);
+	}
+
+	@Test
+	void admissionLimitShouldFollowTheLockWait() {
+		AdmissionLimiter limiter = new AdmissionLimiter(2, 64, 1000);
+		for (int i = 0; i < 100; i++) {
+			limiter.onWait(0, 5000);
+		}
+		assertEquals(1, limiter.getLimit(0));
+		assertEquals(64, limiter.getLimit(1));
+		assertTrue(limiter.tryAcquire(0));
+		assertFalse(limiter.tryAcquire(0));
+		limiter.release(0);
+
+		for (int i = 0; i < 100; i++) {
+			limiter.onWait(0, 0);
+		}
+		assertEquals(64, limiter.getLimit(0));
+	}
+
+	private static String otherStripeAccountId(AccountLocks accountLocks, String accountId) {
+		while (true) {
+			String otherAccountId = UUID.randomUUID().toString();
+			if (accountLocks.stripeOf(otherAccountId) != accountLocks.stripeOf(accountId)) {
+				return otherAccountId;
+			}
+		}
+	}
+}
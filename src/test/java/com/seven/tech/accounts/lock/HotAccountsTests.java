@@ -0,0 +1,34 @@
+package com.seven.tech.accounts.lock;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HotAccountsTests {
+
+	@Test
+	void heavyHittersShouldStayTrackedAmongManyColdAccounts() {
+		HotAccounts hotAccounts = new HotAccounts(8);
+		for (int i = 0; i < 10000; i++) {
+			hotAccounts.record(i % 3 == 0 ? "hot" : i % 3 == 1 ? "warm-" + (i % 2) : "cold-" + i);
+		}
+
+		List<HotAccounts.HotAccount> top = hotAccounts.top(3);
+
+		assertEquals(3, top.size());
+		assertEquals("hot", top.get(0).getAccountId());
+		assertTrue(top.get(0).getCount() - top.get(0).getError() <= 3334);
+		assertTrue(top.get(0).getCount() >= 3334);
+	}
+
+	@Test
+	void topShouldNotReturnMoreThanTracked() {
+		HotAccounts hotAccounts = new HotAccounts(8);
+		hotAccounts.record("a");
+
+		assertEquals(1, hotAccounts.top(10).size());
+	}
+}
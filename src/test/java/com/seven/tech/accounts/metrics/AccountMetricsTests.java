@@ -0,0 +1,59 @@
+package com.seven.tech.accounts.metrics;
+
+import com.seven.tech.accounts.BaseResult;
+import com.seven.tech.accounts.json.MoneyJson;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class AccountMetricsTests {
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Test
+	void prometheusEndpointShouldExposeLockTransactionAndEndpointMetrics() {
+		String accountId = restTemplate.postForObject(getBasicUrl() + "account/createAccount", null, BaseResult.class)
+				.getResult().toString();
+		String recipientAccountId = restTemplate.postForObject(getBasicUrl() + "account/createAccount", null,
+				BaseResult.class).getResult().toString();
+		restTemplate.postForObject(getBasicUrl() + "account/" + accountId + "/increaseBalance",
+				new MoneyJson(BigDecimal.TEN), BaseResult.class);
+		restTemplate.postForObject(getBasicUrl() + "account/" + accountId + "/transferMoney/" + recipientAccountId,
+				new MoneyJson(BigDecimal.ONE), BaseResult.class);
+
+		String metrics = restTemplate.getForObject(getBasicUrl() + "actuator/prometheus", String.class);
+
+		assertThat(metrics)
+				.contains("accounts_lock_wait_seconds_bucket{operation=\"transfer\"")
+				.contains("accounts_transaction_seconds_count{operation=\"transfer\",}")
+				.contains("accounts_lock_stripes 4096.0")
+				.contains("accounts_lock_hot_contended{rank=\"1\",}")
+				.contains("accounts_balance_cache_hits_total")
+				.contains("http_server_requests_seconds_bucket{exception=\"None\",method=\"POST\"");
+	}
+
+	@Test
+	void hotAccountsEndpointShouldBeExposed() {
+		ResponseEntity<String> response = restTemplate.getForEntity(getBasicUrl() + "actuator/hotaccounts", String.class);
+
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+	}
+
+	private String getBasicUrl() {
+		return "http://localhost:" + port + "/";
+	}
+}
@@ -0,0 +1,47 @@
+package com.seven.tech.accounts.money;
+
+import com.seven.tech.accounts.exception.AccountBalanceOverflowException;
+import com.seven.tech.accounts.exception.InvalidMoneyException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MoneyTests {
+
+	@Test
+	void shouldConvertToMinorUnitsAndBack() {
+		assertEquals(1005, Money.toMinorUnits(new BigDecimal("10.05")));
+		assertEquals(1000, Money.toMinorUnits(new BigDecimal("10")));
+		assertEquals(1000, Money.toMinorUnits(new BigDecimal("10.000")));
+		assertEquals(new BigDecimal("10.05"), Money.toMoney(1005));
+	}
+
+	@Test
+	void shouldRejectMoreFractionDigitsThanTheScale() {
+		assertThrows(InvalidMoneyException.class, () -> Money.toMinorUnits(new BigDecimal("0.001")));
+	}
+
+	@Test
+	void shouldRejectMoneyThatIsNotPositive() {
+		assertThrows(InvalidMoneyException.class, () -> Money.toMinorUnits(BigDecimal.ZERO));
+		assertThrows(InvalidMoneyException.class, () -> Money.toMinorUnits(new BigDecimal("0.00")));
+		assertThrows(InvalidMoneyException.class, () -> Money.toMinorUnits(new BigDecimal("-0.01")));
+		assertThrows(InvalidMoneyException.class, () -> Money.toMinorUnits(new BigDecimal("-10")));
+	}
+
+	@Test
+	void shouldRejectMoneyThatDoesNotFitIntoABalance() {
+		assertThrows(InvalidMoneyException.class, () -> Money.toMinorUnits(new BigDecimal("92233720368547758.08")));
+		assertThrows(InvalidMoneyException.class, () -> Money.toMinorUnits(null));
+	}
+
+	@Test
+	void shouldRejectBalanceOverflow() {
+		assertEquals(Long.MAX_VALUE, Money.credit("a", Long.MAX_VALUE - 1, 1));
+		assertThrows(AccountBalanceOverflowException.class, () -> Money.credit("a", Long.MAX_VALUE, 1));
+		assertThrows(AccountBalanceOverflowException.class, () -> Money.debit("a", 0, Long.MIN_VALUE));
+	}
+}
@@ -0,0 +1,49 @@
+package com.seven.tech.accounts.service;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Bulk creation commits a chunk of accounts per transaction and inserts them in JDBC batches, so the statement
+ * count grows with the number of batches, not the number of accounts.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+		properties = {"spring.jpa.properties.hibernate.generate_statistics=true", "spring.jpa.show-sql=false"})
+@Execution(ExecutionMode.SAME_THREAD)
+class CreateAccountsTests {
+
+	private static final int COUNT = 2500;
+
+	@Autowired
+	private AccountService accountService;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Test
+	void createAccountsShouldBatchInserts() {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		List<String> accountIds = new ArrayList<>();
+
+		accountService.createAccounts(COUNT, accountIds::add);
+
+		assertEquals(COUNT, accountIds.size());
+		assertEquals(COUNT, statistics.getEntityInsertCount());
+		assertThat(statistics.getTransactionCount()).isLessThanOrEqualTo(3);
+		assertThat(statistics.getPrepareStatementCount()).isLessThan(COUNT / 10);
+		assertEquals(0, accountService.getBalance(accountIds.get(COUNT - 1)));
+	}
+}
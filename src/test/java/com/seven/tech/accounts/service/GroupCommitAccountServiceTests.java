@@ -0,0 +1,107 @@
+package com.seven.tech.accounts.service;
+
+import com.seven.tech.accounts.exception.AccountEntityNotFoundException;
+import com.seven.tech.accounts.exception.AccountNotEnoughMoneyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+		properties = {"spring.jpa.properties.hibernate.generate_statistics=true", "spring.jpa.show-sql=false"})
+@ActiveProfiles("group-commit")
+@Execution(ExecutionMode.SAME_THREAD)
+class GroupCommitAccountServiceTests {
+
+	private static final Logger log = LoggerFactory.getLogger(GroupCommitAccountServiceTests.class);
+	private static final int COUNT_THREADS = 16;
+	private static final int OPERATIONS_PER_THREAD = 100;
+	private static final long INITIAL_BALANCE = 1000;
+
+	@Autowired
+	private AccountService accountService;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Test
+	void hotAccountShouldGetEveryOperationWithFewerCommits() throws InterruptedException {
+		assertThat(accountService).isInstanceOf(GroupCommitAccountService.class);
+		String accountId = accountService.createAccount();
+		accountService.increaseBalance(accountId, INITIAL_BALANCE);
+		AtomicLong expectedBalance = new AtomicLong(INITIAL_BALANCE);
+		AtomicInteger overdrawn = new AtomicInteger();
+		AtomicInteger unexpected = new AtomicInteger();
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		ExecutorService executor = Executors.newFixedThreadPool(COUNT_THREADS);
+		for (int t = 0; t < COUNT_THREADS; t++) {
+			boolean debit = t % 2 == 0;
+			executor.execute(() -> {
+				for (int n = 0; n < OPERATIONS_PER_THREAD; n++) {
+					if (!debit) {
+						assertThat(accountService.increaseBalance(accountId, 10)).isNotNegative();
+						expectedBalance.addAndGet(10);
+						continue;
+					}
+					try {
+						assertThat(accountService.reduceBalance(accountId, 30)).isNotNegative();
+						expectedBalance.addAndGet(-30);
+					} catch (AccountNotEnoughMoneyException e) {
+						overdrawn.incrementAndGet();
+					} catch (RuntimeException e) {
+						unexpected.incrementAndGet();
+					}
+				}
+			});
+		}
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+
+		assertEquals(0, unexpected.get());
+		assertEquals(expectedBalance.get(), accountService.getBalance(accountId));
+		assertThat(overdrawn.get()).isPositive();
+		assertThat(statistics.getTransactionCount()).isLessThan(COUNT_THREADS * OPERATIONS_PER_THREAD);
+		log.info("group commit: {} operations in {} transactions", COUNT_THREADS * OPERATIONS_PER_THREAD,
+				statistics.getTransactionCount());
+	}
+
+	@Test
+	void missingAccountShouldFailEveryOperation() {
+		assertThrows(AccountEntityNotFoundException.class,
+				() -> accountService.increaseBalance(UUID.randomUUID().toString(), 10));
+	}
+
+	@Test
+	void nonPositiveBatchSizeShouldBeRejected() {
+		assertThrows(IllegalArgumentException.class, () -> new GroupCommitAccountService(null, null,
+				new SimpleMeterRegistry(), 0, 0, SingleAccountUpdate.LOCKED));
+	}
+
+	@Test
+	void atomicSingleAccountUpdateShouldBeRejected() {
+		assertThrows(IllegalArgumentException.class, () -> new GroupCommitAccountService(null, null,
+				new SimpleMeterRegistry(), 256, 0, SingleAccountUpdate.ATOMIC));
+	}
+}
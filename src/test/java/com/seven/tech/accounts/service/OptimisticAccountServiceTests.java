@@ -0,0 +1,97 @@
+package com.seven.tech.accounts.service;
+
+import com.seven.tech.accounts.exception.AccountConcurrentUpdateException;
+import com.seven.tech.accounts.exception.AccountNotEnoughMoneyException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Hammers a few hot accounts with transfers through each service and checks that no money appears or disappears.
+ * The throughput of every service is logged for comparison.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("optimistic")
+@Execution(ExecutionMode.SAME_THREAD)
+class OptimisticAccountServiceTests {
+
+	private static final Logger log = LoggerFactory.getLogger(OptimisticAccountServiceTests.class);
+	private static final int COUNT_ACCOUNTS = 4;
+	private static final int COUNT_THREADS = 8;
+	private static final int TRANSFERS_PER_THREAD = 250;
+	private static final long INITIAL_BALANCE = 10000;
+	private static final long TRANSFER_VALUE = 100;
+
+	@Autowired
+	private ConcurrentDecoratorAccountService lockingAccountService;
+
+	@Autowired
+	private OptimisticAccountService optimisticAccountService;
+
+	@Test
+	void lockingServiceShouldKeepTotalBalance() throws InterruptedException {
+		hammer("locks", lockingAccountService);
+	}
+
+	@Test
+	void conditionalUpdateShouldKeepTotalBalance() throws InterruptedException {
+		assertEquals(OptimisticStrategy.CONDITIONAL_UPDATE, optimisticAccountService.getStrategy());
+		hammer("conditional update", optimisticAccountService);
+	}
+
+	private void hammer(String name, AccountService accountService) throws InterruptedException {
+		String[] accountIds = new String[COUNT_ACCOUNTS];
+		for (int i = 0; i < COUNT_ACCOUNTS; i++) {
+			accountIds[i] = accountService.createAccount();
+			accountService.increaseBalance(accountIds[i], INITIAL_BALANCE);
+		}
+		AtomicInteger transferred = new AtomicInteger();
+		AtomicInteger rejected = new AtomicInteger();
+
+		ExecutorService executor = Executors.newFixedThreadPool(COUNT_THREADS);
+		long start = System.nanoTime();
+		for (int t = 0; t < COUNT_THREADS; t++) {
+			executor.execute(() -> {
+				ThreadLocalRandom random = ThreadLocalRandom.current();
+				for (int n = 0; n < TRANSFERS_PER_THREAD; n++) {
+					try {
+						accountService.transferMoney(accountIds[random.nextInt(COUNT_ACCOUNTS)],
+								accountIds[random.nextInt(COUNT_ACCOUNTS)], TRANSFER_VALUE);
+						transferred.incrementAndGet();
+					} catch (AccountNotEnoughMoneyException | AccountConcurrentUpdateException e) {
+						rejected.incrementAndGet();
+					}
+				}
+			});
+		}
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+		long elapsedNanos = System.nanoTime() - start;
+
+		long total = 0;
+		for (String accountId : accountIds) {
+			long balance = accountService.getBalance(accountId);
+			assertThat(balance).isNotNegative();
+			total += balance;
+		}
+		assertEquals(INITIAL_BALANCE * COUNT_ACCOUNTS, total);
+		assertEquals(COUNT_THREADS * TRANSFERS_PER_THREAD, transferred.get() + rejected.get());
+		log.info("{}: {} transfers, {} rejected, {} transfers/s", name, transferred.get(), rejected.get(),
+				transferred.get() * TimeUnit.SECONDS.toNanos(1) / elapsedNanos);
+	}
+}
@@ -0,0 +1,80 @@
+package com.seven.tech.accounts.service;
+
+import com.seven.tech.accounts.repository.AccountRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Counts the JDBC statements prepared for one transfer. The entity path loads each account on its own and flushes
+ * both dirty entities in one batch of two updates; the transfer path locks both accounts with one query, moves
+ * the money with one update and writes both history rows with one batched insert.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+		properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Execution(ExecutionMode.SAME_THREAD)
+class TransferStatementCountTests {
+
+	private static final long INITIAL_BALANCE = 10000;
+	private static final long TRANSFER_VALUE = 100;
+
+	@Autowired
+	private ConcurrentDecoratorAccountService accountService;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private AccountRepository repository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+	private String accountId;
+	private String recipientAccountId;
+
+	@BeforeEach
+	void setUp() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		accountId = accountService.createAccount();
+		recipientAccountId = accountService.createAccount();
+		accountService.increaseBalance(accountId, INITIAL_BALANCE);
+		statistics.clear();
+	}
+
+	@Test
+	void entityTransferShouldTakeThreeStatements() {
+		AccountService entityAccountService = new AccountService();
+		entityAccountService.setRepository(repository);
+		transactionTemplate.execute(status -> {
+			entityAccountService.reduceBalance(accountId, TRANSFER_VALUE);
+			return entityAccountService.increaseBalance(recipientAccountId, TRANSFER_VALUE);
+		});
+
+		assertEquals(3, statistics.getPrepareStatementCount());
+	}
+
+	/**
+	 * History ids are allocated in blocks, so a transfer that starts a new block also calls the sequence.
+	 */
+	@Test
+	void transferShouldTakeThreeStatements() {
+		accountService.transferMoney(accountId, recipientAccountId, TRANSFER_VALUE);
+
+		assertThat(statistics.getPrepareStatementCount()).isBetween(3L, 4L);
+		assertEquals(INITIAL_BALANCE - TRANSFER_VALUE, accountService.getBalance(accountId));
+		assertEquals(TRANSFER_VALUE, accountService.getBalance(recipientAccountId));
+	}
+}
@@ -0,0 +1,63 @@
+package com.seven.tech.accounts.shard;
+
+import com.seven.tech.accounts.id.AccountIdFormat;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ShardRouterTests {
+
+	@Test
+	void newAccountIdShouldCarryItsShard() {
+		ShardRouter router = new ShardRouter(8, 64);
+		for (int i = 0; i < 1000; i++) {
+			String accountId = router.newAccountId();
+			assertEquals(36, accountId.length());
+			assertEquals(router.shardOf(accountId), new ShardRouter(16, 64).shardOf(accountId));
+			UUID.fromString(accountId);
+		}
+	}
+
+	@Test
+	void timeOrderedAccountIdShouldCarryItsShard() {
+		ShardRouter router = new ShardRouter(8, 64);
+		String accountId = router.newAccountId(AccountIdFormat.BINARY);
+		assertEquals(7, UUID.fromString(accountId).version());
+		assertEquals(router.shardOf(accountId), new ShardRouter(16, 64).shardOf(accountId));
+	}
+
+	@Test
+	void newAccountsShouldSpreadOverShards() {
+		ShardRouter router = new ShardRouter(4, 64);
+		int[] counts = new int[4];
+		for (int i = 0; i < 40000; i++) {
+			counts[router.shardOf(router.newAccountId())]++;
+		}
+		for (int count : counts) {
+			assertThat(count).isBetween(7000, 13000);
+		}
+	}
+
+	@Test
+	void idWithoutShardShouldMoveRarelyWhenShardIsAdded() {
+		ShardRouter router = new ShardRouter(4, 64);
+		ShardRouter grown = new ShardRouter(5, 64);
+		int moved = 0;
+		for (int i = 0; i < 10000; i++) {
+			String accountId = "account-" + i;
+			if (router.shardOf(accountId) != grown.shardOf(accountId)) {
+				moved++;
+			}
+		}
+		assertThat(moved).isBetween(1000, 3000);
+	}
+
+	@Test
+	void shardShouldBeWrittenAfterVersion() {
+		assertEquals("123e4567-e89b-4002-a456-426614174000",
+				ShardRouter.withShard("123e4567-e89b-4fff-a456-426614174000", 2));
+	}
+}
@@ -0,0 +1,111 @@
+package com.seven.tech.accounts.shard;
+
+import com.seven.tech.accounts.entity.TransferOutboxEntity;
+import com.seven.tech.accounts.exception.AccountBalanceOverflowException;
+import com.seven.tech.accounts.repository.AccountRepository;
+import com.seven.tech.accounts.repository.TransferOutboxRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+		properties = {"accounts.shards.relay-grace-millis=0", "accounts.shards.relay-interval-millis=3600000"})
+@ActiveProfiles("sharded")
+class ShardedAccountServiceTests {
+
+	private static final long INITIAL_BALANCE = 10000;
+	private static final long TRANSFER_VALUE = 100;
+
+	@Autowired
+	private ShardedAccountService accountService;
+
+	@Autowired
+	private ShardRouter shardRouter;
+
+	@Autowired
+	private AccountRepository repository;
+
+	@Autowired
+	private TransferOutboxRepository outboxRepository;
+
+	@Test
+	void accountShouldOnlyExistOnItsShard() {
+		String accountId = accountService.createAccount();
+		int shard = shardRouter.shardOf(accountId);
+		for (int other = 0; other < shardRouter.getShardCount(); other++) {
+			assertEquals(other == shard, ShardRoutingDataSource.call(other, () -> repository.existsById(accountId)));
+		}
+	}
+
+	@Test
+	void transferAcrossShardsShouldMoveMoneyAndFinishOutbox() {
+		String accountId = accountService.createAccount();
+		String recipientAccountId = createAccountOnOtherShard(accountId);
+		accountService.increaseBalance(accountId, INITIAL_BALANCE);
+
+		assertTrue(accountService.transferMoney(accountId, recipientAccountId, TRANSFER_VALUE));
+
+		assertEquals(INITIAL_BALANCE - TRANSFER_VALUE, accountService.getBalance(accountId));
+		assertEquals(TRANSFER_VALUE, accountService.getBalance(recipientAccountId));
+		assertFalse(hasPendingTransfers(accountId));
+	}
+
+	@Test
+	void refusedTransferAcrossShardsShouldRefundPayer() {
+		String accountId = accountService.createAccount();
+		String recipientAccountId = createAccountOnOtherShard(accountId);
+		accountService.increaseBalance(accountId, INITIAL_BALANCE);
+		accountService.increaseBalance(recipientAccountId, Long.MAX_VALUE - 1);
+
+		assertThrows(AccountBalanceOverflowException.class,
+				() -> accountService.transferMoney(accountId, recipientAccountId, TRANSFER_VALUE));
+
+		assertEquals(INITIAL_BALANCE, accountService.getBalance(accountId));
+		assertEquals(Long.MAX_VALUE - 1, accountService.getBalance(recipientAccountId));
+	}
+
+	@Test
+	void relayShouldFinishInterruptedTransfer() {
+		String accountId = accountService.createAccount();
+		String recipientAccountId = createAccountOnOtherShard(accountId);
+		int shard = shardRouter.shardOf(accountId);
+		TransferOutboxEntity transfer = new TransferOutboxEntity();
+		transfer.setId(UUID.randomUUID().toString());
+		transfer.setAccountId(accountId);
+		transfer.setRecipientAccountId(recipientAccountId);
+		transfer.setMoney(TRANSFER_VALUE);
+		transfer.setStatus(TransferOutboxEntity.Status.PENDING);
+		transfer.setCreatedAt(Instant.now().minusSeconds(1));
+		ShardRoutingDataSource.run(shard, () -> outboxRepository.save(transfer));
+
+		accountService.relayPendingTransfers();
+		accountService.relayPendingTransfers();
+
+		assertEquals(TRANSFER_VALUE, accountService.getBalance(recipientAccountId));
+		assertEquals(TransferOutboxEntity.Status.DONE,
+				ShardRoutingDataSource.call(shard, () -> outboxRepository.findById(transfer.getId()).get().getStatus()));
+	}
+
+	private String createAccountOnOtherShard(String accountId) {
+		String recipientAccountId;
+		do {
+			recipientAccountId = accountService.createAccount();
+		} while (shardRouter.shardOf(recipientAccountId) == shardRouter.shardOf(accountId));
+		return recipientAccountId;
+	}
+
+	private boolean hasPendingTransfers(String accountId) {
+		return ShardRoutingDataSource.call(shardRouter.shardOf(accountId), () -> outboxRepository.findAll().stream()
+				.anyMatch(transfer -> transfer.getAccountId().equals(accountId)
+						&& transfer.getStatus() == TransferOutboxEntity.Status.PENDING));
+	}
+}